@@ -24,6 +24,8 @@ import me.thosea.celestialgdx.graphics.Texture;
 import me.thosea.celestialgdx.graphics.Texture.TextureFilter;
 import me.thosea.celestialgdx.graphics.Texture.TextureWrap;
 import me.thosea.celestialgdx.image.Pixmap;
+import me.thosea.celestialgdx.utils.BufferRing;
+import org.jetbrains.annotations.Nullable;
 import org.lwjgl.system.MemoryUtil;
 
 import java.nio.ByteBuffer;
@@ -33,13 +35,33 @@ import java.nio.ByteBuffer;
  * rendering thread, synchronously. Passing a {@link TextureParameter} to
  * {@link AssetManager#load(String, Class, AssetLoaderParameters)} allows one to specify parameters as can be passed to the
  * various Texture constructors, e.g. filtering, whether to generate mipmaps and so on.
+ * <p>
+ * CelestialGDX - if a {@link BufferRing} is set with {@link #setUploadRing(BufferRing)}, the decoded pixels are copied into
+ * the ring's mapped memory off the main thread, and the main thread only issues the upload from the pixel buffer.
+ * Images that don't fit in a slot and compressed textures are uploaded directly.
+ * </p>
  * @author mzechner
  */
 public class TextureLoader extends AssetLoader<Texture, TextureLoader.TextureParameter> {
+	@Nullable private volatile BufferRing uploadRing;
+
 	public TextureLoader(FileHandleResolver resolver) {
 		super(resolver);
 	}
 
+	/**
+	 * Sets the ring used to stage texture uploads, or null to upload pixmaps directly.
+	 * The ring is not disposed by the loader.
+	 */
+	public void setUploadRing(@Nullable BufferRing ring) {
+		this.uploadRing = ring;
+	}
+
+	@Nullable
+	public BufferRing getUploadRing() {
+		return uploadRing;
+	}
+
 	@Override
 	public Texture load(String path, TextureParameter parameter, AssetLoadingContext<Texture> ctx) throws Exception {
 		// TODO celestialgdx: in asset manager rework, allow same path with different types
@@ -54,24 +76,64 @@ public class TextureLoader extends AssetLoader<Texture, TextureLoader.TexturePar
 				MemoryUtil.memFree(buffer);
 			}
 		});
+
+		boolean compress = parameter != null && parameter.compress;
+		BufferRing ring = this.uploadRing;
+		if(ring != null && !compress && pixmap.format.glType != -1 && ring.fits(pixmap.format, pixmap.width, pixmap.height)) {
+			BufferRing.Slot slot = acquireSlot(ring, ctx);
+			ByteBuffer pixels = pixmap.getBuffer();
+			MemoryUtil.memCopy(MemoryUtil.memAddress(pixels), MemoryUtil.memAddress(slot.buffer()), pixels.remaining());
+			pixmap.dispose();
+			try {
+				return ctx.awaitMainThread(() -> {
+					Texture texture = Texture.create2D();
+					ring.upload(slot, texture, pixmap.format, pixmap.width, pixmap.height);
+					applyParameters(texture, parameter);
+					return texture;
+				});
+			} catch(RuntimeException e) {
+				// if the upload never ran, give the slot back
+				if(!ring.isDisposed() && slot.isClaimed()) ring.release(slot);
+				throw e;
+			}
+		}
+
 		return ctx.awaitMainThread(() -> {
 			Texture texture = Texture.create2D();
-			texture.upload(pixmap, parameter != null && parameter.compress);
-			if(parameter != null) {
-				texture.setMinificationFilter(parameter.minFilter);
-				texture.setMinificationFilter(parameter.magFilter);
-				texture.setHorizontalWrap(parameter.wrapU);
-				texture.setVerticalWrap(parameter.wrapV);
-			} else {
-				texture.setMinificationFilter(TextureFilter.NEAREST);
-				texture.setMagnificationFilter(TextureFilter.NEAREST);
-				texture.setWrap(TextureWrap.CLAMP_TO_EDGE);
-			}
+			texture.upload(pixmap, compress);
+			applyParameters(texture, parameter);
 			pixmap.dispose();
 			return texture;
 		});
 	}
 
+	private static BufferRing.Slot acquireSlot(BufferRing ring, AssetLoadingContext<Texture> ctx) throws InterruptedException {
+		BufferRing.Slot slot = ring.tryAcquire();
+		while(slot == null) {
+			// while other loaders are writing to every slot, only they can give one back
+			ring.awaitUnclaimed();
+			slot = ring.tryAcquire();
+			if(slot != null) break;
+			// slots in flight are only returned once the main thread checks their fences
+			ctx.awaitMainThread(() -> ring.reclaim(/*wait*/ true));
+			slot = ring.tryAcquire();
+		}
+		return slot;
+	}
+
+	private static void applyParameters(Texture texture, @Nullable TextureParameter parameter) {
+		if(parameter != null) {
+			texture.setMinificationFilter(parameter.minFilter);
+			texture.setMinificationFilter(parameter.magFilter);
+			texture.setHorizontalWrap(parameter.wrapU);
+			texture.setVerticalWrap(parameter.wrapV);
+		} else {
+			texture.setMinificationFilter(TextureFilter.NEAREST);
+			texture.setMagnificationFilter(TextureFilter.NEAREST);
+			texture.setWrap(TextureWrap.CLAMP_TO_EDGE);
+		}
+	}
+
 	static public class TextureParameter extends AssetLoaderParameters<Texture> {
 		/* If true, the texture will be compressed on the GPU */
 		public boolean compress = false;
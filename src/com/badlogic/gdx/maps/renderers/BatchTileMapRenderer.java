@@ -26,6 +26,11 @@ import me.thosea.celestialgdx.maps.layers.GroupLayer;
 import me.thosea.celestialgdx.maps.layers.ImageLayer;
 import me.thosea.celestialgdx.maps.layers.MapLayer;
 import me.thosea.celestialgdx.maps.layers.TileLayer;
+import me.thosea.celestialgdx.maps.tiles.AnimatedTileCache;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import static com.badlogic.gdx.graphics.g2d.Batch.*;
 
@@ -33,6 +38,8 @@ import static com.badlogic.gdx.graphics.g2d.Batch.*;
 // a total hassle, so maybe remove the other ones
 public abstract class BatchTileMapRenderer implements TileMapRenderer {
 	static protected final int NUM_VERTICES = 20;
+	/** CelestialGDX - the least rows each part of a layer generates, below which it isn't worth splitting */
+	static private final int MIN_PART_ROWS = 8;
 
 	protected final Batch batch;
 	protected final float unitScale;
@@ -43,6 +50,24 @@ public abstract class BatchTileMapRenderer implements TileMapRenderer {
 
 	protected final float[] vertices = new float[NUM_VERTICES];
 
+	/** CelestialGDX - the regions of animated tiles for the time being rendered */
+	protected final AnimatedTileCache animations = new AnimatedTileCache();
+
+	/** CelestialGDX - the tiles generated on the render thread, see {@link #renderTileRows(int, int, long, TileRowWriter)} */
+	protected final TileVertices tileVertices = new TileVertices(animations);
+	@Nullable private Executor vertexExecutor;
+	private TileVertices[] vertexParts = {tileVertices};
+
+	/**
+	 * CelestialGDX - generates the tiles in one row of a tile layer.
+	 * Rows may be generated on other threads at the same time, so it must not change the renderer or layer.
+	 */
+	@FunctionalInterface
+	public interface TileRowWriter {
+		/** Adds the tiles of the row to the vertices in the order they're drawn */
+		void write(int row, TileVertices out);
+	}
+
 	protected BatchTileMapRenderer(Batch batch) {
 		this(1.0f, batch);
 	}
@@ -65,6 +90,25 @@ public abstract class BatchTileMapRenderer implements TileMapRenderer {
 		return viewBounds;
 	}
 
+	/**
+	 * CelestialGDX - splits the visible rows of large tile layers into parts generated at the same time,
+	 * the first on the render thread and the others on the executor, then draws them in order.
+	 * Each part keeps its own vertices and animated tile cache. The executor is only used while rendering and isn't shut down.
+	 * @param executor the executor to generate parts on, or null to generate all rows on the render thread
+	 * @param parts the most parts to split a layer into, such as the amount of cores
+	 */
+	public void setVertexExecutor(@Nullable Executor executor, int parts) {
+		if(parts < 1) throw new IllegalArgumentException("parts must be at least 1: " + parts);
+		TileVertices[] vertexParts = new TileVertices[executor != null ? parts : 1];
+		for(int i = 0; i < vertexParts.length; i++) {
+			vertexParts[i] = i < this.vertexParts.length
+					? this.vertexParts[i]
+					: new TileVertices(new AnimatedTileCache());
+		}
+		this.vertexExecutor = executor;
+		this.vertexParts = vertexParts;
+	}
+
 	public void setView(OrthographicCamera camera) {
 		batch.setProjectionMatrix(camera.combined);
 		float width = camera.viewportWidth * camera.zoom;
@@ -80,7 +124,7 @@ public abstract class BatchTileMapRenderer implements TileMapRenderer {
 	}
 
 	public void renderLayer(MapLayer layer, long time) {
-		if(!layer.isVisible()) return;
+		if(!layer.isVisible() || !isInView(layer)) return;
 
 		switch(layer) {
 			case GroupLayer group -> {
@@ -94,8 +138,63 @@ public abstract class BatchTileMapRenderer implements TileMapRenderer {
 		}
 	}
 
+	/**
+	 * CelestialGDX - checked before rendering each layer, layers that return false are skipped along with their children.
+	 * The default doesn't skip any.
+	 * @return whether the layer may draw inside the view bounds
+	 */
+	protected boolean isInView(MapLayer layer) {
+		return true;
+	}
+
 	protected abstract void renderTileLayer(TileLayer layer, long time);
 
+	/**
+	 * CelestialGDX - generates and draws rows of a tile layer from the top row down to the bottom one,
+	 * splitting them into parts if there's a {@link #setVertexExecutor(Executor, int) vertex executor}
+	 * @param top the first row drawn
+	 * @param bottom the last row drawn, inclusive
+	 */
+	protected void renderTileRows(int top, int bottom, long time, TileRowWriter writer) {
+		final int rows = top - bottom + 1;
+		if(rows <= 0) return;
+		final TileVertices[] vertexParts = this.vertexParts;
+		final int parts = Math.min(vertexParts.length, rows / MIN_PART_ROWS);
+
+		if(parts <= 1) {
+			for(int row = top; row >= bottom; row--) {
+				tileVertices.reset(time);
+				writer.write(row, tileVertices);
+				tileVertices.draw(batch);
+			}
+			return;
+		}
+
+		// part i has the rows from top - rows * i / parts down to the start of the next part
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[parts - 1];
+		for(int i = 1; i < parts; i++) {
+			final int from = top - rows * i / parts;
+			final int to = top - rows * (i + 1) / parts + 1;
+			final TileVertices out = vertexParts[i];
+			futures[i - 1] = CompletableFuture.runAsync(() -> writeTileRows(from, to, time, writer, out), vertexExecutor);
+		}
+		try {
+			writeTileRows(top, top - rows / parts + 1, time, writer, vertexParts[0]);
+		} finally {
+			CompletableFuture.allOf(futures).join();
+		}
+		for(int i = 0; i < parts; i++) {
+			vertexParts[i].draw(batch);
+		}
+	}
+
+	static private void writeTileRows(int top, int bottom, long time, TileRowWriter writer, TileVertices out) {
+		out.reset(time);
+		for(int row = top; row >= bottom; row--) {
+			writer.write(row, out);
+		}
+	}
+
 	protected void renderImageLayer(ImageLayer layer) {
 		final Color batchColor = batch.getColor();
 
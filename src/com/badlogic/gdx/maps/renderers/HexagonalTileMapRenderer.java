@@ -22,7 +22,6 @@ import me.thosea.celestialgdx.image.TextureRegion;
 import me.thosea.celestialgdx.maps.TiledMap;
 import me.thosea.celestialgdx.maps.layers.ImageLayer;
 import me.thosea.celestialgdx.maps.layers.TileLayer;
-import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
 
 import static com.badlogic.gdx.graphics.g2d.Batch.*;
 
@@ -120,6 +119,9 @@ public class HexagonalTileMapRenderer extends BatchTileMapRenderer {
 		final float layerOffsetY = -layer.getOffsetY() * unitScale - viewBounds.y * (layer.getParallaxY() - 1);
 
 		final float layerHexLength = hexSideLength * unitScale;
+		// the layer offset is added again to every cell
+		final float cellOffsetX = layer.getOffsetX() * unitScale + layerOffsetX;
+		final float cellOffsetY = layer.getOffsetY() * unitScale + layerOffsetY;
 
 		if(staggerAxisX) {
 			final float tileWidthLowerCorner = (layerTileWidth - layerHexLength) / 2;
@@ -138,16 +140,17 @@ public class HexagonalTileMapRenderer extends BatchTileMapRenderer {
 			final int colA = (staggerIndexEven == (col1 % 2 == 0)) ? col1 + 1 : col1;
 			final int colB = (staggerIndexEven == (col1 % 2 == 0)) ? col1 : col1 + 1;
 
-			for(int row = row2 - 1; row >= row1; row--) {
+			// celestialgdx - rows are generated by renderTileRows, which may split them across threads
+			renderTileRows(row2 - 1, row1, time, (row, out) -> {
 				for(int col = colA; col < col2; col += 2) {
-					renderCell(layer, layer.getCell(col, row), tileWidthUpperCorner * col + layerOffsetX,
-							layerTileHeight50 + (layerTileHeight * row) + layerOffsetY, color, time);
+					out.add(layer.getCell(col, row), tileWidthUpperCorner * col + cellOffsetX,
+							layerTileHeight50 + (layerTileHeight * row) + cellOffsetY, unitScale, color);
 				}
 				for(int col = colB; col < col2; col += 2) {
-					renderCell(layer, layer.getCell(col, row), tileWidthUpperCorner * col + layerOffsetX,
-							layerTileHeight * row + layerOffsetY, color, time);
+					out.add(layer.getCell(col, row), tileWidthUpperCorner * col + cellOffsetX,
+							layerTileHeight * row + cellOffsetY, unitScale, color);
 				}
-			}
+			});
 		} else {
 			final float tileHeightLowerCorner = (layerTileHeight - layerHexLength) / 2;
 			final float tileHeightUpperCorner = (layerTileHeight + layerHexLength) / 2;
@@ -161,78 +164,16 @@ public class HexagonalTileMapRenderer extends BatchTileMapRenderer {
 			final int col2 = Math.min(layerWidth,
 					(int) ((viewBounds.x + viewBounds.width + layerTileWidth - layerOffsetX) / layerTileWidth));
 
-			float shiftX = 0;
-			for(int row = row2 - 1; row >= row1; row--) {
+			final boolean staggerIndexEven = this.staggerIndexEven;
+			renderTileRows(row2 - 1, row1, time, (row, out) -> {
 				// depending on the stagger index either shift for even or uneven indexes
-				if((row % 2 == 0) == staggerIndexEven)
-					shiftX = layerTileWidth50;
-				else
-					shiftX = 0;
+				float shiftX = (row % 2 == 0) == staggerIndexEven ? layerTileWidth50 : 0;
 				for(int col = col1; col < col2; col++) {
-					renderCell(layer, layer.getCell(col, row), layerTileWidth * col + shiftX + layerOffsetX,
-							tileHeightUpperCorner * row + layerOffsetY, color, time);
+					out.add(layer.getCell(col, row), layerTileWidth * col + shiftX + cellOffsetX,
+							tileHeightUpperCorner * row + cellOffsetY, unitScale, color);
 				}
-			}
-		}
-	}
-
-	private void renderCell(TileLayer layer, TileLayer.Cell cell, float x, float y, float color, long time) {
-		TiledMapTile tile = cell.tile();
-		if(tile == null) return;
-
-		TextureRegion region = tile.texture(time);
-
-		float x1 = x + layer.getOffsetX() * unitScale;
-		float y1 = y + layer.getOffsetY() * unitScale;
-		float x2 = x1 + region.width * unitScale;
-		float y2 = y1 + region.height * unitScale;
-
-		float u1 = region.u;
-		float v1 = region.v2;
-		float u2 = region.u2;
-		float v2 = region.v;
-
-		vertices[X1] = x1;
-		vertices[Y1] = y1;
-		vertices[C1] = color;
-		vertices[U1] = u1;
-		vertices[V1] = v1;
-
-		vertices[X2] = x1;
-		vertices[Y2] = y2;
-		vertices[C2] = color;
-		vertices[U2] = u1;
-		vertices[V2] = v2;
-
-		vertices[X3] = x2;
-		vertices[Y3] = y2;
-		vertices[C3] = color;
-		vertices[U3] = u2;
-		vertices[V3] = v2;
-
-		vertices[X4] = x2;
-		vertices[Y4] = y1;
-		vertices[C4] = color;
-		vertices[U4] = u2;
-		vertices[V4] = v1;
-
-		if(cell.isFlippedHorizontally()) {
-			float temp = vertices[U1];
-			vertices[U1] = vertices[U3];
-			vertices[U3] = temp;
-			temp = vertices[U2];
-			vertices[U2] = vertices[U4];
-			vertices[U4] = temp;
-		}
-		if(cell.isFlippedVertically()) {
-			float temp = vertices[V1];
-			vertices[V1] = vertices[V3];
-			vertices[V3] = temp;
-			temp = vertices[V2];
-			vertices[V2] = vertices[V4];
-			vertices[V4] = temp;
+			});
 		}
-		batch.draw(region.texture, vertices, 0, NUM_VERTICES);
 	}
 
 	@Override
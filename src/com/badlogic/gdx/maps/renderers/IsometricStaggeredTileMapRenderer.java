@@ -21,7 +21,6 @@ import com.badlogic.gdx.graphics.g2d.Batch;
 import me.thosea.celestialgdx.image.TextureRegion;
 import me.thosea.celestialgdx.maps.layers.ImageLayer;
 import me.thosea.celestialgdx.maps.layers.TileLayer;
-import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
 
 import static com.badlogic.gdx.graphics.g2d.SpriteBatch.*;
 
@@ -59,73 +58,16 @@ public class IsometricStaggeredTileMapRenderer extends BatchTileMapRenderer {
 		final int maxY = Math.min(layerHeight,
 				(int) ((viewBounds.y + viewBounds.height + layerTileHeight - layerOffsetY) / layerTileHeight50));
 
-		for(int y = maxY - 1; y >= minY; y--) {
+		// celestialgdx - rows are generated by renderTileRows, which may split them across threads
+		final float cellOffsetX = layer.getOffsetX() * unitScale + layerOffsetX;
+		final float cellOffsetY = layer.getOffsetY() * unitScale + layerOffsetY;
+		renderTileRows(maxY - 1, minY, time, (y, out) -> {
 			float offsetX = (y % 2 == 1) ? layerTileWidth50 : 0;
+			float y1 = y * layerTileHeight50 + cellOffsetY;
 			for(int x = maxX - 1; x >= minX; x--) {
-				final TileLayer.Cell cell = layer.getCell(x, y);
-				if(cell == null) continue;
-				final TiledMapTile tile = cell.tile();
-
-				if(tile != null) {
-					final boolean flipX = cell.isFlippedHorizontally();
-					final boolean flipY = cell.isFlippedVertically();
-					TextureRegion region = tile.texture(time);
-
-					float x1 = x * layerTileWidth - offsetX + layer.getOffsetX() * unitScale + layerOffsetX;
-					float y1 = y * layerTileHeight50 + layer.getOffsetY() * unitScale + layerOffsetY;
-					float x2 = x1 + region.width * unitScale;
-					float y2 = y1 + region.height * unitScale;
-
-					float u1 = region.u;
-					float v1 = region.v2;
-					float u2 = region.u2;
-					float v2 = region.v;
-
-					vertices[X1] = x1;
-					vertices[Y1] = y1;
-					vertices[C1] = color;
-					vertices[U1] = u1;
-					vertices[V1] = v1;
-
-					vertices[X2] = x1;
-					vertices[Y2] = y2;
-					vertices[C2] = color;
-					vertices[U2] = u1;
-					vertices[V2] = v2;
-
-					vertices[X3] = x2;
-					vertices[Y3] = y2;
-					vertices[C3] = color;
-					vertices[U3] = u2;
-					vertices[V3] = v2;
-
-					vertices[X4] = x2;
-					vertices[Y4] = y1;
-					vertices[C4] = color;
-					vertices[U4] = u2;
-					vertices[V4] = v1;
-
-					if(flipX) {
-						float temp = vertices[U1];
-						vertices[U1] = vertices[U3];
-						vertices[U3] = temp;
-						temp = vertices[U2];
-						vertices[U2] = vertices[U4];
-						vertices[U4] = temp;
-					}
-
-					if(flipY) {
-						float temp = vertices[V1];
-						vertices[V1] = vertices[V3];
-						vertices[V3] = temp;
-						temp = vertices[V2];
-						vertices[V2] = vertices[V4];
-						vertices[V4] = temp;
-					}
-					batch.draw(region.texture, vertices, 0, NUM_VERTICES);
-				}
+				out.add(layer.getCell(x, y), x * layerTileWidth - offsetX + cellOffsetX, y1, unitScale, color);
 			}
-		}
+		});
 	}
 
 	@Override
@@ -24,7 +24,6 @@ import com.badlogic.gdx.math.Vector3;
 import me.thosea.celestialgdx.image.TextureRegion;
 import me.thosea.celestialgdx.maps.layers.ImageLayer;
 import me.thosea.celestialgdx.maps.layers.TileLayer;
-import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
 
 import static com.badlogic.gdx.graphics.g2d.Batch.*;
 
@@ -72,15 +71,15 @@ public class IsometricTileMapRenderer extends BatchTileMapRenderer {
 		final Color batchColor = batch.getColor();
 		final float color = getTileLayerColor(layer, batchColor);
 
-		float tileWidth = layer.getTileWidth() * unitScale;
-		float tileHeight = layer.getTileHeight() * unitScale;
+		final float tileWidth = layer.getTileWidth() * unitScale;
+		final float tileHeight = layer.getTileHeight() * unitScale;
 
 		final float layerOffsetX = layer.getOffsetX() * unitScale - viewBounds.x * (layer.getParallaxX() - 1);
 		// offset in tiled is y down, so we flip it
 		final float layerOffsetY = -layer.getOffsetY() * unitScale - viewBounds.y * (layer.getParallaxY() - 1);
 
-		float halfTileWidth = tileWidth * 0.5f;
-		float halfTileHeight = tileHeight * 0.5f;
+		final float halfTileWidth = tileWidth * 0.5f;
+		final float halfTileHeight = tileHeight * 0.5f;
 
 		// setting up the screen points
 		// COL1
@@ -93,76 +92,22 @@ public class IsometricTileMapRenderer extends BatchTileMapRenderer {
 		bottomRight.set(viewBounds.x + viewBounds.width - layerOffsetX, viewBounds.y + viewBounds.height - layerOffsetY);
 
 		// transforming screen coordinates to iso coordinates
-		int row1 = (int) (translateScreenToIso(topLeft).y / tileWidth) - 2;
-		int row2 = (int) (translateScreenToIso(bottomRight).y / tileWidth) + 2;
+		final int row1 = (int) (translateScreenToIso(topLeft).y / tileWidth) - 2;
+		final int row2 = (int) (translateScreenToIso(bottomRight).y / tileWidth) + 2;
 
-		int col1 = (int) (translateScreenToIso(bottomLeft).x / tileWidth) - 2;
-		int col2 = (int) (translateScreenToIso(topRight).x / tileWidth) + 2;
+		final int col1 = (int) (translateScreenToIso(bottomLeft).x / tileWidth) - 2;
+		final int col2 = (int) (translateScreenToIso(topRight).x / tileWidth) + 2;
 
-		for(int row = row2; row >= row1; row--) {
+		// celestialgdx - rows are generated by renderTileRows, which may split them across threads
+		final float cellOffsetX = layerOffsetX * unitScale + layerOffsetX;
+		final float cellOffsetY = layerOffsetY * unitScale + layerOffsetY;
+		renderTileRows(row2, row1, time, (row, out) -> {
 			for(int col = col1; col <= col2; col++) {
 				float x = (col * halfTileWidth) + (row * halfTileWidth);
 				float y = (row * halfTileHeight) - (col * halfTileHeight);
-
-				TileLayer.Cell cell = layer.getCell(col, row);
-				if(cell == null) continue;
-				TiledMapTile tile = cell.tile();
-
-				TextureRegion region = tile.texture(time);
-
-				float x1 = x + layerOffsetX * unitScale + layerOffsetX;
-				float y1 = y + layerOffsetY * unitScale + layerOffsetY;
-				float x2 = x1 + region.width * unitScale;
-				float y2 = y1 + region.height * unitScale;
-
-				float u1 = region.u;
-				float v1 = region.v2;
-				float u2 = region.u2;
-				float v2 = region.v;
-
-				vertices[X1] = x1;
-				vertices[Y1] = y1;
-				vertices[C1] = color;
-				vertices[U1] = u1;
-				vertices[V1] = v1;
-
-				vertices[X2] = x1;
-				vertices[Y2] = y2;
-				vertices[C2] = color;
-				vertices[U2] = u1;
-				vertices[V2] = v2;
-
-				vertices[X3] = x2;
-				vertices[Y3] = y2;
-				vertices[C3] = color;
-				vertices[U3] = u2;
-				vertices[V3] = v2;
-
-				vertices[X4] = x2;
-				vertices[Y4] = y1;
-				vertices[C4] = color;
-				vertices[U4] = u2;
-				vertices[V4] = v1;
-
-				if(cell.isFlippedHorizontally()) {
-					float temp = vertices[U1];
-					vertices[U1] = vertices[U3];
-					vertices[U3] = temp;
-					temp = vertices[U2];
-					vertices[U2] = vertices[U4];
-					vertices[U4] = temp;
-				}
-				if(cell.isFlippedVertically()) {
-					float temp = vertices[V1];
-					vertices[V1] = vertices[V3];
-					vertices[V3] = temp;
-					temp = vertices[V2];
-					vertices[V2] = vertices[V4];
-					vertices[V4] = temp;
-				}
-				batch.draw(region.texture, vertices, 0, NUM_VERTICES);
+				out.add(layer.getCell(col, row), x + cellOffsetX, y + cellOffsetY, unitScale, color);
 			}
-		}
+		});
 	}
 
 	@Override
@@ -18,11 +18,8 @@ package com.badlogic.gdx.maps.renderers;
 
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
-import me.thosea.celestialgdx.image.TextureRegion;
+import me.thosea.celestialgdx.maps.layers.MapLayer;
 import me.thosea.celestialgdx.maps.layers.TileLayer;
-import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
-
-import static com.badlogic.gdx.graphics.g2d.Batch.*;
 
 public class OrthogonalTileMapRenderer extends BatchTileMapRenderer {
 	public OrthogonalTileMapRenderer(Batch batch) {
@@ -32,6 +29,22 @@ public class OrthogonalTileMapRenderer extends BatchTileMapRenderer {
 		super(unitScale, batch);
 	}
 
+	/**
+	 * CelestialGDX - skips layers whose {@link MapLayer#getBounds() bounds} are outside the view.
+	 * Layers without bounds, such as object layers that were never measured, are drawn.
+	 */
+	@Override
+	protected boolean isInView(MapLayer layer) {
+		MapLayer.Bounds bounds = layer.getBounds();
+		if(bounds == null) return true;
+		return bounds.overlaps(
+				unitScale,
+				-viewBounds.x * (layer.getParallaxX() - 1),
+				-viewBounds.y * (layer.getParallaxY() - 1),
+				viewBounds.x, viewBounds.y, viewBounds.width, viewBounds.height
+		);
+	}
+
 	@Override
 	public void renderTileLayer(TileLayer layer, long time) {
 		final Color batchColor = batch.getColor();
@@ -55,77 +68,15 @@ public class OrthogonalTileMapRenderer extends BatchTileMapRenderer {
 		final int row2 = Math.min(layerHeight,
 				(int) ((viewBounds.y + viewBounds.height + layerTileHeight - layerOffsetY) / layerTileHeight));
 
-		float y = row2 * layerTileHeight + layerOffsetY;
-		float xStart = col1 * layerTileWidth + layerOffsetX;
-		final float[] vertices = this.vertices;
-
-		for(int row = row2; row >= row1; row--) {
-			float x = xStart;
+		// celestialgdx - rows are generated by renderTileRows, which may split them across threads
+		// the layer offset is added again to every cell
+		final float cellOffsetX = layer.getOffsetX() * unitScale + layerOffsetX;
+		final float cellOffsetY = layer.getOffsetY() * unitScale + layerOffsetY;
+		renderTileRows(row2, row1, time, (row, out) -> {
+			final float y = row * layerTileHeight + cellOffsetY;
 			for(int col = col1; col < col2; col++) {
-				TileLayer.Cell cell = layer.getCell(col, row);
-				if(cell == null) {
-					x += layerTileWidth;
-					continue;
-				}
-				TiledMapTile tile = cell.tile();
-
-				TextureRegion region = tile.texture(time);
-
-				float x1 = x + layer.getOffsetX() * unitScale;
-				float y1 = y + layer.getOffsetY() * unitScale;
-				float x2 = x1 + region.width * unitScale;
-				float y2 = y1 + region.height * unitScale;
-
-				float u1 = region.u;
-				float v1 = region.v2;
-				float u2 = region.u2;
-				float v2 = region.v;
-
-				vertices[X1] = x1;
-				vertices[Y1] = y1;
-				vertices[C1] = color;
-				vertices[U1] = u1;
-				vertices[V1] = v1;
-
-				vertices[X2] = x1;
-				vertices[Y2] = y2;
-				vertices[C2] = color;
-				vertices[U2] = u1;
-				vertices[V2] = v2;
-
-				vertices[X3] = x2;
-				vertices[Y3] = y2;
-				vertices[C3] = color;
-				vertices[U3] = u2;
-				vertices[V3] = v2;
-
-				vertices[X4] = x2;
-				vertices[Y4] = y1;
-				vertices[C4] = color;
-				vertices[U4] = u2;
-				vertices[V4] = v1;
-
-				if(cell.isFlippedHorizontally()) {
-					float temp = vertices[U1];
-					vertices[U1] = vertices[U3];
-					vertices[U3] = temp;
-					temp = vertices[U2];
-					vertices[U2] = vertices[U4];
-					vertices[U4] = temp;
-				}
-				if(cell.isFlippedVertically()) {
-					float temp = vertices[V1];
-					vertices[V1] = vertices[V3];
-					vertices[V3] = temp;
-					temp = vertices[V2];
-					vertices[V2] = vertices[V4];
-					vertices[V4] = temp;
-				}
-
-				batch.draw(region.texture, vertices, 0, 20);
-				x += layerTileWidth;
+				out.add(layer.getCell(col, row), col * layerTileWidth + cellOffsetX, y, unitScale, color);
 			}
-			y -= layerTileHeight;
-		}
+		});
 	}
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.badlogic.gdx.maps.renderers;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import me.thosea.celestialgdx.graphics.Texture;
+import me.thosea.celestialgdx.image.TextureRegion;
+import me.thosea.celestialgdx.maps.layers.TileLayer;
+import me.thosea.celestialgdx.maps.tiles.AnimatedTileCache;
+import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+
+import java.util.Arrays;
+
+import static com.badlogic.gdx.graphics.g2d.Batch.*;
+
+/**
+ * CelestialGDX -
+ * The vertices of tiles being drawn, in draw order with the texture of each tile.
+ * {@link BatchTileMapRenderer} keeps one per thread generating them, which is reused every frame,
+ * so after growing to fit the visible tiles adding them doesn't allocate.
+ * <p>
+ * Tiles next to each other with the same texture are drawn with a single {@link Batch#draw(Texture, float[], int, int)}.
+ * </p>
+ * @author thosea
+ */
+public final class TileVertices {
+	static private final int QUAD = BatchTileMapRenderer.NUM_VERTICES;
+
+	private final AnimatedTileCache animations;
+	private float[] vertices = new float[QUAD * 256];
+	private Texture[] textures = new Texture[256];
+	private int size;
+	private long time;
+
+	TileVertices(AnimatedTileCache animations) {
+		this.animations = animations;
+	}
+
+	/**
+	 * Adds the vertices of a cell, does nothing if it's null.
+	 * @param x the left of the tile
+	 * @param y the bottom of the tile
+	 * @param scale the unit scale, which the size of the tile's region is multiplied by
+	 * @param color the packed color of the tile
+	 */
+	public void add(TileLayer.Cell cell, float x, float y, float scale, float color) {
+		if(cell == null) return;
+		TiledMapTile tile = cell.tile();
+		if(tile == null) return;
+		TextureRegion region = animations.get(tile, time);
+
+		if(size == textures.length) {
+			this.textures = Arrays.copyOf(textures, size << 1);
+			this.vertices = Arrays.copyOf(vertices, (size << 1) * QUAD);
+		}
+		final float[] vertices = this.vertices;
+		final int i = size * QUAD;
+		textures[size++] = region.texture;
+
+		float x2 = x + region.width * scale;
+		float y2 = y + region.height * scale;
+
+		float u1 = region.u;
+		float v1 = region.v2;
+		float u2 = region.u2;
+		float v2 = region.v;
+		if(cell.isFlippedHorizontally()) {
+			float temp = u1;
+			u1 = u2;
+			u2 = temp;
+		}
+		if(cell.isFlippedVertically()) {
+			float temp = v1;
+			v1 = v2;
+			v2 = temp;
+		}
+
+		vertices[i + X1] = x;
+		vertices[i + Y1] = y;
+		vertices[i + C1] = color;
+		vertices[i + U1] = u1;
+		vertices[i + V1] = v1;
+
+		vertices[i + X2] = x;
+		vertices[i + Y2] = y2;
+		vertices[i + C2] = color;
+		vertices[i + U2] = u1;
+		vertices[i + V2] = v2;
+
+		vertices[i + X3] = x2;
+		vertices[i + Y3] = y2;
+		vertices[i + C3] = color;
+		vertices[i + U3] = u2;
+		vertices[i + V3] = v2;
+
+		vertices[i + X4] = x2;
+		vertices[i + Y4] = y;
+		vertices[i + C4] = color;
+		vertices[i + U4] = u2;
+		vertices[i + V4] = v1;
+	}
+
+	/** @return the amount of tiles added */
+	public int size() {
+		return size;
+	}
+
+	/** Removes the tiles, animated tiles added after use the frame at the time */
+	void reset(long time) {
+		this.size = 0;
+		this.time = time;
+	}
+
+	/** Draws the tiles in the order they were added, then removes them */
+	void draw(Batch batch) {
+		final Texture[] textures = this.textures;
+		int start = 0;
+		for(int i = 1; i <= size; i++) {
+			if(i == size || textures[i] != textures[start]) {
+				batch.draw(textures[start], vertices, start * QUAD, (i - start) * QUAD);
+				start = i;
+			}
+		}
+		// don't keep textures alive after they're disposed
+		Arrays.fill(textures, 0, size, null);
+		this.size = 0;
+	}
+}
@@ -0,0 +1,47 @@
+package com.badlogic.gdx.utils;
+
+/**
+ * CelestialGDX -
+ * Markers of the binary JSON format written by {@link BinaryJsonWriter} and read by {@link BinaryJsonReader}.
+ * <p>
+ * A document is the header {@code CGBJ} followed by a version byte and a single value.
+ * Each value starts with a marker byte:
+ * </p>
+ * <ul>
+ * <li>{@code Z} null, {@code T} true, {@code F} false</li>
+ * <li>{@code i}, {@code I}, {@code l}, {@code L} signed 8, 16, 32 and 64-bit integers</li>
+ * <li>{@code d}, {@code D} 32 and 64-bit floats</li>
+ * <li>{@code S} a string, as a varint byte length followed by UTF-8</li>
+ * <li>{@code [} values until {@code ]}</li>
+ * <li>{@code {} key and value pairs until {@code }}</li>
+ * </ul>
+ * <p>
+ * A key is either {@code k} followed by a string (without its marker), which also adds it to the key table,
+ * or {@code K} followed by the varint index of a key already in the table, so repeated field names cost 2 bytes or less.
+ * Multibyte numbers are big-endian. Varints are unsigned LEB128.
+ * </p>
+ * @author thosea
+ */
+final class BinaryJson {
+	static final byte[] MAGIC = {'C', 'G', 'B', 'J'};
+	static final byte VERSION = 1;
+
+	static final byte NULL = 'Z';
+	static final byte TRUE = 'T';
+	static final byte FALSE = 'F';
+	static final byte INT8 = 'i';
+	static final byte INT16 = 'I';
+	static final byte INT32 = 'l';
+	static final byte INT64 = 'L';
+	static final byte FLOAT32 = 'd';
+	static final byte FLOAT64 = 'D';
+	static final byte STRING = 'S';
+	static final byte ARRAY_START = '[';
+	static final byte ARRAY_END = ']';
+	static final byte OBJECT_START = '{';
+	static final byte OBJECT_END = '}';
+	static final byte NEW_KEY = 'k';
+	static final byte KEY_REF = 'K';
+
+	private BinaryJson() {}
+}
@@ -0,0 +1,173 @@
+package com.badlogic.gdx.utils;
+
+import me.thosea.celestialgdx.files.FileHandle;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.badlogic.gdx.utils.BinaryJson.*;
+
+/**
+ * CelestialGDX -
+ * A {@link JsonReader} for the binary format written by {@link BinaryJsonWriter}, see {@link BinaryJson}.
+ * Byte sources ({@link #parse(InputStream)}, {@link #parse(FileHandle)} and {@link #parse(byte[], int, int)})
+ * are read as binary, character sources are still parsed as text JSON.
+ * <p>
+ * Values are reported through the same callbacks as text JSON, so the result is the same {@link JsonValue} tree
+ * and subclasses overriding the callbacks for event driven parsing work unchanged.
+ * Numbers are read in their binary form, their string value is the text {@link Long#toString(long)},
+ * {@link Float#toString(float)} or {@link Double#toString(double)} gives.
+ * </p>
+ * @author thosea
+ */
+public class BinaryJsonReader extends JsonReader {
+	private final Array<String> keys = new Array<>();
+
+	@Override
+	public JsonValue parse(InputStream input) {
+		byte[] data;
+		try(InputStream in = input) {
+			data = in.readAllBytes();
+		} catch(IOException ex) {
+			throw new SerializationException("Error reading stream.", ex);
+		}
+		return parse(data, 0, data.length);
+	}
+
+	@Override
+	public JsonValue parse(FileHandle file) {
+		byte[] data;
+		try {
+			data = file.readBytes();
+		} catch(IOException e) {
+			throw new GdxIoException(e);
+		}
+		return parse(data, 0, data.length);
+	}
+
+	public JsonValue parse(byte[] data) {
+		return parse(data, 0, data.length);
+	}
+
+	public JsonValue parse(byte[] data, int offset, int length) {
+		ByteBuffer buffer = ByteBuffer.wrap(data, offset, length).order(ByteOrder.BIG_ENDIAN);
+		try {
+			return parse(buffer);
+		} catch(BufferUnderflowException ex) {
+			finishParse();
+			throw new SerializationException("Error parsing binary JSON, unexpected end of data.", ex);
+		} catch(RuntimeException ex) {
+			finishParse();
+			if(ex instanceof SerializationException serializationEx) throw serializationEx;
+			throw new SerializationException("Error parsing binary JSON at byte " + buffer.position() + ".", ex);
+		}
+	}
+
+	private JsonValue parse(ByteBuffer buffer) {
+		for(byte b : MAGIC) {
+			if(buffer.get() != b) throw new SerializationException("Not binary JSON, missing header.");
+		}
+		byte version = buffer.get();
+		if(version != VERSION) throw new SerializationException("Unsupported binary JSON version: " + version);
+
+		beginParse();
+		keys.clear();
+		// true for objects
+		boolean[] stack = new boolean[8];
+		int depth = 0;
+		do {
+			String name = null;
+			if(depth > 0 && stack[depth - 1]) {
+				byte marker = buffer.get();
+				if(marker == OBJECT_END) {
+					pop();
+					depth--;
+					if(isStopped()) break;
+					continue;
+				}
+				name = readKey(buffer, marker);
+			}
+
+			byte marker = buffer.get();
+			switch(marker) {
+				case ARRAY_END -> {
+					if(depth == 0 || stack[depth - 1]) throw new SerializationException("Unexpected end of array.");
+					pop();
+					depth--;
+				}
+				case OBJECT_START, ARRAY_START -> {
+					boolean object = marker == OBJECT_START;
+					if(object) startObject(name);
+					else startArray(name);
+					if(depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+					stack[depth++] = object;
+				}
+				case NULL -> string(name, null);
+				case TRUE -> bool(name, true);
+				case FALSE -> bool(name, false);
+				case INT8 -> integer(name, buffer.get());
+				case INT16 -> integer(name, buffer.getShort());
+				case INT32 -> integer(name, buffer.getInt());
+				case INT64 -> integer(name, buffer.getLong());
+				case FLOAT32 -> {
+					// the text of the float, the widened double would print digits that were never written
+					float value = buffer.getFloat();
+					number(name, (double) value, Float.toString(value));
+				}
+				case FLOAT64 -> {
+					double value = buffer.getDouble();
+					number(name, value, Double.toString(value));
+				}
+				case STRING -> string(name, readString(buffer));
+				default -> throw new SerializationException("Unknown binary JSON marker: " + (char) marker);
+			}
+			if(isStopped()) break;
+		} while(depth > 0);
+
+		if(!isStopped() && buffer.hasRemaining()) {
+			throw new SerializationException("Error parsing binary JSON, " + buffer.remaining() + " bytes after the root value.");
+		}
+		return finishParse();
+	}
+
+	private void integer(@Nullable String name, long value) {
+		number(name, value, Long.toString(value));
+	}
+
+	private String readKey(ByteBuffer buffer, byte marker) {
+		if(marker == NEW_KEY) {
+			String key = readString(buffer);
+			keys.add(key);
+			return key;
+		} else if(marker == KEY_REF) {
+			int index = readVarInt(buffer);
+			if(index >= keys.size) throw new SerializationException("Unknown key index: " + index);
+			return keys.get(index);
+		}
+		throw new SerializationException("Expected a key or end of object, got: " + (char) marker);
+	}
+
+	static private String readString(ByteBuffer buffer) {
+		int length = readVarInt(buffer);
+		if(length > buffer.remaining()) throw new BufferUnderflowException();
+		String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return string;
+	}
+
+	static private int readVarInt(ByteBuffer buffer) {
+		int value = 0;
+		for(int shift = 0; shift < 35; shift += 7) {
+			byte b = buffer.get();
+			value |= (b & 0x7F) << shift;
+			if(b >= 0) return value;
+		}
+		throw new SerializationException("Malformed varint.");
+	}
+}
@@ -0,0 +1,234 @@
+package com.badlogic.gdx.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.badlogic.gdx.utils.BinaryJson.*;
+
+/**
+ * CelestialGDX -
+ * A {@link JsonWriter} that writes the binary format described in {@link BinaryJson} instead of text.
+ * Numbers are written in the smallest type that holds them exactly, strings are length-prefixed and
+ * each object key is only written in full the first time.
+ * <p>
+ * Because it is a {@link JsonWriter}, it can be passed to {@link Json#setWriter(Writer)}, so {@link Json.Serializer}s
+ * and {@link Json.Serializable}s write binary without changes. See {@link Json#toBinary(Object, OutputStream)}.
+ * The output type and long quoting settings have no effect.
+ * </p>
+ * @author thosea
+ */
+public class BinaryJsonWriter extends JsonWriter {
+	private final DataOutputStream out;
+	private final ObjectIntMap<String> keys = new ObjectIntMap<>();
+
+	// true for objects
+	private boolean[] stack = new boolean[8];
+	private int depth;
+	private boolean named;
+	private boolean headerWritten, rootWritten;
+
+	public BinaryJsonWriter(OutputStream out) {
+		// the character writer is never used, everything goes to the stream
+		super(Writer.nullWriter());
+		this.out = out instanceof DataOutputStream data ? data : new DataOutputStream(out);
+	}
+
+	@Override
+	public BinaryJsonWriter name(String name) throws IOException {
+		if(depth == 0 || !stack[depth - 1]) throw new IllegalStateException("Current item must be an object.");
+		if(named) throw new IllegalStateException("Expected a value since a name was set.");
+		int index = keys.get(name, -1);
+		if(index == -1) {
+			keys.put(name, keys.size);
+			out.writeByte(NEW_KEY);
+			writeString(name);
+		} else {
+			out.writeByte(KEY_REF);
+			writeVarInt(index);
+		}
+		named = true;
+		return this;
+	}
+
+	@Override
+	public BinaryJsonWriter object() throws IOException {
+		beforeValue();
+		out.writeByte(OBJECT_START);
+		push(true);
+		return this;
+	}
+
+	@Override
+	public BinaryJsonWriter array() throws IOException {
+		beforeValue();
+		out.writeByte(ARRAY_START);
+		push(false);
+		return this;
+	}
+
+	@Override
+	public BinaryJsonWriter value(@Nullable Object value) throws IOException {
+		if(value == null) {
+			beforeValue();
+			out.writeByte(NULL);
+		} else if(value instanceof Boolean bool) {
+			value(bool.booleanValue());
+		} else if(value instanceof Integer || value instanceof Short || value instanceof Byte || value instanceof Long) {
+			value(((Number) value).longValue());
+		} else if(value instanceof Float number) {
+			value(number.floatValue());
+		} else if(value instanceof Number number) {
+			value(number.doubleValue());
+		} else {
+			beforeValue();
+			out.writeByte(STRING);
+			writeString(value.toString());
+		}
+		return this;
+	}
+
+	@Override
+	public BinaryJsonWriter value(int value) throws IOException {
+		return value((long) value);
+	}
+
+	@Override
+	public BinaryJsonWriter value(long value) throws IOException {
+		beforeValue();
+		if(value == (byte) value) {
+			out.writeByte(INT8);
+			out.writeByte((int) value);
+		} else if(value == (short) value) {
+			out.writeByte(INT16);
+			out.writeShort((int) value);
+		} else if(value == (int) value) {
+			out.writeByte(INT32);
+			out.writeInt((int) value);
+		} else {
+			out.writeByte(INT64);
+			out.writeLong(value);
+		}
+		return this;
+	}
+
+	@Override
+	public BinaryJsonWriter value(float value) throws IOException {
+		long longValue = (long) value;
+		if((double) value == longValue) return value(longValue);
+		beforeValue();
+		out.writeByte(FLOAT32);
+		out.writeFloat(value);
+		return this;
+	}
+
+	@Override
+	public BinaryJsonWriter value(double value) throws IOException {
+		long longValue = (long) value;
+		if(value == longValue) return value(longValue);
+		if((float) value == value) return value((float) value);
+		beforeValue();
+		out.writeByte(FLOAT64);
+		out.writeDouble(value);
+		return this;
+	}
+
+	@Override
+	public BinaryJsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		out.writeByte(value ? TRUE : FALSE);
+		return this;
+	}
+
+	/** Parses the text JSON and writes it as binary */
+	@Override
+	public BinaryJsonWriter json(String json) throws IOException {
+		return json(new JsonReader().parse(json));
+	}
+
+	/** Writes the value and its children */
+	public BinaryJsonWriter json(JsonValue value) throws IOException {
+		switch(value.type()) {
+			case object, array -> {
+				boolean object = value.isObject();
+				if(object) object();
+				else array();
+				for(JsonValue child = value.child; child != null; child = child.next) {
+					if(object) name(child.name);
+					json(child);
+				}
+				pop();
+			}
+			case stringValue -> value(value.asString());
+			case doubleValue -> value(value.asDouble());
+			case longValue -> value(value.asLong());
+			case booleanValue -> value(value.asBoolean());
+			case nullValue -> value((Object) null);
+		}
+		return this;
+	}
+
+	@Override
+	public BinaryJsonWriter pop() throws IOException {
+		if(named) throw new IllegalStateException("Expected an object, array, or value since a name was set.");
+		if(depth == 0) throw new IllegalStateException("No object or array to end.");
+		out.writeByte(stack[--depth] ? OBJECT_END : ARRAY_END);
+		return this;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		throw new UnsupportedOperationException("Characters can't be written to binary JSON.");
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		while(depth > 0)
+			pop();
+		out.close();
+	}
+
+	private void beforeValue() throws IOException {
+		if(!headerWritten) {
+			out.write(MAGIC);
+			out.writeByte(VERSION);
+			headerWritten = true;
+		}
+		if(depth == 0) {
+			if(rootWritten) throw new IllegalStateException("Only one root value can be written.");
+			rootWritten = true;
+		} else if(stack[depth - 1]) {
+			if(!named) throw new IllegalStateException("Name must be set.");
+			named = false;
+		}
+	}
+
+	private void push(boolean object) {
+		if(depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+		stack[depth++] = object;
+	}
+
+	private void writeString(String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeVarInt(int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+}
@@ -0,0 +1,180 @@
+package com.badlogic.gdx.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+
+/**
+ * CelestialGDX -
+ * A thread safe {@link IntMap}. Keys are spread over segments, each an {@link IntMap} with its own lock,
+ * so threads working on different keys rarely wait on each other and readers of a segment don't block each other.
+ * The locks don't pin virtual threads like {@code synchronized} does.
+ * <p>
+ * Iterating goes over a {@link #snapshot()}, so it never sees a half-updated segment and can't throw
+ * {@link java.util.ConcurrentModificationException}, but entries changed while the snapshot is taken may or may not be in it.
+ * {@link #size()} is exact only when no other thread is writing.
+ * </p>
+ * @author thosea
+ */
+public class ConcurrentIntMap<V> implements Iterable<IntMap.Entry<V>> {
+	private final IntMap<V>[] segments;
+	private final StampedLock[] locks;
+	private final int segmentMask;
+
+	/** Creates a map with 16 segments. */
+	public ConcurrentIntMap() {
+		this(16, 51);
+	}
+
+	/**
+	 * @param concurrency the amount of threads expected to write at once, rounded up to a power of two segments
+	 * @param initialCapacity the amount of entries that fit before any segment grows
+	 */
+	public ConcurrentIntMap(int concurrency, int initialCapacity) {
+		if(concurrency <= 0) throw new IllegalArgumentException("concurrency must be > 0: " + concurrency);
+		int count = Math.min(1 << 16, Integer.highestOneBit(concurrency - 1) << 1);
+		if(count == 0) count = 1;
+		this.segments = new IntMap[count];
+		this.locks = new StampedLock[count];
+		this.segmentMask = count - 1;
+		int segmentCapacity = Math.max(1, initialCapacity / count);
+		for(int i = 0; i < count; i++) {
+			segments[i] = new IntMap<>(segmentCapacity);
+			locks[i] = new StampedLock();
+		}
+	}
+
+	/** @return the previous value, or null if the key wasn't in the map */
+	public @Nullable V put(int key, @Nullable V value) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.writeLock();
+		try {
+			return segments[index].put(key, value);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/** @return the current value of the key, or null if the value was put */
+	public @Nullable V putIfAbsent(int key, V value) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.writeLock();
+		try {
+			IntMap<V> segment = segments[index];
+			V current = segment.get(key);
+			if(current == null) segment.put(key, value);
+			return current;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * @return the value of the key, or the value made by the function which is put if the key still has none.
+	 * The function runs without the lock held, so two threads may both call it but only one value is kept.
+	 */
+	public V computeIfAbsent(int key, IntFunction<? extends V> function) {
+		V value = get(key);
+		if(value != null) return value;
+		V created = function.apply(key);
+		V current = putIfAbsent(key, created);
+		return current != null ? current : created;
+	}
+
+	public @Nullable V get(int key) {
+		return get(key, null);
+	}
+
+	public @Nullable V get(int key, @Nullable V defaultValue) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.readLock();
+		try {
+			return segments[index].get(key, defaultValue);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/** @return the removed value, or null if the key wasn't in the map */
+	public @Nullable V remove(int key) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.writeLock();
+		try {
+			return segments[index].remove(key);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public boolean containsKey(int key) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.readLock();
+		try {
+			return segments[index].containsKey(key);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for(int i = 0; i < segments.length; i++) {
+			long stamp = locks[i].readLock();
+			size += segments[i].size;
+			locks[i].unlockRead(stamp);
+		}
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public void clear() {
+		for(int i = 0; i < segments.length; i++) {
+			long stamp = locks[i].writeLock();
+			try {
+				segments[i].clear();
+			} finally {
+				locks[i].unlockWrite(stamp);
+			}
+		}
+	}
+
+	/** @return a copy of the entries, one segment at a time */
+	public IntMap<V> snapshot() {
+		IntMap<V> snapshot = new IntMap<>(size());
+		for(int i = 0; i < segments.length; i++) {
+			long stamp = locks[i].readLock();
+			try {
+				snapshot.putAll(segments[i]);
+			} finally {
+				locks[i].unlockRead(stamp);
+			}
+		}
+		return snapshot;
+	}
+
+	/** Iterates a {@link #snapshot()}. */
+	@Override
+	public Iterator<IntMap.Entry<V>> iterator() {
+		return new IntMap.Entries<>(snapshot());
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+
+	private int segmentOf(int key) {
+		// a different mix than IntMap's, so the keys of a segment still spread over its table
+		return (int) ((key * 0xC2B2AE3D27D4EB4FL) >>> 40) & segmentMask;
+	}
+}
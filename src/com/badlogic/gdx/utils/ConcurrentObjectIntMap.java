@@ -0,0 +1,178 @@
+package com.badlogic.gdx.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * CelestialGDX -
+ * A thread safe {@link ObjectIntMap}, split into locked segments like {@link ConcurrentIntMap}.
+ * {@link #getAndIncrement(Object, int, int)} is atomic, so it works as a shared counter or id registry.
+ * <p>
+ * Iterating goes over a {@link #snapshot()}. {@link #size()} is exact only when no other thread is writing.
+ * </p>
+ * @author thosea
+ */
+public class ConcurrentObjectIntMap<K> implements Iterable<ObjectIntMap.Entry<K>> {
+	private final ObjectIntMap<K>[] segments;
+	private final StampedLock[] locks;
+	private final int segmentMask;
+
+	/** Creates a map with 16 segments. */
+	public ConcurrentObjectIntMap() {
+		this(16, 51);
+	}
+
+	/**
+	 * @param concurrency the amount of threads expected to write at once, rounded up to a power of two segments
+	 * @param initialCapacity the amount of entries that fit before any segment grows
+	 */
+	public ConcurrentObjectIntMap(int concurrency, int initialCapacity) {
+		if(concurrency <= 0) throw new IllegalArgumentException("concurrency must be > 0: " + concurrency);
+		int count = Math.min(1 << 16, Integer.highestOneBit(concurrency - 1) << 1);
+		if(count == 0) count = 1;
+		this.segments = new ObjectIntMap[count];
+		this.locks = new StampedLock[count];
+		this.segmentMask = count - 1;
+		int segmentCapacity = Math.max(1, initialCapacity / count);
+		for(int i = 0; i < count; i++) {
+			segments[i] = new ObjectIntMap<>(segmentCapacity);
+			locks[i] = new StampedLock();
+		}
+	}
+
+	public void put(K key, int value) {
+		put(key, value, 0);
+	}
+
+	/** @return the previous value, or the default value if the key wasn't in the map */
+	public int put(K key, int value, int defaultValue) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.writeLock();
+		try {
+			return segments[index].put(key, value, defaultValue);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/** @return the current value of the key, or the value if it was put */
+	public int putIfAbsent(K key, int value) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.writeLock();
+		try {
+			ObjectIntMap<K> segment = segments[index];
+			if(segment.containsKey(key)) return segment.get(key, value);
+			segment.put(key, value);
+			return value;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public int get(K key, int defaultValue) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.readLock();
+		try {
+			return segments[index].get(key, defaultValue);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * Atomically adds the increment to the value of the key, or puts the default value plus the increment.
+	 * @return the value before the increment
+	 */
+	public int getAndIncrement(K key, int defaultValue, int increment) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.writeLock();
+		try {
+			return segments[index].getAndIncrement(key, defaultValue, increment);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/** @return the removed value, or the default value if the key wasn't in the map */
+	public int remove(K key, int defaultValue) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.writeLock();
+		try {
+			return segments[index].remove(key, defaultValue);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	public boolean containsKey(K key) {
+		int index = segmentOf(key);
+		StampedLock lock = locks[index];
+		long stamp = lock.readLock();
+		try {
+			return segments[index].containsKey(key);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for(int i = 0; i < segments.length; i++) {
+			long stamp = locks[i].readLock();
+			size += segments[i].size;
+			locks[i].unlockRead(stamp);
+		}
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public void clear() {
+		for(int i = 0; i < segments.length; i++) {
+			long stamp = locks[i].writeLock();
+			try {
+				segments[i].clear();
+			} finally {
+				locks[i].unlockWrite(stamp);
+			}
+		}
+	}
+
+	/** @return a copy of the entries, one segment at a time */
+	public ObjectIntMap<K> snapshot() {
+		ObjectIntMap<K> snapshot = new ObjectIntMap<>(size());
+		for(int i = 0; i < segments.length; i++) {
+			long stamp = locks[i].readLock();
+			try {
+				snapshot.putAll(segments[i]);
+			} finally {
+				locks[i].unlockRead(stamp);
+			}
+		}
+		return snapshot;
+	}
+
+	/** Iterates a {@link #snapshot()}. */
+	@Override
+	public Iterator<ObjectIntMap.Entry<K>> iterator() {
+		return new ObjectIntMap.Entries<>(snapshot());
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+
+	private int segmentOf(K key) {
+		if(key == null) throw new IllegalArgumentException("key cannot be null.");
+		// a different mix than ObjectIntMap's, so the keys of a segment still spread over its table
+		return (int) ((key.hashCode() * 0xC2B2AE3D27D4EB4FL) >>> 40) & segmentMask;
+	}
+}
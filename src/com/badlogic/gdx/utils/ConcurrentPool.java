@@ -0,0 +1,341 @@
+package com.badlogic.gdx.utils;
+
+import com.badlogic.gdx.utils.DefaultPool.PoolSupplier;
+import com.badlogic.gdx.utils.Pool.Poolable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CelestialGDX -
+ * A thread safe {@link Pool}. Each platform thread keeps a small cache of free objects,
+ * and caches trade objects with a shared depot in batches, so a thread only locks once per batch.
+ * The depot is split into stripes with their own locks, so threads returning and taking batches rarely wait on each other.
+ * Virtual threads come and go too often to keep a cache, so they use the depot stripes directly.
+ * After the caches and depot have warmed up, {@link #obtain()} and {@link #free(Object)} don't allocate.
+ * <p>
+ * Objects freed by a thread stay in its cache until it frees more than fits, call {@link #flush()} before a worker thread ends
+ * to give them to the other threads.
+ * </p>
+ * <p>
+ * With debug enabled, the pool remembers where each object still in use was obtained, see {@link #getLeaks()},
+ * and throws when an object is freed twice or wasn't obtained from it. This allocates on every obtain.
+ * </p>
+ * @author thosea
+ */
+public class ConcurrentPool<T> {
+	static private final int CACHE_SIZE = 32;
+	static private final int BATCH_SIZE = CACHE_SIZE / 2;
+
+	/** The maximum number of free objects in the depot. Thread caches hold up to 32 more each. */
+	public final int max;
+	public final boolean debug;
+
+	private final PoolSupplier<T> supplier;
+	private final Stripe[] stripes;
+	private final int stripeMask;
+	private final ThreadLocal<Cache> caches = ThreadLocal.withInitial(Cache::new);
+
+	private final LongAdder obtained = new LongAdder();
+	private final LongAdder created = new LongAdder();
+	private final LongAdder freed = new LongAdder();
+	private final LongAdder discarded = new LongAdder();
+	private final AtomicLong peakInUse = new AtomicLong();
+
+	// debug only, guarded by itself
+	private final IdentityHashMap<T, Throwable> inUse;
+
+	public ConcurrentPool(PoolSupplier<T> supplier) {
+		this(supplier, Integer.MAX_VALUE, false);
+	}
+
+	/**
+	 * @param max the maximum number of free objects kept in the depot
+	 * @param debug whether to track objects in use, see {@link #getLeaks()}
+	 */
+	public ConcurrentPool(PoolSupplier<T> supplier, int max, boolean debug) {
+		if(max < 0) throw new IllegalArgumentException("max must be >= 0: " + max);
+		this.supplier = supplier;
+		this.max = max;
+		this.debug = debug;
+		this.inUse = debug ? new IdentityHashMap<>() : null;
+
+		int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+		this.stripes = new Stripe[count];
+		this.stripeMask = count - 1;
+		int stripeMax = max == Integer.MAX_VALUE ? max : (max + count - 1) / count;
+		for(int i = 0; i < count; i++) {
+			stripes[i] = new Stripe(stripeMax);
+		}
+	}
+
+	/** Returns a free object, or a new one if there are none. */
+	public T obtain() {
+		T object;
+		if(Thread.currentThread().isVirtual()) {
+			object = obtainDirect();
+		} else {
+			Cache cache = caches.get();
+			if(cache.count == 0) refill(cache);
+			object = cache.count == 0 ? null : (T) cache.pop();
+		}
+		if(object == null) {
+			object = supplier.get();
+			created.increment();
+			updatePeak();
+		}
+		obtained.increment();
+		if(debug) {
+			synchronized(inUse) {
+				inUse.put(object, new Throwable("Obtained from the pool here"));
+			}
+		}
+		return object;
+	}
+
+	/**
+	 * Resets the object and makes it available to {@link #obtain()} again, or discards it if the depot is full.
+	 * Without debug, the pool doesn't check if the object was already freed, so it must not be freed twice.
+	 */
+	public void free(T object) {
+		if(object == null) throw new IllegalArgumentException("object cannot be null.");
+		if(debug) {
+			synchronized(inUse) {
+				if(inUse.remove(object) == null) {
+					throw new IllegalArgumentException("Object was already freed or wasn't obtained from this pool: " + object);
+				}
+			}
+		}
+		freed.increment();
+		reset(object);
+		if(Thread.currentThread().isVirtual()) {
+			freeDirect(object);
+			return;
+		}
+		Cache cache = caches.get();
+		if(cache.count == CACHE_SIZE) spill(cache, BATCH_SIZE);
+		cache.push(object);
+	}
+
+	/** Moves the free objects cached by the calling thread to the depot, so other threads can obtain them. */
+	public void flush() {
+		if(Thread.currentThread().isVirtual()) return;
+		Cache cache = caches.get();
+		spill(cache, cache.count);
+	}
+
+	/** Discards the free objects in the depot and the cache of the calling thread. Other threads keep their caches. */
+	public void clear() {
+		if(!Thread.currentThread().isVirtual()) {
+			Cache cache = caches.get();
+			while(cache.count > 0)
+				discardObject((T) cache.pop());
+		}
+		for(Stripe stripe : stripes) {
+			stripe.lock.lock();
+			try {
+				while(stripe.count > 0)
+					discardObject((T) stripe.pop());
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Called when an object is freed to clear its state for later reuse.
+	 * The default implementation calls {@link Poolable#reset()} if the object is {@link Poolable}.
+	 */
+	protected void reset(T object) {
+		if(object instanceof Poolable poolable) poolable.reset();
+	}
+
+	/** Called when a freed object doesn't fit in the depot, or when the pool is {@link #clear() cleared}. */
+	protected void discard(T object) {}
+
+	/** @return the amount of free objects in the depot, not counting the thread caches */
+	public int getFree() {
+		int free = 0;
+		for(Stripe stripe : stripes) {
+			free += stripe.count;
+		}
+		return free;
+	}
+
+	/** @return the amount of objects obtained and not freed yet */
+	public long getInUse() {
+		return obtained.sum() - freed.sum();
+	}
+
+	/** @return the highest {@link #getInUse()}, sampled whenever an object is created or a batch moves through the depot */
+	public long getPeakInUse() {
+		return peakInUse.get();
+	}
+
+	/** @return the amount of calls to {@link #obtain()} */
+	public long getObtained() {
+		return obtained.sum();
+	}
+
+	/** @return the amount of objects created because there were no free ones */
+	public long getCreated() {
+		return created.sum();
+	}
+
+	/** @return the amount of freed objects that didn't fit in the depot */
+	public long getDiscarded() {
+		return discarded.sum();
+	}
+
+	/** @return the fraction of {@link #obtain()} calls that reused an object, or 1 if there were none */
+	public float getHitRate() {
+		long obtained = this.obtained.sum();
+		return obtained == 0 ? 1 : 1 - (float) created.sum() / obtained;
+	}
+
+	/** Resets the counters. Objects in use are still counted by {@link #getInUse()}. */
+	public void resetStats() {
+		long inUse = getInUse();
+		obtained.reset();
+		created.reset();
+		freed.reset();
+		discarded.reset();
+		obtained.add(inUse);
+		peakInUse.set(inUse);
+	}
+
+	/**
+	 * @return where each object in use was obtained, when debug is enabled.
+	 * Objects that should have been freed by now, i.e. after a job finished, are leaks.
+	 * @throws IllegalStateException if debug is disabled
+	 */
+	public List<Throwable> getLeaks() {
+		if(!debug) throw new IllegalStateException("Leak tracking requires debug to be enabled.");
+		synchronized(inUse) {
+			return new ArrayList<>(inUse.values());
+		}
+	}
+
+	private void refill(Cache cache) {
+		int start = homeStripe();
+		for(int i = 0; i <= stripeMask; i++) {
+			Stripe stripe = stripes[(start + i) & stripeMask];
+			if(stripe.count == 0) continue;
+			// the home stripe is worth waiting for, the others are only checked if they're free
+			if(i == 0) stripe.lock.lock();
+			else if(!stripe.lock.tryLock()) continue;
+			try {
+				int amount = Math.min(BATCH_SIZE, stripe.count);
+				for(int j = 0; j < amount; j++) {
+					cache.push(stripe.pop());
+				}
+			} finally {
+				stripe.lock.unlock();
+			}
+			if(cache.count > 0) break;
+		}
+		updatePeak();
+	}
+
+	private void spill(Cache cache, int amount) {
+		Stripe stripe = stripes[homeStripe()];
+		stripe.lock.lock();
+		try {
+			for(int i = 0; i < amount; i++) {
+				Object object = cache.pop();
+				if(!stripe.push(object)) discardObject((T) object);
+			}
+		} finally {
+			stripe.lock.unlock();
+		}
+		updatePeak();
+	}
+
+	private T obtainDirect() {
+		Stripe stripe = stripes[homeStripe()];
+		stripe.lock.lock();
+		try {
+			return stripe.count == 0 ? null : (T) stripe.pop();
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	private void freeDirect(T object) {
+		Stripe stripe = stripes[homeStripe()];
+		boolean added;
+		stripe.lock.lock();
+		try {
+			added = stripe.push(object);
+		} finally {
+			stripe.lock.unlock();
+		}
+		if(!added) discardObject(object);
+	}
+
+	private void discardObject(T object) {
+		discarded.increment();
+		discard(object);
+	}
+
+	private void updatePeak() {
+		long inUse = getInUse();
+		long peak;
+		while(inUse > (peak = peakInUse.get()) && !peakInUse.compareAndSet(peak, inUse)) {}
+	}
+
+	private int homeStripe() {
+		long id = Thread.currentThread().threadId();
+		return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+	}
+
+	/** Free objects of a platform thread, only used by that thread */
+	static private final class Cache {
+		final Object[] items = new Object[CACHE_SIZE];
+		int count;
+
+		void push(Object object) {
+			items[count++] = object;
+		}
+
+		Object pop() {
+			Object object = items[--count];
+			items[count] = null;
+			return object;
+		}
+	}
+
+	static private final class Stripe {
+		final ReentrantLock lock = new ReentrantLock();
+		final int max;
+		Object[] items = new Object[CACHE_SIZE];
+		// written under the lock, read without it as a hint
+		volatile int count;
+
+		Stripe(int max) {
+			this.max = max;
+		}
+
+		boolean push(Object object) {
+			int count = this.count;
+			if(count == max) return false;
+			if(count == items.length) items = Arrays.copyOf(items, (int) Math.min(max, count * 2L));
+			items[count] = object;
+			this.count = count + 1;
+			return true;
+		}
+
+		Object pop() {
+			int count = this.count - 1;
+			Object object = items[count];
+			items[count] = null;
+			this.count = count;
+			return object;
+		}
+	}
+}
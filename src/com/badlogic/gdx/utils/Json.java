@@ -24,11 +24,16 @@ import me.thosea.celestialgdx.files.FileHandle;
 import me.thosea.celestialgdx.files.WriteableFileHandle;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
@@ -45,6 +50,11 @@ import java.util.Map;
 /**
  * Reads/writes Java objects to/from JSON, automatically. See the wiki for usage:
  * https://libgdx.com/wiki/utils/reading-and-writing-json
+ * <p>
+ * CelestialGDX - fields and no-arg constructors are compiled to {@link MethodHandle}s the first time a class is used,
+ * instead of going through {@link Field#get}/{@link Field#set} for every value.
+ * Primitive fields are read, written and compared to their prototype values without boxing.
+ * </p>
  * @author Nathan Sweet
  */
 public class Json {
@@ -52,21 +62,24 @@ public class Json {
 
 	private JsonWriter writer;
 	private JsonReader reader = new JsonReader();
-	private String typeName = "class";
+	@Nullable private BinaryJsonReader binaryReader;
+	String typeName = "class";
 	private boolean usePrototypes = true;
 	private OutputType outputType;
 	private boolean quoteLongValues;
-	private boolean ignoreUnknownFields;
-	private boolean ignoreDeprecated;
-	private boolean readDeprecated;
+	boolean ignoreUnknownFields;
+	boolean ignoreDeprecated;
+	boolean readDeprecated;
 	private boolean enumNames = true;
 	private boolean sortFields;
 	private Serializer<?> defaultSerializer;
 	private final ObjectMap<Class<?>, OrderedMap<String, FieldMetadata>> typeToFields = new ObjectMap();
+	private final ObjectMap<Class<?>, FieldMetadata[]> typeToFieldArray = new ObjectMap();
+	private final ObjectMap<Class<?>, MethodHandle> classToConstructor = new ObjectMap();
 	private final ObjectMap<String, Class<?>> tagToClass = new ObjectMap();
 	private final ObjectMap<Class<?>, String> classToTag = new ObjectMap();
-	private final ObjectMap<Class<?>, Serializer<?>> classToSerializer = new ObjectMap();
-	private final ObjectMap<Class<?>, Object[]> classToDefaultValues = new ObjectMap();
+	final ObjectMap<Class<?>, Serializer<?>> classToSerializer = new ObjectMap();
+	private final ObjectMap<Class<?>, Prototype> classToDefaultValues = new ObjectMap();
 	private final Object[] equals1 = {null}, equals2 = {null};
 
 	public Json() {
@@ -217,7 +230,7 @@ public class Json {
 		if(sortFields) fieldNames.sort();
 	}
 
-	private OrderedMap<String, FieldMetadata> getFields(Class<?> type) {
+	OrderedMap<String, FieldMetadata> getFields(Class<?> type) {
 		OrderedMap<String, FieldMetadata> fields = typeToFields.get(type);
 		if(fields != null) return fields;
 
@@ -245,13 +258,33 @@ public class Json {
 				}
 			}
 
-			nameToField.put(field.getName(), new FieldMetadata(field));
+			FieldMetadata metadata;
+			try {
+				metadata = new FieldMetadata(field);
+			} catch(IllegalAccessException ex) {
+				throw new SerializationException("Error accessing field: " + field.getName() + " (" + type.getName() + ")", ex);
+			}
+			nameToField.put(field.getName(), metadata);
 		}
 		sortFields(type, nameToField.keys);
 		typeToFields.put(type, nameToField);
 		return nameToField;
 	}
 
+	/** The fields of {@link #getFields(Class)} in order, so writing doesn't look up each name. */
+	private FieldMetadata[] getFieldArray(Class<?> type) {
+		FieldMetadata[] array = typeToFieldArray.get(type);
+		if(array != null) return array;
+
+		OrderedMap<String, FieldMetadata> fields = getFields(type);
+		Array<String> fieldNames = fields.orderedKeys();
+		array = new FieldMetadata[fieldNames.size];
+		for(int i = 0; i < array.length; i++)
+			array[i] = fields.get(fieldNames.get(i));
+		typeToFieldArray.put(type, array);
+		return array;
+	}
+
 	public String toJson(@Nullable Object object) {
 		return toJson(object, object == null ? null : object.getClass(), (Class) null);
 	}
@@ -327,6 +360,67 @@ public class Json {
 		}
 	}
 
+	/** @see #toBinary(Object, Class, Class, OutputStream) */
+	public byte[] toBinary(@Nullable Object object) {
+		return toBinary(object, object == null ? null : object.getClass(), null);
+	}
+
+	/** @see #toBinary(Object, Class, Class, OutputStream) */
+	public byte[] toBinary(@Nullable Object object, @Nullable Class knownType, @Nullable Class<?> elementType) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		toBinary(object, knownType, elementType, buffer);
+		return buffer.toByteArray();
+	}
+
+	/** @see #toBinary(Object, Class, Class, OutputStream) */
+	public void toBinary(@Nullable Object object, WriteableFileHandle file) {
+		toBinary(object, object == null ? null : object.getClass(), null, file);
+	}
+
+	/** @see #toBinary(Object, Class, Class, OutputStream) */
+	public void toBinary(
+			@Nullable Object object,
+			@Nullable Class knownType, @Nullable Class<?> elementType, WriteableFileHandle file) {
+		OutputStream output = null;
+		try {
+			output = file.write(false, 8192);
+			toBinary(object, knownType, elementType, output);
+		} catch(Exception ex) {
+			throw new SerializationException("Error writing file: " + file, ex);
+		} finally {
+			try {
+				if(output != null) output.close();
+			} catch(IOException e) {
+			}
+		}
+	}
+
+	/** @see #toBinary(Object, Class, Class, OutputStream) */
+	public void toBinary(@Nullable Object object, OutputStream output) {
+		toBinary(object, object == null ? null : object.getClass(), null, output);
+	}
+
+	/**
+	 * CelestialGDX - writes the same values as {@link #toJson(Object, Class, Class, Writer)},
+	 * but in the binary format of {@link BinaryJsonWriter}. Read it back with the fromBinary methods.
+	 * @param knownType May be null if the type is unknown.
+	 * @param elementType May be null if the type is unknown.
+	 */
+	public void toBinary(
+			@Nullable Object object, @Nullable Class knownType, @Nullable Class<?> elementType, OutputStream output) {
+		BinaryJsonWriter writer = new BinaryJsonWriter(output);
+		setWriter(writer);
+		try {
+			writeValue(object, knownType, elementType);
+		} finally {
+			try {
+				writer.close();
+			} catch(IOException e) {
+			}
+			this.writer = null;
+		}
+	}
+
 	/** Sets the writer where JSON output will be written. This is only necessary when not using the toJson methods. */
 	public void setWriter(Writer writer) {
 		if(!(writer instanceof JsonWriter)) writer = new JsonWriter(writer);
@@ -352,19 +446,22 @@ public class Json {
 	public void writeFields(Object object) {
 		Class<?> type = object.getClass();
 
-		Object[] defaultValues = getDefaultValues(type);
+		Prototype prototype = getPrototype(type);
 
-		OrderedMap<String, FieldMetadata> fields = getFields(type);
-		int defaultIndex = 0;
-		Array<String> fieldNames = fields.orderedKeys();
-		for(int i = 0, n = fieldNames.size; i < n; i++) {
-			FieldMetadata metadata = fields.get(fieldNames.get(i));
+		FieldMetadata[] fields = getFieldArray(type);
+		for(int i = 0, n = fields.length; i < n; i++) {
+			FieldMetadata metadata = fields[i];
 			if(ignoreDeprecated && metadata.deprecated) continue;
 			Field field = metadata.field;
 			try {
-				Object value = field.get(object);
-				if(defaultValues != null) {
-					Object defaultValue = defaultValues[defaultIndex++];
+				if(metadata.kind != FieldMetadata.OBJECT) {
+					writePrimitiveField(object, metadata, prototype, i);
+					continue;
+				}
+
+				Object value = metadata.get(object);
+				if(prototype != null) {
+					Object defaultValue = prototype.values[i];
 					if(value == null && defaultValue == null) continue;
 					if(value != null && defaultValue != null) {
 						if(value.equals(defaultValue)) continue;
@@ -379,8 +476,6 @@ public class Json {
 				if(debug) System.out.println("Writing field: " + field.getName() + " (" + type.getName() + ")");
 				writer.name(field.getName());
 				writeValue(value, field.getType(), metadata.elementType);
-			} catch(IllegalAccessException ex) {
-				throw new SerializationException("Error accessing field: " + field.getName() + " (" + type.getName() + ")", ex);
 			} catch(SerializationException ex) {
 				ex.addTrace(field + " (" + type.getName() + ")");
 				throw ex;
@@ -392,7 +487,47 @@ public class Json {
 		}
 	}
 
-	private @Nullable Object[] getDefaultValues(Class<?> type) {
+	private void writePrimitiveField(Object object, FieldMetadata metadata, @Nullable Prototype prototype, int index)
+			throws IOException {
+		long bits;
+		switch(metadata.kind) {
+			case FieldMetadata.BOOLEAN -> {
+				boolean value = metadata.getBoolean(object);
+				bits = value ? 1 : 0;
+				if(prototype != null && prototype.bits[index] == bits) return;
+				writePrimitiveName(metadata).value(value);
+			}
+			case FieldMetadata.INT -> {
+				int value = metadata.getInt(object);
+				if(prototype != null && prototype.bits[index] == value) return;
+				writePrimitiveName(metadata).value(value);
+			}
+			case FieldMetadata.LONG -> {
+				long value = metadata.getLong(object);
+				if(prototype != null && prototype.bits[index] == value) return;
+				writePrimitiveName(metadata).value(value);
+			}
+			case FieldMetadata.FLOAT -> {
+				float value = metadata.getFloat(object);
+				if(prototype != null && prototype.bits[index] == Float.floatToIntBits(value)) return;
+				writePrimitiveName(metadata).value(value);
+			}
+			case FieldMetadata.DOUBLE -> {
+				double value = metadata.getDouble(object);
+				if(prototype != null && prototype.bits[index] == Double.doubleToLongBits(value)) return;
+				writePrimitiveName(metadata).value(value);
+			}
+			default -> throw new IllegalStateException("Not a primitive field: " + metadata.field);
+		}
+	}
+
+	private JsonWriter writePrimitiveName(FieldMetadata metadata) throws IOException {
+		Field field = metadata.field;
+		if(debug) System.out.println("Writing field: " + field.getName() + " (" + field.getDeclaringClass().getName() + ")");
+		return writer.name(field.getName());
+	}
+
+	private @Nullable Prototype getPrototype(Class<?> type) {
 		if(!usePrototypes) return null;
 		if(classToDefaultValues.containsKey(type)) return classToDefaultValues.get(type);
 		Object object;
@@ -403,20 +538,22 @@ public class Json {
 			return null;
 		}
 
-		OrderedMap<String, FieldMetadata> fields = getFields(type);
-		Object[] values = new Object[fields.size];
-		classToDefaultValues.put(type, values);
+		FieldMetadata[] fields = getFieldArray(type);
+		Prototype prototype = new Prototype(fields.length);
+		classToDefaultValues.put(type, prototype);
 
-		int defaultIndex = 0;
-		Array<String> fieldNames = fields.orderedKeys();
-		for(int i = 0, n = fieldNames.size; i < n; i++) {
-			FieldMetadata metadata = fields.get(fieldNames.get(i));
-			if(ignoreDeprecated && metadata.deprecated) continue;
+		for(int i = 0, n = fields.length; i < n; i++) {
+			FieldMetadata metadata = fields[i];
 			Field field = metadata.field;
 			try {
-				values[defaultIndex++] = field.get(object);
-			} catch(IllegalAccessException ex) {
-				throw new SerializationException("Error accessing field: " + field.getName() + " (" + type.getName() + ")", ex);
+				switch(metadata.kind) {
+					case FieldMetadata.BOOLEAN -> prototype.bits[i] = metadata.getBoolean(object) ? 1 : 0;
+					case FieldMetadata.INT -> prototype.bits[i] = metadata.getInt(object);
+					case FieldMetadata.LONG -> prototype.bits[i] = metadata.getLong(object);
+					case FieldMetadata.FLOAT -> prototype.bits[i] = Float.floatToIntBits(metadata.getFloat(object));
+					case FieldMetadata.DOUBLE -> prototype.bits[i] = Double.doubleToLongBits(metadata.getDouble(object));
+					default -> prototype.values[i] = metadata.get(object);
+				}
 			} catch(SerializationException ex) {
 				ex.addTrace(field + " (" + type.getName() + ")");
 				throw ex;
@@ -426,7 +563,7 @@ public class Json {
 				throw ex;
 			}
 		}
-		return values;
+		return prototype;
 	}
 
 	/** @see #writeField(Object, String, String, Class) */
@@ -461,7 +598,7 @@ public class Json {
 		try {
 			if(debug) System.out.println("Writing field: " + field.getName() + " (" + type.getName() + ")");
 			writer.name(jsonName);
-			writeValue(field.get(object), field.getType(), elementType);
+			writeValue(metadata.get(object), field.getType(), elementType);
 		} catch(SerializationException ex) {
 			ex.addTrace(field + " (" + type.getName() + ")");
 			throw ex;
@@ -928,6 +1065,105 @@ public class Json {
 		return readValue(type, elementType, this.reader.parse(json));
 	}
 
+	/**
+	 * CelestialGDX - reads data written by the toBinary methods.
+	 * @param type May be null if the type is unknown.
+	 * @return May be null.
+	 */
+	public @Nullable <T> T fromBinary(Class<T> type, byte[] data) {
+		return readValue(type, null, getBinaryReader().parse(data));
+	}
+
+	/** @see #fromBinary(Class, byte[]) */
+	public @Nullable <T> T fromBinary(Class<T> type, @Nullable Class<?> elementType, byte[] data) {
+		return readValue(type, elementType, getBinaryReader().parse(data));
+	}
+
+	/** @see #fromBinary(Class, byte[]) */
+	public @Nullable <T> T fromBinary(Class<T> type, InputStream input) {
+		return readValue(type, null, getBinaryReader().parse(input));
+	}
+
+	/** @see #fromBinary(Class, byte[]) */
+	public @Nullable <T> T fromBinary(Class<T> type, @Nullable Class<?> elementType, InputStream input) {
+		return readValue(type, elementType, getBinaryReader().parse(input));
+	}
+
+	/** @see #fromBinary(Class, byte[]) */
+	public @Nullable <T> T fromBinary(Class<T> type, FileHandle file) {
+		return fromBinary(type, null, file);
+	}
+
+	/** @see #fromBinary(Class, byte[]) */
+	public @Nullable <T> T fromBinary(Class<T> type, @Nullable Class<?> elementType, FileHandle file) {
+		try {
+			return readValue(type, elementType, getBinaryReader().parse(file));
+		} catch(Exception ex) {
+			throw new SerializationException("Error reading file: " + file, ex);
+		}
+	}
+
+	private BinaryJsonReader getBinaryReader() {
+		if(binaryReader == null) binaryReader = new BinaryJsonReader();
+		return binaryReader;
+	}
+
+	/** @see #fromJsonStreaming(Class, Class, char[], int, int) */
+	public @Nullable <T> T fromJsonStreaming(Class<T> type, Reader reader) {
+		return fromJsonStreaming(type, null, reader);
+	}
+
+	/** @see #fromJsonStreaming(Class, Class, char[], int, int) */
+	public @Nullable <T> T fromJsonStreaming(Class<T> type, @Nullable Class<?> elementType, Reader reader) {
+		JsonStreamReader streamReader = new JsonStreamReader(this, type, elementType);
+		streamReader.parse(reader);
+		return (T) streamReader.getResult();
+	}
+
+	/** @see #fromJsonStreaming(Class, Class, char[], int, int) */
+	public @Nullable <T> T fromJsonStreaming(Class<T> type, FileHandle file) {
+		return fromJsonStreaming(type, null, file);
+	}
+
+	/** @see #fromJsonStreaming(Class, Class, char[], int, int) */
+	public @Nullable <T> T fromJsonStreaming(Class<T> type, @Nullable Class<?> elementType, FileHandle file) {
+		try {
+			JsonStreamReader streamReader = new JsonStreamReader(this, type, elementType);
+			streamReader.parse(file);
+			return (T) streamReader.getResult();
+		} catch(Exception ex) {
+			throw new SerializationException("Error reading file: " + file, ex);
+		}
+	}
+
+	/** @see #fromJsonStreaming(Class, Class, char[], int, int) */
+	public @Nullable <T> T fromJsonStreaming(Class<T> type, String json) {
+		return fromJsonStreaming(type, null, json);
+	}
+
+	/** @see #fromJsonStreaming(Class, Class, char[], int, int) */
+	public @Nullable <T> T fromJsonStreaming(Class<T> type, @Nullable Class<?> elementType, String json) {
+		char[] data = json.toCharArray();
+		return fromJsonStreaming(type, elementType, data, 0, data.length);
+	}
+
+	/**
+	 * CelestialGDX - reads the JSON the same as {@link #fromJson(Class, Class, char[], int, int)}, but objects are filled
+	 * straight from {@link JsonSkimmer} events instead of first parsing the whole input into a {@link JsonValue} tree.
+	 * Peak memory is the input plus the result, instead of the input, a node per value and the result.
+	 * <p>
+	 * Values read by a {@link Serializer}, a {@link Serializable}, the default serializer or without a known type
+	 * need a {@link JsonValue}, so only that value's subtree is built for them.
+	 * The type name field is only used when it's the first field of an object, which is where this class writes it.
+	 * </p>
+	 * @param elementType May be null if the type is unknown.
+	 */
+	public @Nullable <T> T fromJsonStreaming(Class<T> type, @Nullable Class<?> elementType, char[] data, int offset, int length) {
+		JsonStreamReader streamReader = new JsonStreamReader(this, type, elementType);
+		streamReader.parse(data, offset, length);
+		return (T) streamReader.getResult();
+	}
+
 	public void readField(Object object, String name, JsonValue jsonData) {
 		readField(object, name, name, null, jsonData);
 	}
@@ -997,7 +1233,8 @@ public class Json {
 			}
 			Field field = metadata.field;
 			try {
-				field.set(object, readValue(field.getType(), metadata.elementType, child));
+				if(metadata.kind != FieldMetadata.OBJECT && readPrimitiveField(object, metadata, child)) continue;
+				metadata.set(object, readValue(field.getType(), metadata.elementType, child));
 			} catch(IllegalAccessException ex) {
 				throw new SerializationException("Error accessing field: " + field.getName() + " (" + type.getName() + ")", ex);
 			} catch(SerializationException ex) {
@@ -1012,6 +1249,31 @@ public class Json {
 		}
 	}
 
+	/**
+	 * Sets a primitive field from a JSON number or boolean without boxing.
+	 * @return false if the value needs the conversions of {@link #readValue(Class, Class, JsonValue)}
+	 */
+	boolean readPrimitiveField(Object object, FieldMetadata metadata, JsonValue jsonData) throws IllegalAccessException {
+		if(!metadata.hasPrimitiveSetter()) return false;
+		if(classToSerializer.size > 0 && classToSerializer.containsKey(metadata.field.getType())) return false;
+		if(metadata.kind == FieldMetadata.BOOLEAN) {
+			if(!jsonData.isBoolean()) return false;
+			metadata.setBoolean(object, jsonData.asBoolean());
+			return true;
+		}
+		if(!jsonData.isNumber()) return false;
+		switch(metadata.kind) {
+			case FieldMetadata.INT -> metadata.setInt(object, jsonData.asInt());
+			case FieldMetadata.LONG -> metadata.setLong(object, jsonData.asLong());
+			case FieldMetadata.FLOAT -> metadata.setFloat(object, jsonData.asFloat());
+			case FieldMetadata.DOUBLE -> metadata.setDouble(object, jsonData.asDouble());
+			default -> {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Called for each unknown field name encountered by {@link #readFields(Object, JsonValue)} when {@link #ignoreUnknownFields}
 	 * is false to determine whether the unknown field name should be ignored.
@@ -1293,7 +1555,7 @@ public class Json {
 			Field fromField = entry.value.field;
 			if(toField == null) throw new SerializationException("To object is missing field: " + entry.key);
 			try {
-				toField.field.set(to, fromField.get(from));
+				toField.set(to, entry.value.get(from));
 			} catch(Exception ex) {
 				throw new SerializationException("Error copying field: " + fromField.getName(), ex);
 			}
@@ -1306,6 +1568,19 @@ public class Json {
 	}
 
 	protected Object newInstance(Class<?> type) {
+		MethodHandle handle = classToConstructor.get(type);
+		if(handle == null) {
+			handle = findConstructor(type);
+			if(handle != null) classToConstructor.put(type, handle);
+		}
+		if(handle != null) {
+			try {
+				return (Object) handle.invokeExact();
+			} catch(Throwable ex) {
+				throw new SerializationException("Error constructing instance of class: " + type.getName(), ex);
+			}
+		}
+
 		try {
 			return type.newInstance();
 		} catch(Exception ex) {
@@ -1331,6 +1606,19 @@ public class Json {
 		}
 	}
 
+	/** @return a handle to the no-arg constructor typed {@code ()Object}, or null if there is none or it can't be accessed */
+	static private @Nullable MethodHandle findConstructor(Class<?> type) {
+		if(type.isInterface() || type.isArray() || type.isPrimitive() || type.isEnum()
+				|| Modifier.isAbstract(type.getModifiers())) return null;
+		try {
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+		} catch(NoSuchMethodException | IllegalAccessException | RuntimeException ex) {
+			return null;
+		}
+	}
+
 	public String prettyPrint(@Nullable Object object) {
 		return prettyPrint(object, 0);
 	}
@@ -1355,17 +1643,174 @@ public class Json {
 		return this.reader.parse(json).prettyPrint(settings);
 	}
 
-	static private class FieldMetadata {
+	static class FieldMetadata {
+		// how the field is accessed. byte and short are widened to INT, char is accessed as an OBJECT
+		static final int OBJECT = 0, BOOLEAN = 1, INT = 2, LONG = 3, FLOAT = 4, DOUBLE = 5;
+
 		final Field field;
+		final int kind;
+		// (Object)Object and (Object, Object)void
+		private final MethodHandle getter;
+		private final @Nullable MethodHandle setter;
+		// (Object)primitive and (Object, primitive)void, null for OBJECT fields
+		private final @Nullable MethodHandle primitiveGetter;
+		private final @Nullable MethodHandle primitiveSetter;
 		Class<?> elementType;
 		boolean deprecated;
 
-		public FieldMetadata(Field field) {
+		/** @throws IllegalAccessException if the field can't be read through a handle */
+		public FieldMetadata(Field field) throws IllegalAccessException {
 			this.field = field;
 			int index = (ObjectMap.class.isAssignableFrom(field.getType())
 					|| Map.class.isAssignableFrom(field.getType())) ? 1 : 0;
 			this.elementType = getElementType(index);
 			deprecated = field.isAnnotationPresent(Deprecated.class);
+
+			Class<?> type = field.getType();
+			if(type == boolean.class) kind = BOOLEAN;
+			else if(type == int.class || type == short.class || type == byte.class) kind = INT;
+			else if(type == long.class) kind = LONG;
+			else if(type == float.class) kind = FLOAT;
+			else if(type == double.class) kind = DOUBLE;
+			else kind = OBJECT;
+
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle rawGetter = lookup.unreflectGetter(field);
+			MethodHandle rawSetter;
+			try {
+				rawSetter = lookup.unreflectSetter(field);
+			} catch(IllegalAccessException ex) {
+				// final fields of records and hidden classes, Field#set reports the error when read
+				rawSetter = null;
+			}
+
+			getter = rawGetter.asType(MethodType.methodType(Object.class, Object.class));
+			setter = rawSetter == null ? null : rawSetter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			if(kind == OBJECT) {
+				primitiveGetter = null;
+				primitiveSetter = null;
+			} else {
+				Class<?> primitive = switch(kind) {
+					case BOOLEAN -> boolean.class;
+					case INT -> int.class;
+					case LONG -> long.class;
+					case FLOAT -> float.class;
+					default -> double.class;
+				};
+				primitiveGetter = rawGetter.asType(MethodType.methodType(primitive, Object.class));
+				primitiveSetter = rawSetter == null ? null : MethodHandles.explicitCastArguments(
+						rawSetter, MethodType.methodType(void.class, Object.class, primitive));
+			}
+		}
+
+		Object get(Object object) {
+			try {
+				return (Object) getter.invokeExact(object);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		void set(Object object, @Nullable Object value) throws IllegalAccessException {
+			if(setter == null) {
+				field.set(object, value);
+				return;
+			}
+			try {
+				setter.invokeExact(object, value);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		boolean hasPrimitiveSetter() {
+			return primitiveSetter != null;
+		}
+
+		boolean getBoolean(Object object) {
+			try {
+				return (boolean) primitiveGetter.invokeExact(object);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		int getInt(Object object) {
+			try {
+				return (int) primitiveGetter.invokeExact(object);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		long getLong(Object object) {
+			try {
+				return (long) primitiveGetter.invokeExact(object);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		float getFloat(Object object) {
+			try {
+				return (float) primitiveGetter.invokeExact(object);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		double getDouble(Object object) {
+			try {
+				return (double) primitiveGetter.invokeExact(object);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		void setBoolean(Object object, boolean value) {
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		void setInt(Object object, int value) {
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		void setLong(Object object, long value) {
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		void setFloat(Object object, float value) {
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		void setDouble(Object object, double value) {
+			try {
+				primitiveSetter.invokeExact(object, value);
+			} catch(Throwable ex) {
+				throw rethrow(ex);
+			}
+		}
+
+		static private RuntimeException rethrow(Throwable ex) {
+			if(ex instanceof RuntimeException runtimeEx) return runtimeEx;
+			if(ex instanceof Error error) throw error;
+			return new SerializationException(ex);
 		}
 
 		private Class<?> getElementType(int index) {
@@ -1389,6 +1834,20 @@ public class Json {
 		}
 	}
 
+	/**
+	 * Field values of a newly constructed instance, indexed like {@link #getFieldArray(Class)}.
+	 * Primitive fields are stored as raw bits in {@link #bits}, others in {@link #values}.
+	 */
+	static private class Prototype {
+		final Object[] values;
+		final long[] bits;
+
+		Prototype(int fields) {
+			this.values = new Object[fields];
+			this.bits = new long[fields];
+		}
+	}
+
 	static public interface Serializer<T> {
 		public void write(Json json, T object, Class<?> knownType);
 
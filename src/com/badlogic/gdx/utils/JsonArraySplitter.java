@@ -0,0 +1,120 @@
+package com.badlogic.gdx.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * CelestialGDX -
+ * Finds where a root JSON array can be cut into runs of whole elements for {@link JsonReader#parseParallel(char[], int, int)}.
+ * Only the characters that change nesting are looked at: quotes, brackets, braces, commas and comments.
+ * <p>
+ * Quotes, brackets and braces only count at the start of a value, like the parser, so unquoted strings such as
+ * {@code a[b"c} don't throw off the depth. Anything this can't follow returns null and the caller parses sequentially.
+ * </p>
+ * @author thosea
+ */
+final class JsonArraySplitter {
+	private JsonArraySplitter() {}
+
+	/**
+	 * @param minChunkLength the chunks are cut at the first top-level comma after this many characters
+	 * @return pairs of start (inclusive) and end (exclusive) indices of the chunks, without the separating commas,
+	 * or null if the data isn't a single root array
+	 */
+	static @Nullable IntArray split(char[] data, int start, int end, int minChunkLength) {
+		int p = skipIgnored(data, start, end);
+		if(p == end || data[p] != '[') return null;
+
+		IntArray chunks = new IntArray();
+		int chunkStart = ++p;
+		int depth = 1;
+		boolean valueStart = true;
+		while(p < end) {
+			char c = data[p];
+			switch(c) {
+				case '"' -> {
+					// a quote inside an unquoted string is just a character
+					if(valueStart) {
+						p = skipString(data, p + 1, end);
+						if(p == end) return null;
+					}
+				}
+				case '[', '{' -> {
+					if(valueStart) depth++;
+				}
+				case ']', '}' -> {
+					if(--depth == 0) {
+						if(c != ']') return null;
+						chunks.add(chunkStart, p);
+						return skipIgnored(data, p + 1, end) == end ? chunks : null;
+					}
+					valueStart = true;
+				}
+				case ',' -> {
+					if(depth == 1 && p - chunkStart >= minChunkLength) {
+						chunks.add(chunkStart, p);
+						chunkStart = p + 1;
+					}
+					valueStart = true;
+				}
+				case ':', '\n', '\r' -> valueStart = true;
+				case ' ', '\t' -> {}
+				case '/' -> {
+					int after = skipComment(data, p, end);
+					if(after != p) {
+						// the comment ends on its last character, the loop moves past it
+						p = after - 1;
+					} else {
+						valueStart = false;
+					}
+				}
+				default -> valueStart = false;
+			}
+			p++;
+		}
+		return null;
+	}
+
+	/** @return the index after the closing quote, or end if there is none */
+	private static int skipString(char[] data, int p, int end) {
+		while(p < end) {
+			char c = data[p++];
+			if(c == '"') return p - 1;
+			if(c == '\\') p++;
+		}
+		return end;
+	}
+
+	/** @return the index after the comment starting at p, or p if there is no comment there */
+	private static int skipComment(char[] data, int p, int end) {
+		if(p + 1 >= end) return p;
+		char c = data[p + 1];
+		if(c == '/') {
+			int i = p + 2;
+			while(i < end && data[i] != '\n')
+				i++;
+			return i;
+		} else if(c == '*') {
+			int i = p + 2;
+			while(i + 1 < end && (data[i] != '*' || data[i + 1] != '/'))
+				i++;
+			return Math.min(i + 2, end);
+		}
+		return p;
+	}
+
+	private static int skipIgnored(char[] data, int p, int end) {
+		while(p < end) {
+			char c = data[p];
+			if(c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+				p++;
+			} else if(c == '/') {
+				int after = skipComment(data, p, end);
+				if(after == p) return p;
+				p = after;
+			} else {
+				return p;
+			}
+		}
+		return p;
+	}
+}
@@ -28,6 +28,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 /**
  * Lightweight JSON parser.<br>
@@ -85,6 +88,150 @@ public class JsonReader {
 		}
 	}
 
+	/**
+	 * CelestialGDX - parses on the {@link ForkJoinPool#commonPool() common pool}.
+	 * @see #parseParallel(char[], int, int, ForkJoinPool)
+	 */
+	public JsonValue parseParallel(char[] data, int offset, int length) {
+		return parseParallel(data, offset, length, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * CelestialGDX - parses a large root array by cutting it into chunks of whole elements,
+	 * parsing the chunks on the pool and joining their elements into one array.
+	 * Anything else, such as a root object or data too small to be worth splitting, goes to {@link #parse(char[], int, int)}.
+	 * <p>
+	 * Chunks are parsed by plain {@link JsonReader}s, so callbacks overridden by a subclass aren't called for them.
+	 * If a chunk fails to parse, the whole data is parsed again without splitting to report the error.
+	 * </p>
+	 */
+	public JsonValue parseParallel(char[] data, int offset, int length, ForkJoinPool pool) {
+		IntArray chunks = split(data, offset, length, pool);
+		if(chunks == null) return parse(data, offset, length);
+
+		ElementAppender appender = new ElementAppender();
+		if(!parseChunks(data, chunks, pool, appender)) return parse(data, offset, length);
+		return appender.array;
+	}
+
+	/**
+	 * CelestialGDX - parses the elements of a root array like {@link #parseParallel(char[], int, int, ForkJoinPool)},
+	 * but hands each element to the consumer in order as soon as its chunk is parsed instead of building the array.
+	 * Only a few chunks per thread of the pool are parsed ahead, so memory use doesn't grow with the size of the array.
+	 * <p>
+	 * The consumer is called on the calling thread. Elements are detached from the array,
+	 * their {@link JsonValue#parent} and siblings are null.
+	 * </p>
+	 * @throws SerializationException if the data isn't valid JSON or the root isn't an array
+	 */
+	public void parseElements(char[] data, int offset, int length, ForkJoinPool pool, Consumer<JsonValue> consumer) {
+		IntArray chunks = split(data, offset, length, pool);
+		int delivered = 0;
+		if(chunks != null) {
+			ElementCounter counter = new ElementCounter(consumer);
+			if(parseChunks(data, chunks, pool, counter)) return;
+			delivered = counter.count;
+		}
+
+		JsonValue root = new JsonReader().parse(data, offset, length);
+		if(!root.isArray()) throw new SerializationException("The root must be an array: " + root.type());
+		// when a chunk failed but the whole data didn't, only the elements that weren't handed out yet are left
+		JsonValue element = root.child;
+		for(int i = 0; i < delivered && element != null; i++)
+			element = element.next;
+		deliver(element, consumer);
+	}
+
+	static private final int PARALLEL_MIN_LENGTH = 1 << 18;
+	static private final int PARALLEL_MIN_CHUNK_LENGTH = 1 << 16;
+
+	static private @Nullable IntArray split(char[] data, int offset, int length, ForkJoinPool pool) {
+		int size = length - offset;
+		if(size < PARALLEL_MIN_LENGTH) return null;
+		// a few chunks per thread so uneven chunks even out
+		int chunkLength = Math.max(PARALLEL_MIN_CHUNK_LENGTH, size / (pool.getParallelism() * 4));
+		return JsonArraySplitter.split(data, offset, length, chunkLength);
+	}
+
+	/** @return false if a chunk failed to parse, the consumer may have been given elements before it */
+	static private boolean parseChunks(char[] data, IntArray chunks, ForkJoinPool pool, Consumer<JsonValue> consumer) {
+		int ahead = Math.max(2, pool.getParallelism() * 2);
+		int next = 0;
+		Queue<ForkJoinTask<JsonValue>> pending = new Queue<>(ahead);
+		while(true) {
+			while(next < chunks.size && pending.size < ahead) {
+				int start = chunks.get(next), end = chunks.get(next + 1);
+				pending.addLast(pool.submit(() -> parseChunk(data, start, end)));
+				next += 2;
+			}
+			if(pending.isEmpty()) return true;
+
+			JsonValue chunk;
+			try {
+				chunk = pending.removeFirst().join();
+			} catch(SerializationException ex) {
+				while(pending.notEmpty())
+					pending.removeFirst().cancel(false);
+				return false;
+			}
+			deliver(chunk.child, consumer);
+		}
+	}
+
+	static private JsonValue parseChunk(char[] data, int start, int end) {
+		// the newline ends a line comment at the end of the chunk
+		char[] chunk = new char[end - start + 3];
+		chunk[0] = '[';
+		System.arraycopy(data, start, chunk, 1, end - start);
+		chunk[chunk.length - 2] = '\n';
+		chunk[chunk.length - 1] = ']';
+		return new JsonReader().parse(chunk, 0, chunk.length);
+	}
+
+	static private void deliver(@Nullable JsonValue element, Consumer<JsonValue> consumer) {
+		while(element != null) {
+			JsonValue next = element.next;
+			element.parent = null;
+			element.prev = null;
+			element.next = null;
+			consumer.accept(element);
+			element = next;
+		}
+	}
+
+	static private class ElementAppender implements Consumer<JsonValue> {
+		final JsonValue array = new JsonValue(ValueType.array);
+		@Nullable JsonValue last;
+
+		@Override
+		public void accept(JsonValue element) {
+			element.parent = array;
+			if(last == null) {
+				array.child = element;
+			} else {
+				last.next = element;
+				element.prev = last;
+			}
+			last = element;
+			array.size++;
+		}
+	}
+
+	static private class ElementCounter implements Consumer<JsonValue> {
+		final Consumer<JsonValue> consumer;
+		int count;
+
+		ElementCounter(Consumer<JsonValue> consumer) {
+			this.consumer = consumer;
+		}
+
+		@Override
+		public void accept(JsonValue element) {
+			consumer.accept(element);
+			count++;
+		}
+	}
+
 	public JsonValue parse(char[] data, int offset, int length) {
 		stop = false;
 		int cs, p = offset, pe = length, eof = pe, top = 0;
@@ -128,6 +275,14 @@ public class JsonReader {
 								continue _goto;
 							}
 						case 1:
+							// CelestialGDX - skip whitespace runs without a table lookup per character
+							if(_json_whitespace_loops[cs] && data[p] <= ' ') {
+								p = skipWhitespace(data, p, pe);
+								if(p == pe) {
+									_goto_targ = 4;
+									continue _goto;
+								}
+							}
 							_match:
 							do {
 								_keys = _json_key_offsets[cs];
@@ -193,16 +348,22 @@ public class JsonReader {
 										case 1:
 											// line 111 "JsonReader.rl"
 										{
-											String value = new String(data, s, p - s);
-											if(needsUnescape) value = unescape(value);
 											outer:
 											if(stringIsName) {
+												String value = new String(data, s, p - s);
+												if(needsUnescape) value = unescape(value);
 												stringIsName = false;
 												if(debug) System.out.println("name: " + value);
 												name = value;
 											} else {
 												String valueName = name;
 												name = null;
+												if(stringIsUnquoted && !needsUnescape && unquotedValue(valueName, data, s, p)) {
+													if(debug) System.out.println("unquoted: " + valueName + "=" + new String(data, s, p - s));
+													break outer;
+												}
+												String value = new String(data, s, p - s);
+												if(needsUnescape) value = unescape(value);
 												if(stringIsUnquoted) {
 													if(value.equals("true")) {
 														if(debug) System.out.println("boolean: " + valueName + "=true");
@@ -416,20 +577,18 @@ public class JsonReader {
 											if(debug) System.out.println("quotedChars");
 											s = ++p;
 											needsUnescape = false;
-											outer:
 											while(true) {
-												switch(data[p]) {
-													case '\\':
-														needsUnescape = true;
-														p++;
-														break;
-													case '"':
-														break outer;
+												p = scanQuoted(data, p, eof);
+												if(p == eof || data[p] == '"') break;
+												// skip the escape and the escaped character
+												needsUnescape = true;
+												p += 2;
+												if(p >= eof) {
+													p = eof;
+													break;
 												}
-												if(debug) System.out.println("quotedChar: '" + data[p] + "'");
-												p++;
-												if(p == eof) break;
 											}
+											if(debug) System.out.println("quotedChars: '" + new String(data, s, p - s) + "'");
 											p--;
 										}
 										break;
@@ -456,16 +615,22 @@ public class JsonReader {
 										case 1:
 											// line 111 "JsonReader.rl"
 										{
-											String value = new String(data, s, p - s);
-											if(needsUnescape) value = unescape(value);
 											outer:
 											if(stringIsName) {
+												String value = new String(data, s, p - s);
+												if(needsUnescape) value = unescape(value);
 												stringIsName = false;
 												if(debug) System.out.println("name: " + value);
 												name = value;
 											} else {
 												String valueName = name;
 												name = null;
+												if(stringIsUnquoted && !needsUnescape && unquotedValue(valueName, data, s, p)) {
+													if(debug) System.out.println("unquoted: " + valueName + "=" + new String(data, s, p - s));
+													break outer;
+												}
+												String value = new String(data, s, p - s);
+												if(needsUnescape) value = unescape(value);
 												if(stringIsUnquoted) {
 													if(value.equals("true")) {
 														if(debug) System.out.println("boolean: " + valueName + "=true");
@@ -670,6 +835,50 @@ public class JsonReader {
 	static final int json_en_array = 23;
 	static final int json_en_main = 1;
 
+	/** CelestialGDX - states where whitespace loops back to the same state without an action, so it can be skipped */
+	private static final boolean[] _json_whitespace_loops = init__json_whitespace_loops();
+
+	private static boolean[] init__json_whitespace_loops() {
+		boolean[] loops = new boolean[_json_single_lengths.length];
+		for(int cs = 1; cs < loops.length; cs++) {
+			loops[cs] = isEmptyLoop(cs, ' ') && isEmptyLoop(cs, '\t') && isEmptyLoop(cs, '\n') && isEmptyLoop(cs, '\r');
+		}
+		return loops;
+	}
+
+	/** Does the same lookup as the state machine in {@link #parse(char[], int, int)} */
+	private static boolean isEmptyLoop(int cs, char c) {
+		int keys = _json_key_offsets[cs];
+		int trans = _json_index_offsets[cs];
+		int length = _json_single_lengths[cs];
+		found:
+		{
+			for(int i = 0; i < length; i++) {
+				if(_json_trans_keys[keys + i] == c) {
+					trans += i;
+					break found;
+				}
+			}
+			keys += length;
+			trans += length;
+			length = _json_range_lengths[cs];
+			for(int i = 0; i < length; i++) {
+				if(c >= _json_trans_keys[keys + i * 2] && c <= _json_trans_keys[keys + i * 2 + 1]) {
+					trans += i;
+					break found;
+				}
+			}
+			trans += length;
+		}
+		trans = _json_indicies[trans];
+		return _json_trans_targs[trans] == cs && _json_trans_actions[trans] == 0;
+	}
+
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
 	// line 349 "JsonReader.rl"
 
 	private final Array<JsonValue> elements = new Array(8);
@@ -682,6 +891,24 @@ public class JsonReader {
 		stop = true;
 	}
 
+	/**
+	 * CelestialGDX - begin/finishParse are for readers of other formats that build the tree with the same callbacks,
+	 * see {@link BinaryJsonReader}.
+	 */
+	void beginParse() {
+		stop = false;
+	}
+
+	/** @return the root built by the callbacks since {@link #beginParse()}. Resets for the next parse. */
+	JsonValue finishParse() {
+		JsonValue root = this.root;
+		this.root = null;
+		current = null;
+		lastChild.clear();
+		elements.clear();
+		return root;
+	}
+
 	public boolean isStopped() {
 		return stop;
 	}
@@ -793,4 +1020,137 @@ public class JsonReader {
 		}
 		return buffer.toString();
 	}
+
+	/**
+	 * CelestialGDX - reports true, false, null and numbers straight from the characters,
+	 * without {@link Double#parseDouble(String)} or {@link Long#parseLong(String)} for the common cases.
+	 * Numbers keep their text as the string value, like the regular path.
+	 * @return false if the value must go through the regular path, nothing is reported then
+	 */
+	private boolean unquotedValue(@Nullable String name, char[] data, int start, int end) {
+		int length = end - start;
+		if(length == 4) {
+			if(matches(data, start, "true")) {
+				bool(name, true);
+				return true;
+			} else if(matches(data, start, "null")) {
+				string(name, null);
+				return true;
+			}
+		} else if(length == 5 && matches(data, start, "false")) {
+			bool(name, false);
+			return true;
+		}
+		if(length == 0) return false;
+
+		int i = start;
+		boolean negative = false;
+		if(data[i] == '-') {
+			negative = true;
+			i++;
+		} else if(data[i] == '+') {
+			i++;
+		}
+
+		// significant digits go into the mantissa, up to 18 so it can't overflow
+		long mantissa = 0;
+		int digits = 0, intDigits = 0, fracDigits = 0;
+		char c;
+		while(i < end && (c = data[i]) >= '0' && c <= '9') {
+			if(mantissa != 0 || c != '0') {
+				if(++digits > 18) return false;
+				mantissa = mantissa * 10 + (c - '0');
+			}
+			intDigits++;
+			i++;
+		}
+		boolean integer = true;
+		if(i < end && data[i] == '.') {
+			integer = false;
+			i++;
+			while(i < end && (c = data[i]) >= '0' && c <= '9') {
+				if(mantissa != 0 || c != '0') {
+					if(++digits > 18) return false;
+					mantissa = mantissa * 10 + (c - '0');
+				}
+				fracDigits++;
+				i++;
+			}
+		}
+		if(intDigits + fracDigits == 0) return false;
+
+		int exponent = 0;
+		if(i < end && (data[i] == 'e' || data[i] == 'E')) {
+			integer = false;
+			i++;
+			boolean negativeExponent = false;
+			if(i < end && (data[i] == '-' || data[i] == '+')) negativeExponent = data[i++] == '-';
+			int exponentStart = i;
+			while(i < end && (c = data[i]) >= '0' && c <= '9') {
+				if(exponent > 100_000) return false;
+				exponent = exponent * 10 + (c - '0');
+				i++;
+			}
+			if(i == exponentStart) return false;
+			if(negativeExponent) exponent = -exponent;
+		}
+		if(i != end) return false;
+
+		if(integer) {
+			number(name, negative ? -mantissa : mantissa, new String(data, start, length));
+			return true;
+		}
+
+		// exact when both the mantissa and the power of ten fit in a double without rounding
+		double value;
+		exponent -= fracDigits;
+		if(mantissa == 0) {
+			value = 0;
+		} else if(mantissa < 1L << 53 && exponent >= -22 && exponent <= 22) {
+			value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		} else {
+			return false;
+		}
+		number(name, negative ? -value : value, new String(data, start, length));
+		return true;
+	}
+
+	private static boolean matches(char[] data, int start, String text) {
+		for(int i = 0, n = text.length(); i < n; i++) {
+			if(data[start + i] != text.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	private static int skipWhitespace(char[] data, int p, int end) {
+		while(p < end) {
+			char c = data[p];
+			if(c != ' ' && c != '\t' && c != '\n' && c != '\r') break;
+			p++;
+		}
+		return p;
+	}
+
+	// CelestialGDX - SWAR: 4 chars packed into the 16-bit lanes of a long
+	private static final long LANE_ONES = 0x0001_0001_0001_0001L;
+	private static final long LANE_HIGHS = 0x8000_8000_8000_8000L;
+	private static final long QUOTES = '"' * LANE_ONES;
+	private static final long BACKSLASHES = '\\' * LANE_ONES;
+
+	/** @return the index of the first quote or backslash, or end if there is none */
+	private static int scanQuoted(char[] data, int p, int end) {
+		for(int limit = end - 3; p < limit; p += 4) {
+			long word = data[p] | (long) data[p + 1] << 16 | (long) data[p + 2] << 32 | (long) data[p + 3] << 48;
+			long quote = word ^ QUOTES;
+			long backslash = word ^ BACKSLASHES;
+			// sets the high bit of zero lanes, the lowest one is exact
+			long found = ((quote - LANE_ONES) & ~quote | (backslash - LANE_ONES) & ~backslash) & LANE_HIGHS;
+			if(found != 0) return p + (Long.numberOfTrailingZeros(found) >>> 4);
+		}
+		for(; p < end; p++) {
+			char c = data[p];
+			if(c == '"' || c == '\\') return p;
+		}
+		return end;
+	}
 }
\ No newline at end of file
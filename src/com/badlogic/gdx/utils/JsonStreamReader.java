@@ -0,0 +1,483 @@
+package com.badlogic.gdx.utils;
+
+import com.badlogic.gdx.utils.Json.FieldMetadata;
+import com.badlogic.gdx.utils.Json.Serializable;
+import com.badlogic.gdx.utils.JsonValue.ValueType;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * CelestialGDX -
+ * Deserializes JSON straight into objects from {@link JsonSkimmer} events, using the field metadata of a {@link Json}.
+ * Used by {@link Json#fromJsonStreaming}.
+ * <p>
+ * Each open object or array is a frame on a stack. An object frame waits for its first field to know whether it
+ * names a type, then creates the instance and sets each field as it's read. Scalars go through
+ * {@link Json#readValue(Class, Class, JsonValue)} on a reused {@link JsonValue}, so conversions match {@link Json#fromJson}.
+ * Values that need a whole {@link JsonValue} (serializers, {@link Serializable}, unknown types) are captured into a
+ * subtree that is handed to {@link Json#readValue(Class, Class, JsonValue)} when it ends.
+ * </p>
+ * @author thosea
+ */
+final class JsonStreamReader extends JsonSkimmer {
+	// the top frame, holding the result
+	static private final int ROOT = 0;
+	// an object whose type isn't decided yet, since its first field may name one
+	static private final int PENDING = 1;
+	// an object read field by field
+	static private final int FIELDS = 2;
+	// a map read entry by entry
+	static private final int MAP = 3;
+	// an object wrapping an array of values in a single field, eg. ObjectSet's "values"
+	static private final int WRAPPER = 4;
+	// an array read element by element into a collection
+	static private final int ARRAY = 5;
+	// a value collected into a JsonValue and read when it ends
+	static private final int CAPTURE = 6;
+	// an ignored value
+	static private final int SKIP = 7;
+
+	private final Json json;
+	private final Array<Frame> frames = new Array<>();
+	private int depth;
+
+	private final JsonValue scratch = new JsonValue(ValueType.nullValue);
+
+	JsonStreamReader(Json json, @Nullable Class<?> type, @Nullable Class<?> elementType) {
+		this.json = json;
+		Frame root = push(null);
+		root.kind = ROOT;
+		root.type = type;
+		root.elementType = elementType;
+	}
+
+	@Nullable
+	Object getResult() {
+		if(depth != 1) throw new SerializationException("JSON ended inside an object or array.");
+		return frames.get(0).result;
+	}
+
+	@Override
+	protected void push(@Nullable String name, boolean object) {
+		Frame parent = frames.get(depth - 1);
+		if(parent.kind == PENDING) resolve(parent, null);
+		switch(parent.kind) {
+			case CAPTURE -> {
+				JsonValue value = new JsonValue(object ? ValueType.object : ValueType.array);
+				capture(parent, name, value);
+				parent.current = value;
+				parent.last = null;
+				return;
+			}
+			case SKIP -> {
+				parent.skipDepth++;
+				return;
+			}
+		}
+
+		Frame frame = push(name);
+		if(!expect(parent, name, frame)) {
+			frame.kind = SKIP;
+			return;
+		}
+		if(object) {
+			frame.kind = PENDING;
+		} else {
+			startArray(frame);
+		}
+	}
+
+	@Override
+	protected void pop() {
+		Frame frame = frames.get(depth - 1);
+		switch(frame.kind) {
+			case CAPTURE -> {
+				if(frame.current != frame.root) {
+					// the closed value is the last child of its parent
+					frame.last = frame.current;
+					frame.current = frame.current.parent;
+					return;
+				}
+			}
+			case SKIP -> {
+				if(frame.skipDepth > 0) {
+					frame.skipDepth--;
+					return;
+				}
+				depth--;
+				frame.reset();
+				return;
+			}
+			case PENDING -> resolve(frame, null);
+		}
+
+		Object value = finish(frame);
+		String name = frame.name;
+		depth--;
+		frame.reset();
+		add(frames.get(depth - 1), name, value);
+	}
+
+	@Override
+	protected void value(@Nullable String name, String value, boolean unquoted) {
+		Frame parent = frames.get(depth - 1);
+		if(parent.kind == PENDING) {
+			if(name != null && name.equals(json.typeName)) {
+				resolve(parent, value);
+				return;
+			}
+			resolve(parent, null);
+		}
+		switch(parent.kind) {
+			case CAPTURE -> {
+				capture(parent, name, toJsonValue(new JsonValue(ValueType.nullValue), value, unquoted));
+				return;
+			}
+			case SKIP, WRAPPER -> {
+				return;
+			}
+		}
+
+		// the scratch value is only safe to reuse if no serializer can keep it
+		JsonValue jsonValue = json.classToSerializer.size == 0 ? scratch : new JsonValue(ValueType.nullValue);
+		toJsonValue(jsonValue, value, unquoted);
+
+		if(parent.kind == FIELDS) {
+			FieldMetadata metadata = field(parent, name);
+			if(metadata == null) return;
+			Field field = metadata.field;
+			try {
+				if(metadata.kind != FieldMetadata.OBJECT && json.readPrimitiveField(parent.result, metadata, jsonValue)) {
+					return;
+				}
+				metadata.set(parent.result, json.readValue(field.getType(), metadata.elementType, jsonValue));
+			} catch(IllegalAccessException ex) {
+				throw new SerializationException("Error accessing field: " + field.getName() + " (" + parent.type.getName() + ")", ex);
+			} catch(SerializationException ex) {
+				ex.addTrace(field.getName() + " (" + parent.type.getName() + ")");
+				throw ex;
+			} catch(RuntimeException runtimeEx) {
+				SerializationException ex = new SerializationException(runtimeEx);
+				ex.addTrace(field.getName() + " (" + parent.type.getName() + ")");
+				throw ex;
+			}
+			return;
+		}
+
+		Frame frame = push(name);
+		try {
+			if(!expect(parent, name, frame)) return;
+			Object result = json.readValue(frame.type, frame.elementType, jsonValue);
+			add(parent, name, result);
+		} finally {
+			depth--;
+			frame.reset();
+		}
+	}
+
+	/**
+	 * Sets the type the child value is read as.
+	 * @return false if the value should be ignored
+	 */
+	private boolean expect(Frame parent, @Nullable String name, Frame child) {
+		switch(parent.kind) {
+			case ROOT -> {
+				child.type = parent.type;
+				child.elementType = parent.elementType;
+			}
+			case FIELDS -> {
+				FieldMetadata metadata = field(parent, name);
+				if(metadata == null) return false;
+				child.type = metadata.field.getType();
+				child.elementType = metadata.elementType;
+			}
+			case MAP -> {
+				Object map = parent.result;
+				if(map instanceof ObjectIntMap) {
+					child.type = Integer.class;
+				} else if(map instanceof ObjectFloatMap) {
+					child.type = Float.class;
+				} else {
+					if(map instanceof Map && name.equals(json.typeName)) return false;
+					child.type = parent.elementType;
+				}
+			}
+			case WRAPPER -> {
+				if(!parent.wrappedName.equals(name)) return false;
+				// the wrapped array is read straight into the wrapper's collection
+				child.result = parent.result;
+				child.type = parent.type;
+				child.elementType = parent.result instanceof IntSet ? Integer.class : parent.elementType;
+			}
+			case ARRAY -> {
+				child.type = parent.elementType;
+			}
+			default -> throw new IllegalStateException("Frame kind " + parent.kind + " has no children");
+		}
+		return true;
+	}
+
+	@Nullable
+	private FieldMetadata field(Frame frame, @Nullable String name) {
+		FieldMetadata metadata = frame.fields.get(name.replace(" ", "_"));
+		if(metadata == null) {
+			if(name.equals(json.typeName)) return null;
+			if(json.ignoreUnknownFields || json.ignoreUnknownField(frame.type, name)) return null;
+			throw new SerializationException("Field not found: " + name + " (" + frame.type.getName() + ")");
+		}
+		if(json.ignoreDeprecated && !json.readDeprecated && metadata.deprecated) return null;
+		return metadata;
+	}
+
+	/** Decides how an object is read once its type is known, mirroring {@link Json#readValue(Class, Class, JsonValue)} */
+	private void resolve(Frame frame, @Nullable String className) {
+		Class<?> type = frame.type;
+		if(className != null) {
+			type = json.getClass(className);
+			if(type == null) {
+				try {
+					type = Class.forName(className);
+				} catch(ClassNotFoundException ex) {
+					throw new SerializationException(ex);
+				}
+			}
+			frame.type = type;
+		}
+
+		if(type == null) {
+			startCapture(frame, ValueType.object);
+			return;
+		}
+
+		if(json.typeName != null && Collection.class.isAssignableFrom(type)) {
+			frame.kind = WRAPPER;
+			frame.wrappedName = "items";
+			frame.result = type.isInterface() ? new ArrayList<>() : json.newInstance(type);
+			return;
+		}
+
+		if(json.classToSerializer.containsKey(type)
+				|| type == String.class || type == Integer.class || type == Boolean.class || type == Float.class
+				|| type == Long.class || type == Double.class || type == Short.class || type == Byte.class
+				|| type == Character.class || type.isEnum()
+				|| Serializable.class.isAssignableFrom(type)) {
+			startCapture(frame, ValueType.object);
+			return;
+		}
+
+		Object object = json.newInstance(type);
+		frame.result = object;
+		if(object instanceof ObjectMap || object instanceof ObjectIntMap || object instanceof ObjectFloatMap
+				|| object instanceof IntMap || object instanceof LongMap
+				|| object instanceof ArrayMap || object instanceof Map) {
+			frame.kind = MAP;
+		} else if(object instanceof ObjectSet || object instanceof IntSet) {
+			frame.kind = WRAPPER;
+			frame.wrappedName = "values";
+		} else {
+			frame.kind = FIELDS;
+			frame.fields = json.getFields(type);
+		}
+	}
+
+	private void startArray(Frame frame) {
+		if(frame.result != null) {
+			frame.kind = ARRAY;
+			return;
+		}
+
+		Class<?> type = frame.type;
+		if(type != null && (json.classToSerializer.containsKey(type) || Serializable.class.isAssignableFrom(type))) {
+			startCapture(frame, ValueType.array);
+			return;
+		}
+
+		frame.kind = ARRAY;
+		if(type == null || type == Object.class) type = Array.class;
+		if(Array.class.isAssignableFrom(type)) {
+			frame.result = type == Array.class ? new Array() : json.newInstance(type);
+		} else if(Queue.class.isAssignableFrom(type)) {
+			frame.result = type == Queue.class ? new Queue() : json.newInstance(type);
+		} else if(Collection.class.isAssignableFrom(type)) {
+			frame.result = type.isInterface() ? new ArrayList() : json.newInstance(type);
+		} else if(type.isArray()) {
+			// the length isn't known until the end, so elements are buffered
+			frame.componentType = type.getComponentType();
+			if(frame.elementType == null) frame.elementType = frame.componentType;
+			frame.result = new Array();
+		} else {
+			throw new SerializationException("Unable to convert array to required type: " + type.getName());
+		}
+	}
+
+	private void startCapture(Frame frame, ValueType type) {
+		frame.kind = CAPTURE;
+		frame.root = frame.current = new JsonValue(type);
+		frame.last = null;
+	}
+
+	private void capture(Frame frame, @Nullable String name, JsonValue value) {
+		JsonValue parent = frame.current;
+		if(parent.isObject() && name == null) throw new SerializationException("An object child requires a name.");
+		value.name = name;
+		value.parent = parent;
+		JsonValue last = frame.last;
+		if(last == null) {
+			parent.child = value;
+		} else {
+			last.next = value;
+			value.prev = last;
+		}
+		parent.size++;
+		frame.last = value;
+	}
+
+	@Nullable
+	private Object finish(Frame frame) {
+		switch(frame.kind) {
+			case CAPTURE:
+				return json.readValue(frame.type, frame.elementType, frame.root);
+			case ARRAY:
+				if(frame.componentType != null) {
+					Array<?> buffer = (Array<?>) frame.result;
+					Object result = java.lang.reflect.Array.newInstance(frame.componentType, buffer.size);
+					for(int i = 0, n = buffer.size; i < n; i++)
+						java.lang.reflect.Array.set(result, i, buffer.get(i));
+					return result;
+				}
+				return frame.result;
+			default:
+				return frame.result;
+		}
+	}
+
+	private void add(Frame parent, @Nullable String name, @Nullable Object value) {
+		switch(parent.kind) {
+			case ROOT -> parent.result = value;
+			case FIELDS -> {
+				FieldMetadata metadata = field(parent, name);
+				if(metadata == null) return;
+				try {
+					metadata.set(parent.result, value);
+				} catch(IllegalAccessException ex) {
+					throw new SerializationException(
+							"Error accessing field: " + metadata.field.getName() + " (" + parent.type.getName() + ")", ex);
+				} catch(RuntimeException runtimeEx) {
+					SerializationException ex = new SerializationException(runtimeEx);
+					ex.addTrace(metadata.field.getName() + " (" + parent.type.getName() + ")");
+					throw ex;
+				}
+			}
+			case MAP -> {
+				Object map = parent.result;
+				if(map instanceof ObjectMap objectMap) objectMap.put(name, value);
+				else if(map instanceof ObjectIntMap intMap) intMap.put(name, (Integer) value);
+				else if(map instanceof ObjectFloatMap floatMap) floatMap.put(name, (Float) value);
+				else if(map instanceof IntMap intMap) intMap.put(Integer.parseInt(name), value);
+				else if(map instanceof LongMap longMap) longMap.put(Long.parseLong(name), value);
+				else if(map instanceof ArrayMap arrayMap) arrayMap.put(name, value);
+				else ((Map) map).put(name, value);
+			}
+			case WRAPPER -> {
+				// the wrapped array was read into the wrapper's collection directly
+			}
+			case ARRAY -> {
+				Object collection = parent.result;
+				if(collection instanceof Array array) array.add(value);
+				else if(collection instanceof Queue queue) queue.addLast(value);
+				else if(collection instanceof ObjectSet set) set.add(value);
+				else if(collection instanceof IntSet set) set.add((Integer) value);
+				else ((Collection) collection).add(value);
+			}
+			default -> throw new IllegalStateException("Frame kind " + parent.kind + " has no children");
+		}
+	}
+
+	/** Sets the value the same way {@link JsonReader} types unquoted values */
+	static private JsonValue toJsonValue(JsonValue jsonValue, String value, boolean unquoted) {
+		if(unquoted) {
+			if(value.equals("true")) {
+				jsonValue.set(true);
+				return jsonValue;
+			} else if(value.equals("false")) {
+				jsonValue.set(false);
+				return jsonValue;
+			} else if(value.equals("null")) {
+				jsonValue.set(null);
+				return jsonValue;
+			}
+			boolean couldBeDouble = false, couldBeLong = true;
+			outer:
+			for(int i = 0, n = value.length(); i < n; i++) {
+				switch(value.charAt(i)) {
+					case '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', '-', '+':
+						break;
+					case '.', 'e', 'E':
+						couldBeDouble = true;
+						couldBeLong = false;
+						break;
+					default:
+						couldBeDouble = false;
+						couldBeLong = false;
+						break outer;
+				}
+			}
+			try {
+				if(couldBeDouble) {
+					jsonValue.set(Double.parseDouble(value), value);
+					return jsonValue;
+				} else if(couldBeLong) {
+					jsonValue.set(Long.parseLong(value), value);
+					return jsonValue;
+				}
+			} catch(NumberFormatException ignored) {
+			}
+		}
+		jsonValue.set(value);
+		return jsonValue;
+	}
+
+	private Frame push(@Nullable String name) {
+		if(depth == frames.size) frames.add(new Frame());
+		Frame frame = frames.get(depth++);
+		frame.name = name;
+		return frame;
+	}
+
+	static private final class Frame {
+		int kind;
+		@Nullable String name;
+		@Nullable Class<?> type;
+		@Nullable Class<?> elementType;
+		// the object, map or collection being filled. for java arrays, the buffered elements
+		@Nullable Object result;
+
+		// FIELDS
+		@Nullable OrderedMap<String, FieldMetadata> fields;
+		// WRAPPER
+		@Nullable String wrappedName;
+		// ARRAY, when reading a java array
+		@Nullable Class<?> componentType;
+		// CAPTURE. last is the last child of current
+		@Nullable JsonValue root, current, last;
+		// SKIP
+		int skipDepth;
+
+		void reset() {
+			kind = ROOT;
+			name = null;
+			type = null;
+			elementType = null;
+			result = null;
+			fields = null;
+			wrappedName = null;
+			componentType = null;
+			root = current = last = null;
+			skipDepth = 0;
+		}
+	}
+}
@@ -94,6 +94,48 @@ public class JsonWriter extends Writer {
 		return this;
 	}
 
+	/** CelestialGDX - writes the number without boxing it, the same as {@link #value(Object)} with an {@link Integer} */
+	public JsonWriter value(int value) throws IOException {
+		requireCommaOrName();
+		writer.write(Integer.toString(value));
+		return this;
+	}
+
+	/** CelestialGDX - writes the number without boxing it, the same as {@link #value(Object)} with a {@link Long} */
+	public JsonWriter value(long value) throws IOException {
+		requireCommaOrName();
+		String string = Long.toString(value);
+		writer.write(quoteLongValues ? outputType.quoteValue(string) : string);
+		return this;
+	}
+
+	/** CelestialGDX - writes the number without boxing it, the same as {@link #value(Object)} with a {@link Float} */
+	public JsonWriter value(float value) throws IOException {
+		requireCommaOrName();
+		long longValue = (long) value;
+		writer.write((double) value == longValue ? Long.toString(longValue) : Float.toString(value));
+		return this;
+	}
+
+	/** CelestialGDX - writes the number without boxing it, the same as {@link #value(Object)} with a {@link Double} */
+	public JsonWriter value(double value) throws IOException {
+		requireCommaOrName();
+		if(quoteLongValues) {
+			writer.write(outputType.quoteValue(Double.toString(value)));
+		} else {
+			long longValue = (long) value;
+			writer.write(value == longValue ? Long.toString(longValue) : Double.toString(value));
+		}
+		return this;
+	}
+
+	/** CelestialGDX - writes the boolean without boxing it */
+	public JsonWriter value(boolean value) throws IOException {
+		requireCommaOrName();
+		writer.write(value ? "true" : "false");
+		return this;
+	}
+
 	/** Writes the specified JSON value, without quoting or escaping. */
 	public JsonWriter json(String json) throws IOException {
 		requireCommaOrName();
@@ -23,6 +23,16 @@ import com.badlogic.gdx.LifecycleListener;
 
 /**
  * Executes tasks in the future on the main loop thread.
+ * <p>
+ * CelestialGDX - scheduled tasks are kept in a binary min-heap ordered by execution time,
+ * so scheduling and cancelling are O(log n) and an update only visits the tasks that are due.
+ * Tasks due at the same time run in the order they were scheduled.
+ * </p>
+ * <p>
+ * CelestialGDX - a timer made with {@link #createManual()} doesn't use the timer thread.
+ * Its clock only moves when the game loop calls {@link #advance(float)}, which runs due tasks
+ * on the calling thread, so it follows the simulation and is deterministic for the same deltas.
+ * </p>
  * @author Nathan Sweet
  */
 @Deprecated(forRemoval = true) // TODO celestialgdx
@@ -57,13 +67,42 @@ public class Timer {
 		}
 	}
 
-	final Array<Task> tasks = new Array(false, 8);
+	// min-heap by (executeTimeMillis, sequence). each task stores its index in heapIndex
+	Task[] heap = new Task[8];
+	int size;
+	private long nextSequence;
+	// due tasks collected by update, handed to the thread in one batch
+	private final Array<Task> dueTasks = new Array<>(false, 8);
 	long stopTimeMillis;
 
+	// manual timers only
+	private final boolean manual;
+	private long clockNanos;
+	private boolean stopped;
+
 	public Timer() {
+		this.manual = false;
 		start();
 	}
 
+	private Timer(boolean manual) {
+		this.manual = manual;
+		if(!manual) start();
+	}
+
+	/**
+	 * CelestialGDX - creates a timer that is advanced by the game loop with {@link #advance(float)}
+	 * instead of the timer thread. Its tasks run on the thread calling {@link #advance}.
+	 */
+	static public Timer createManual() {
+		return new Timer(true);
+	}
+
+	/** @return whether this timer was created with {@link #createManual()} */
+	public boolean isManual() {
+		return manual;
+	}
+
 	/** Schedules a task to occur once as soon as possible, but not sooner than the start of the next frame. */
 	public Task postTask(Task task) {
 		return scheduleTask(task, 0, 0, 0);
@@ -84,28 +123,119 @@ public class Timer {
 	 * @param repeatCount If negative, the task will repeat forever.
 	 */
 	public Task scheduleTask(Task task, float delaySeconds, float intervalSeconds, int repeatCount) {
+		if(manual) {
+			synchronized(this) {
+				schedule(task, getClockMillis() + (long) (delaySeconds * 1000), intervalSeconds, repeatCount);
+			}
+			return task;
+		}
+		if(task.app == null) throw new IllegalStateException("Gdx.app not available.");
 		synchronized(threadLock) {
 			synchronized(this) {
-				synchronized(task) {
-					if(task.timer != null)
-						throw new IllegalArgumentException("The same task may not be scheduled twice.");
-					task.timer = this;
-					long timeMillis = System.nanoTime() / 1000000;
-					long executeTimeMillis = timeMillis + (long) (delaySeconds * 1000);
-					if(thread.pauseTimeMillis > 0) executeTimeMillis -= timeMillis - thread.pauseTimeMillis;
-					task.executeTimeMillis = executeTimeMillis;
-					task.intervalMillis = (long) (intervalSeconds * 1000);
-					task.repeatCount = repeatCount;
-					tasks.add(task);
-				}
+				long timeMillis = System.nanoTime() / 1000000;
+				long executeTimeMillis = timeMillis + (long) (delaySeconds * 1000);
+				if(thread.pauseTimeMillis > 0) executeTimeMillis -= timeMillis - thread.pauseTimeMillis;
+				schedule(task, executeTimeMillis, intervalSeconds, repeatCount);
 			}
 			threadLock.notifyAll();
 		}
 		return task;
 	}
 
-	/** Stops the timer if it was started. Tasks will not be executed while stopped. */
+	private void schedule(Task task, long executeTimeMillis, float intervalSeconds, int repeatCount) {
+		synchronized(task) {
+			if(task.timer != null)
+				throw new IllegalArgumentException("The same task may not be scheduled twice.");
+			task.timer = this;
+			task.executeTimeMillis = executeTimeMillis;
+			task.intervalMillis = (long) (intervalSeconds * 1000);
+			task.repeatCount = repeatCount;
+			add(task);
+		}
+	}
+
+	/**
+	 * CelestialGDX - advances the clock of a manual timer and runs the tasks that became due on the calling thread,
+	 * in order of execution time. A repeating task runs once for every interval that passed,
+	 * or once per advance if its interval is 0.
+	 * Tasks scheduled while advancing run on the next advance at the earliest. Does nothing while stopped.
+	 * @throws IllegalStateException if this timer isn't manual
+	 */
+	public void advance(float deltaSeconds) {
+		advanceNanos((long) (deltaSeconds * 1_000_000_000d));
+	}
+
+	/**
+	 * CelestialGDX - {@link #advance(float)} with the delta in nanoseconds,
+	 * for callers that keep their own integer clock.
+	 */
+	public void advanceNanos(long deltaNanos) {
+		if(!manual) throw new IllegalStateException("Only manual timers can be advanced.");
+		if(deltaNanos < 0) throw new IllegalArgumentException("deltaNanos cannot be negative: " + deltaNanos);
+
+		long timeMillis, sequenceLimit;
+		synchronized(this) {
+			if(stopped) return;
+			clockNanos += deltaNanos;
+			timeMillis = getClockMillis();
+			sequenceLimit = nextSequence;
+		}
+		// tasks are run without holding the timer so they can schedule and cancel freely
+		while(true) {
+			Task task;
+			synchronized(this) {
+				if(stopped) return;
+				task = pollDue(timeMillis, sequenceLimit);
+			}
+			if(task == null) break;
+			task.run();
+		}
+	}
+
+	private Task pollDue(long timeMillis, long sequenceLimit) {
+		if(size == 0) return null;
+		Task task = heap[0];
+		synchronized(task) {
+			if(task.executeTimeMillis > timeMillis || task.sequence >= sequenceLimit) return null;
+			if(task.repeatCount == 0) {
+				removeAt(0);
+				task.timer = null;
+			} else {
+				if(task.intervalMillis > 0) {
+					// keep the sequence so that missed intervals are caught up in this advance
+					task.executeTimeMillis += task.intervalMillis;
+				} else {
+					task.executeTimeMillis = timeMillis;
+					task.sequence = nextSequence++;
+				}
+				if(task.repeatCount > 0) task.repeatCount--;
+				siftDown(0);
+			}
+		}
+		return task;
+	}
+
+	/**
+	 * CelestialGDX - the clock of a manual timer, which starts at 0 and only moves with {@link #advance}.
+	 * {@link Task#getExecuteTimeMillis()} of tasks on a manual timer is relative to this clock.
+	 * @throws IllegalStateException if this timer isn't manual
+	 */
+	public synchronized long getClockMillis() {
+		if(!manual) throw new IllegalStateException("Only manual timers have a clock.");
+		return clockNanos / 1_000_000;
+	}
+
+	/**
+	 * Stops the timer if it was started. Tasks will not be executed while stopped.
+	 * A manual timer's clock doesn't move while stopped.
+	 */
 	public void stop() {
+		if(manual) {
+			synchronized(this) {
+				stopped = true;
+			}
+			return;
+		}
 		synchronized(threadLock) {
 			if(thread().instances.removeValue(this, true)) stopTimeMillis = System.nanoTime() / 1000000;
 		}
@@ -113,6 +243,12 @@ public class Timer {
 
 	/** Starts the timer if it was stopped. Tasks are delayed by the time passed while stopped. */
 	public void start() {
+		if(manual) {
+			synchronized(this) {
+				stopped = false;
+			}
+			return;
+		}
 		synchronized(threadLock) {
 			TimerThread thread = thread();
 			Array<Timer> instances = thread.instances;
@@ -128,17 +264,31 @@ public class Timer {
 
 	/** Cancels all tasks. */
 	public void clear() {
+		if(manual) {
+			synchronized(this) {
+				for(int i = 0, n = size; i < n; i++) {
+					Task task = heap[i];
+					task.heapIndex = -1;
+					task.reset();
+					heap[i] = null;
+				}
+				size = 0;
+			}
+			return;
+		}
 		synchronized(threadLock) {
 			TimerThread thread = thread();
 			synchronized(this) {
 				synchronized(thread.postedTasks) {
-					for(int i = 0, n = tasks.size; i < n; i++) {
-						Task task = tasks.get(i);
+					for(int i = 0, n = size; i < n; i++) {
+						Task task = heap[i];
 						thread.removePostedTask(task);
+						task.heapIndex = -1;
 						task.reset();
+						heap[i] = null;
 					}
 				}
-				tasks.clear();
+				size = 0;
 			}
 		}
 	}
@@ -148,43 +298,126 @@ public class Timer {
 	 * instance to prevent tasks being added, removed, or updated.
 	 */
 	public synchronized boolean isEmpty() {
-		return tasks.size == 0;
+		return size == 0;
 	}
 
 	synchronized long update(TimerThread thread, long timeMillis, long waitMillis) {
-		for(int i = 0, n = tasks.size; i < n; i++) {
-			Task task = tasks.get(i);
+		Array<Task> due = this.dueTasks;
+		// tasks rescheduled by this update wait for the next one, otherwise a repeating task
+		// with an interval under a millisecond would be due again forever
+		long sequenceLimit = nextSequence;
+		while(size > 0) {
+			Task task = heap[0];
 			synchronized(task) {
-				if(task.executeTimeMillis > timeMillis) {
-					waitMillis = Math.min(waitMillis, task.executeTimeMillis - timeMillis);
-					continue;
+				if(task.executeTimeMillis > timeMillis || task.sequence >= sequenceLimit) {
+					waitMillis = Math.min(waitMillis, Math.max(0, task.executeTimeMillis - timeMillis));
+					break;
 				}
 				if(task.repeatCount == 0) {
+					removeAt(0);
 					task.timer = null;
-					tasks.removeIndex(i);
-					i--;
-					n--;
 				} else {
 					task.executeTimeMillis = timeMillis + task.intervalMillis;
-					waitMillis = Math.min(waitMillis, task.intervalMillis);
+					task.sequence = nextSequence++;
 					if(task.repeatCount > 0) task.repeatCount--;
+					siftDown(0);
 				}
-				thread.addPostedTask(task);
+				due.add(task);
 			}
 		}
+		if(due.notEmpty()) {
+			thread.addPostedTasks(due);
+			due.clear();
+		}
 		return waitMillis;
 	}
 
 	/** Adds the specified delay to all tasks. */
 	public synchronized void delay(long delayMillis) {
-		for(int i = 0, n = tasks.size; i < n; i++) {
-			Task task = tasks.get(i);
+		// every task moves by the same amount, so the heap order doesn't change
+		for(int i = 0, n = size; i < n; i++) {
+			Task task = heap[i];
 			synchronized(task) {
 				task.executeTimeMillis += delayMillis;
 			}
 		}
 	}
 
+	// region heap, must be synchronized on this timer
+	private void add(Task task) {
+		if(size == heap.length) {
+			Task[] newHeap = new Task[heap.length << 1];
+			System.arraycopy(heap, 0, newHeap, 0, size);
+			heap = newHeap;
+		}
+		task.sequence = nextSequence++;
+		task.heapIndex = size;
+		heap[size++] = task;
+		siftUp(task.heapIndex);
+	}
+
+	void remove(Task task) {
+		int index = task.heapIndex;
+		if(index < 0 || index >= size || heap[index] != task) return;
+		removeAt(index);
+	}
+
+	private void removeAt(int index) {
+		Task removed = heap[index];
+		removed.heapIndex = -1;
+		int last = --size;
+		if(index == last) {
+			heap[last] = null;
+			return;
+		}
+		Task moved = heap[last];
+		heap[last] = null;
+		heap[index] = moved;
+		moved.heapIndex = index;
+		siftDown(index);
+		if(heap[index] == moved) siftUp(index);
+	}
+
+	private void siftUp(int index) {
+		Task task = heap[index];
+		while(index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			Task parent = heap[parentIndex];
+			if(!before(task, parent)) break;
+			heap[index] = parent;
+			parent.heapIndex = index;
+			index = parentIndex;
+		}
+		heap[index] = task;
+		task.heapIndex = index;
+	}
+
+	private void siftDown(int index) {
+		Task task = heap[index];
+		int half = size >>> 1;
+		while(index < half) {
+			int childIndex = (index << 1) + 1;
+			Task child = heap[childIndex];
+			int rightIndex = childIndex + 1;
+			if(rightIndex < size && before(heap[rightIndex], child)) {
+				childIndex = rightIndex;
+				child = heap[rightIndex];
+			}
+			if(!before(child, task)) break;
+			heap[index] = child;
+			child.heapIndex = index;
+			index = childIndex;
+		}
+		heap[index] = task;
+		task.heapIndex = index;
+	}
+
+	private static boolean before(Task a, Task b) {
+		if(a.executeTimeMillis != b.executeTimeMillis) return a.executeTimeMillis < b.executeTimeMillis;
+		return a.sequence < b.sequence;
+	}
+	// endregion
+
 	/**
 	 * Schedules a task on {@link #instance}.
 	 * @see #postTask(Task)
@@ -226,10 +459,14 @@ public class Timer {
 		long executeTimeMillis, intervalMillis;
 		int repeatCount;
 		volatile Timer timer;
+		// position in the timer's heap and tie-breaker for equal execution times
+		int heapIndex = -1;
+		long sequence;
 
 		public Task() {
-			app = Gdx.app; // Store which app to postRunnable (eg for multiple LwjglAWTCanvas).
-			if(app == null) throw new IllegalStateException("Gdx.app not available.");
+			// Store which app to postRunnable (eg for multiple LwjglAWTCanvas).
+			// celestialgdx - checked when scheduled on a threaded timer, manual timers don't need it
+			app = Gdx.app;
 		}
 
 		/**
@@ -241,11 +478,12 @@ public class Timer {
 		/** Cancels the task. It will not be executed until it is scheduled again. This method can be called at any time. */
 		public void cancel() {
 			synchronized(threadLock) {
-				thread().removePostedTask(this);
+				// tasks are only posted by a running timer thread, don't start one just to cancel
+				if(thread != null) thread.removePostedTask(this);
 				Timer timer = this.timer;
 				if(timer != null) {
 					synchronized(timer) {
-						timer.tasks.removeValue(this, true);
+						timer.remove(this);
 						reset();
 					}
 				} else
@@ -347,10 +585,11 @@ public class Timer {
 			runTasks.clear();
 		}
 
-		void addPostedTask(Task task) {
+		void addPostedTasks(Array<Task> tasks) {
 			synchronized(postedTasks) {
-				if(postedTasks.isEmpty()) task.app.postRunnable(runPostedTasks);
-				postedTasks.add(task);
+				// one runnable delivers every task posted before it runs
+				if(postedTasks.isEmpty()) tasks.first().app.postRunnable(runPostedTasks);
+				postedTasks.addAll(tasks);
 			}
 		}
 
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -99,7 +100,7 @@ public class AssetLoadingContext<T> {
 		requireActive();
 
 		var asset = new AssetManager.Asset(desc.fileName, desc.type, result, refCount);
-		manager.assets.put(desc.fileName, asset);
+		manager.putAsset(asset);
 		manager.assetDependencies.put(desc.fileName, dependencies);
 
 		active = false;
@@ -144,7 +145,7 @@ public class AssetLoadingContext<T> {
 
 		// it's us..we're the dependency
 		var asset = new AssetManager.Asset(path, type, object, new AtomicInteger(1));
-		manager.assets.put(path, asset);
+		manager.putAsset(asset);
 		manager.assetDependencies.put(path, List.of(desc.fileName));
 
 		createdDependencies.add(path);
@@ -190,6 +191,31 @@ public class AssetLoadingContext<T> {
 		}
 	}
 
+	/**
+	 * CelestialGDX - runs the tasks on the work pool at the same time and waits for all of them.
+	 * If one fails, the ones that haven't started are cancelled.
+	 * Must not be called from a work task, which would wait for tasks that may be queued behind it.
+	 */
+	public void awaitAllWork(List<? extends Runnable> work) {
+		requireActive();
+		List<Future<?>> futures = new ArrayList<>(work.size());
+		try {
+			for(Runnable task : work) {
+				futures.add(manager.workExecutor.submit(task));
+			}
+			for(Future<?> future : futures) {
+				future.get();
+			}
+		} catch(InterruptedException | ExecutionException e) {
+			for(Future<?> future : futures) {
+				future.cancel(false);
+			}
+			throw new RuntimeException("Error performing work task", e);
+		} finally {
+			requireActive();
+		}
+	}
+
 	private static <T> T cast(Object obj) {
 		return (T) obj;
 	}
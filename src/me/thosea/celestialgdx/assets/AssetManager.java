@@ -23,22 +23,26 @@ import com.badlogic.gdx.assets.loaders.TextureLoader;
 import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IdentityMap;
 import me.thosea.celestialgdx.core.CelestialGdx;
 import me.thosea.celestialgdx.graphics.Shader;
 import me.thosea.celestialgdx.graphics.Texture;
 import me.thosea.celestialgdx.image.Pixmap;
 import me.thosea.celestialgdx.log.GdxLogger;
+import me.thosea.celestialgdx.maps.ObjectTemplate;
 import me.thosea.celestialgdx.maps.TiledMap;
 import me.thosea.celestialgdx.maps.TiledProject;
 import me.thosea.celestialgdx.maps.Tileset;
+import me.thosea.celestialgdx.maps.loader.CompiledMapLoader;
 import me.thosea.celestialgdx.maps.loader.TiledProjectLoader;
-import me.thosea.celestialgdx.maps.loader.TmxMapLoader;
 import me.thosea.celestialgdx.maps.loader.TsxTilesetLoader;
+import me.thosea.celestialgdx.maps.loader.TxTemplateLoader;
 import me.thosea.celestialgdx.utils.Disposable;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -59,6 +63,9 @@ public class AssetManager implements Disposable {
 
 		final AtomicInteger refCount;
 
+		// other assets with the same object, older and newer, guarded by indexLock
+		Asset olderSameObject, newerSameObject;
+
 		Asset(String fileName, Class<?> type, Object object, AtomicInteger refCount) {
 			this.fileName = fileName;
 			this.type = type;
@@ -72,10 +79,16 @@ public class AssetManager implements Disposable {
 	final Map<String, Asset> assets = new ConcurrentHashMap<>();
 	final Map<String, List<String>> assetDependencies = new ConcurrentHashMap<>();
 
+	// reverse lookups, only modified through putAsset/removeAsset while holding indexLock's write lock
+	private final IdentityMap<Object, Asset> assetsByObject = new IdentityMap<>();
+	private final Map<Class<?>, Set<Asset>> assetsByType = new ConcurrentHashMap<>();
+	private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
 	private final Map<Class<?>, AssetLoader<?, ?>> loaders = new ConcurrentHashMap<>();
 	final Map<String, AssetLoadingContext<?>> tasks = new ConcurrentHashMap<>();
 
-	final ExecutorService workExecutor = Executors.newFixedThreadPool(2, runnable -> {
+	// celestialgdx - one core is left for the game thread, loaders such as TmxMapLoader split work over the rest
+	final ExecutorService workExecutor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
 		Thread thread = Executors.defaultThreadFactory().newThread(runnable);
 		thread.setDaemon(true);
 		return thread;
@@ -119,7 +132,8 @@ public class AssetManager implements Disposable {
 
 			setLoader(TiledProject.class, new TiledProjectLoader(resolver));
 			setLoader(Tileset.class, new TsxTilesetLoader(resolver));
-			setLoader(TiledMap.class, new TmxMapLoader(resolver));
+			setLoader(ObjectTemplate.class, new TxTemplateLoader(resolver));
+			setLoader(TiledMap.class, new CompiledMapLoader(resolver)); // also loads tmx
 		}
 	}
 
@@ -196,9 +210,12 @@ public class AssetManager implements Disposable {
 	 */
 	public <T> Array<T> getAll(Class<T> type, Array<T> out) {
 		this.requireNotDisposed();
-		assets.values().forEach(asset -> {
-			if(asset.type == type) out.add((T) asset.object);
-		});
+		Set<Asset> ofType = assetsByType.get(type);
+		if(ofType != null) {
+			for(Asset asset : ofType) {
+				out.add((T) asset.object);
+			}
+		}
 		return out;
 	}
 
@@ -216,10 +233,9 @@ public class AssetManager implements Disposable {
 	public boolean contains(String fileName, Class<?> type) {
 		if(isLoaded(fileName, type)) return true;
 
-		for(AssetLoadingContext<?> ctx : tasks.values()) {
-			if(ctx.desc.type == type && ctx.desc.fileName.equals(fileName)) return true;
-		}
-		return false;
+		// tasks are keyed by file name, so there can only be one
+		AssetLoadingContext<?> ctx = tasks.get(fileName);
+		return ctx != null && ctx.desc.type == type;
 	}
 
 	/**
@@ -254,7 +270,7 @@ public class AssetManager implements Disposable {
 			if(asset.object instanceof Disposable disposable) disposable.dispose();
 
 			// remove the asset from the manager.
-			assets.remove(fileName);
+			removeAsset(fileName);
 			assetDependencies.remove(fileName);
 		} else {
 			logger.info("Unload (decrement): " + fileName);
@@ -266,9 +282,7 @@ public class AssetManager implements Disposable {
 	 * @return whether the asset is contained in this manager
 	 */
 	public <T> boolean containsAsset(T object) {
-		for(Asset asset : assets.values())
-			if(asset.object == object) return true;
-		return false;
+		return findAsset(object) != null;
 	}
 
 	/**
@@ -276,9 +290,18 @@ public class AssetManager implements Disposable {
 	 * @return the filename of the asset or null
 	 */
 	public <T> String getAssetFileName(T object) {
-		for(Asset asset : assets.values())
-			if(asset.object == object) return asset.fileName;
-		return null;
+		Asset asset = findAsset(object);
+		return asset != null ? asset.fileName : null;
+	}
+
+	private @Nullable Asset findAsset(Object object) {
+		if(object == null) return null;
+		indexLock.readLock().lock();
+		try {
+			return assetsByObject.get(object);
+		} finally {
+			indexLock.readLock().unlock();
+		}
 	}
 
 	/**
@@ -427,7 +450,66 @@ public class AssetManager implements Disposable {
 
 	public <T> void addAsset(final String fileName, Class<T> type, T object) {
 		this.requireNotDisposed();
-		assets.put(fileName, new Asset(fileName, type, object, new AtomicInteger(1)));
+		putAsset(new Asset(fileName, type, object, new AtomicInteger(1)));
+	}
+
+	/**
+	 * Stores a loaded asset and updates the reverse lookups.
+	 * @return the asset previously stored under the same file name, or null
+	 */
+	Asset putAsset(Asset asset) {
+		indexLock.writeLock().lock();
+		try {
+			Asset old = assets.put(asset.fileName, asset);
+			if(old != null) unindex(old);
+
+			if(asset.object != null) {
+				// the newest name is looked up, the older ones take over once it's removed
+				Asset older = assetsByObject.put(asset.object, asset);
+				if(older != null) {
+					asset.olderSameObject = older;
+					older.newerSameObject = asset;
+				}
+			}
+			assetsByType.computeIfAbsent(asset.type, type -> ConcurrentHashMap.newKeySet()).add(asset);
+			return old;
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a loaded asset and its reverse lookups. Does not dispose it.
+	 * @return the removed asset, or null if none was stored under the file name
+	 */
+	Asset removeAsset(String fileName) {
+		indexLock.writeLock().lock();
+		try {
+			Asset asset = assets.remove(fileName);
+			if(asset != null) unindex(asset);
+			return asset;
+		} finally {
+			indexLock.writeLock().unlock();
+		}
+	}
+
+	private void unindex(Asset asset) {
+		if(asset.object != null) {
+			Asset older = asset.olderSameObject, newer = asset.newerSameObject;
+			if(older != null) older.newerSameObject = newer;
+			if(newer != null) {
+				newer.olderSameObject = older;
+			} else if(older != null) {
+				assetsByObject.put(asset.object, older);
+			} else {
+				assetsByObject.remove(asset.object);
+			}
+			asset.olderSameObject = null;
+			asset.newerSameObject = null;
+		}
+
+		Set<Asset> ofType = assetsByType.get(asset.type);
+		if(ofType != null) ofType.remove(asset);
 	}
 
 	/**
@@ -483,7 +565,14 @@ public class AssetManager implements Disposable {
 	public void clear() {
 		tasks.values().forEach(AssetLoadingContext::cancel);
 		tasks.clear();
-		assets.clear();
+		indexLock.writeLock().lock();
+		try {
+			assets.clear();
+			assetsByObject.clear();
+			assetsByType.clear();
+		} finally {
+			indexLock.writeLock().unlock();
+		}
 		assetDependencies.clear();
 
 		writeCount(() -> {
@@ -32,9 +32,6 @@ public final class Framebuffer implements Disposable {
 	/** The default framebuffer created from the window. Cannot be disposed. */
 	public static final Framebuffer DEFAULT = new Framebuffer(/*handle*/ 0);
 
-	private static int lastReadBuffer = 0; // GL_READ_FRAMEBUFFER
-	private static int lastDrawBuffer = 0; // GL_DRAW_FRAMEBUFFER
-
 	private final int handle;
 	private int target = -1;
 
@@ -52,28 +49,24 @@ public final class Framebuffer implements Disposable {
 
 	public void bindForRead() {
 		requireNotDisposed();
-		glBindFramebuffer(this.target = GL_READ_FRAMEBUFFER, this.handle);
-		lastReadBuffer = this.handle;
+		GlState.current().bindFramebuffer(this.target = GL_READ_FRAMEBUFFER, this.handle);
 	}
 	public void bindForDraw() {
 		requireNotDisposed();
-		glBindFramebuffer(this.target = GL_DRAW_FRAMEBUFFER, this.handle);
-		lastDrawBuffer = this.handle;
+		GlState.current().bindFramebuffer(this.target = GL_DRAW_FRAMEBUFFER, this.handle);
 	}
 	public void bind() {
 		requireNotDisposed();
-		glBindFramebuffer(this.target = GL_FRAMEBUFFER, this.handle);
-		lastReadBuffer = this.handle;
-		lastDrawBuffer = this.handle;
+		GlState.current().bindFramebuffer(this.target = GL_FRAMEBUFFER, this.handle);
 	}
 
 	public void requireReadBound() {
 		requireNotDisposed();
-		if(lastReadBuffer != this.handle) throw new IllegalStateException("the buffer is not bound for reading");
+		if(GlState.current().getReadFramebuffer() != this.handle) throw new IllegalStateException("the buffer is not bound for reading");
 	}
 	public void requireDrawBound() {
 		requireNotDisposed();
-		if(lastDrawBuffer != this.handle) throw new IllegalStateException("the buffer is not bound for drawing");
+		if(GlState.current().getDrawFramebuffer() != this.handle) throw new IllegalStateException("the buffer is not bound for drawing");
 	}
 
 	public void attachColor2D(Texture texture) {
@@ -221,8 +214,7 @@ public final class Framebuffer implements Disposable {
 		}
 		this.requireNotDisposed();
 		glDeleteFramebuffers(this.handle);
-		if(lastReadBuffer == this.handle) lastReadBuffer = 0;
-		if(lastDrawBuffer == this.handle) lastDrawBuffer = 0;
+		GlState.current().framebufferDeleted(this.handle);
 		disposed = true;
 	}
 
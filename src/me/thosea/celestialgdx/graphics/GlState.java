@@ -0,0 +1,292 @@
+package me.thosea.celestialgdx.graphics;
+
+import me.thosea.celestialgdx.graphics.mesh.Mesh;
+import me.thosea.celestialgdx.graphics.mesh.Vbo;
+import me.thosea.celestialgdx.window.Window;
+import org.lwjgl.opengl.GL33;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import static org.lwjgl.opengl.GL33.*;
+
+/**
+ * CelestialGDX -
+ * Tracks the binding state of an OpenGL context and skips binds that wouldn't change anything.
+ * {@link Shader}, {@link Texture}, {@link Mesh}, {@link Vbo} and {@link Framebuffer} bind through the
+ * state of the current context, which is switched by {@link Window#bind()}.
+ * <p>
+ * The tracked state is the program, vertex array, {@link GL33#GL_ARRAY_BUFFER} binding,
+ * active texture unit, texture bound on each unit and the read/draw framebuffers.
+ * If you change any of them by calling OpenGL directly, call {@link #invalidate()}
+ * afterward so the next bind is issued again.
+ * </p>
+ * <p>
+ * A new state matches a new context, where nothing is bound and texture unit 0 is active.
+ * The calls are made through a {@link Backend}, which can be replaced to record them without a context.
+ * </p>
+ * <p>
+ * {@link #getIssuedCalls()} and {@link #getElidedCalls()} count the bind calls made and skipped
+ * since the last {@link #resetCounters()}.
+ * </p>
+ * @author thosea
+ */
+public final class GlState {
+	/** The texture unit limit enforced by {@link Texture#bindTexture(int)} */
+	public static final int MAX_TEXTURE_UNITS = 32;
+
+	private static final int UNKNOWN = -1;
+
+	private static GlState current = new GlState();
+
+	/** The OpenGL calls made by the state, {@link #OPENGL} sends them to the current context */
+	public interface Backend {
+		Backend OPENGL = new Backend() {
+			@Override
+			public void useProgram(int program) {
+				glUseProgram(program);
+			}
+			@Override
+			public void bindVertexArray(int vertexArray) {
+				glBindVertexArray(vertexArray);
+			}
+			@Override
+			public void bindBuffer(int target, int buffer) {
+				glBindBuffer(target, buffer);
+			}
+			@Override
+			public void activeTexture(int texture) {
+				glActiveTexture(texture);
+			}
+			@Override
+			public void bindTexture(int target, int texture) {
+				glBindTexture(target, texture);
+			}
+			@Override
+			public void bindFramebuffer(int target, int framebuffer) {
+				glBindFramebuffer(target, framebuffer);
+			}
+			@Override
+			public int getInteger(int name) {
+				return glGetInteger(name);
+			}
+		};
+
+		void useProgram(int program);
+		void bindVertexArray(int vertexArray);
+		void bindBuffer(int target, int buffer);
+		/** @param texture {@link GL33#GL_TEXTURE0} plus the unit */
+		void activeTexture(int texture);
+		void bindTexture(int target, int texture);
+		void bindFramebuffer(int target, int framebuffer);
+		int getInteger(int name);
+	}
+
+	private final Backend gl;
+
+	private int program;
+	private int vertexArray;
+	private int arrayBuffer;
+	private int readFramebuffer;
+	private int drawFramebuffer;
+
+	private int activeUnit;
+	private final int[] textureTargets = new int[MAX_TEXTURE_UNITS];
+	private final int[] textures = new int[MAX_TEXTURE_UNITS];
+
+	private long issuedCalls = 0;
+	private long elidedCalls = 0;
+
+	public GlState() {
+		this(Backend.OPENGL);
+	}
+
+	/** @param gl where the calls are made, such as a fake recording them in tests */
+	public GlState(Backend gl) {
+		this.gl = Objects.requireNonNull(gl);
+		// a unit has a texture bound for every target but only one is tracked, so textures start unknown
+		Arrays.fill(textureTargets, UNKNOWN);
+		Arrays.fill(textures, UNKNOWN);
+	}
+
+	/** @return the state of the current context */
+	public static GlState current() {
+		return current;
+	}
+
+	/**
+	 * Sets the state of the current context.
+	 * Called by {@link Window} when its context is made current.
+	 */
+	public static void makeCurrent(GlState state) {
+		current = Objects.requireNonNull(state);
+	}
+
+	/**
+	 * Forgets all tracked bindings, so the next bind of each kind is always issued.
+	 * Call this after changing bindings through OpenGL directly.
+	 */
+	public void invalidate() {
+		this.program = UNKNOWN;
+		this.vertexArray = UNKNOWN;
+		this.arrayBuffer = UNKNOWN;
+		this.readFramebuffer = UNKNOWN;
+		this.drawFramebuffer = UNKNOWN;
+		this.activeUnit = UNKNOWN;
+		Arrays.fill(textureTargets, UNKNOWN);
+		Arrays.fill(textures, UNKNOWN);
+	}
+
+	// region program
+	public void useProgram(int program) {
+		if(this.program == program) {
+			elidedCalls++;
+			return;
+		}
+		gl.useProgram(program);
+		this.program = program;
+		issuedCalls++;
+	}
+	public int getProgram() {
+		return program;
+	}
+	/** Call when a program is deleted so its handle can't be mistaken as bound after reuse */
+	public void programDeleted(int program) {
+		if(this.program == program) this.program = 0;
+	}
+	// endregion
+
+	// region vertex arrays and buffers
+	public void bindVertexArray(int vertexArray) {
+		if(this.vertexArray == vertexArray) {
+			elidedCalls++;
+			return;
+		}
+		gl.bindVertexArray(vertexArray);
+		this.vertexArray = vertexArray;
+		issuedCalls++;
+	}
+	public int getVertexArray() {
+		return vertexArray;
+	}
+	public void vertexArrayDeleted(int vertexArray) {
+		if(this.vertexArray == vertexArray) this.vertexArray = 0;
+	}
+
+	public void bindArrayBuffer(int buffer) {
+		if(this.arrayBuffer == buffer) {
+			elidedCalls++;
+			return;
+		}
+		gl.bindBuffer(GL_ARRAY_BUFFER, buffer);
+		this.arrayBuffer = buffer;
+		issuedCalls++;
+	}
+	public int getArrayBuffer() {
+		return arrayBuffer;
+	}
+	public void arrayBufferDeleted(int buffer) {
+		if(this.arrayBuffer == buffer) this.arrayBuffer = 0;
+	}
+	// endregion
+
+	// region textures
+	public void activeTexture(int unit) {
+		checkUnit(unit);
+		if(this.activeUnit == unit) {
+			elidedCalls++;
+			return;
+		}
+		gl.activeTexture(GL_TEXTURE0 + unit);
+		this.activeUnit = unit;
+		issuedCalls++;
+	}
+	/** @return the active texture unit, or -1 if unknown */
+	public int getActiveUnit() {
+		return activeUnit;
+	}
+
+	/** Binds the texture to the active unit */
+	public void bindTexture(int target, int texture) {
+		if(this.activeUnit == UNKNOWN) {
+			this.activeUnit = gl.getInteger(GL_ACTIVE_TEXTURE) - GL_TEXTURE0;
+		}
+		int unit = this.activeUnit;
+		if(textures[unit] == texture && textureTargets[unit] == target) {
+			elidedCalls++;
+			return;
+		}
+		gl.bindTexture(target, texture);
+		textures[unit] = texture;
+		textureTargets[unit] = target;
+		issuedCalls++;
+	}
+	/** Activates the unit and binds the texture to it */
+	public void bindTexture(int unit, int target, int texture) {
+		activeTexture(unit);
+		bindTexture(target, texture);
+	}
+	/** @return the texture last bound to the unit, or -1 if unknown */
+	public int getTexture(int unit) {
+		checkUnit(unit);
+		return textures[unit];
+	}
+	/** @return the texture last bound to the active unit, or -1 if unknown */
+	public int getBoundTexture() {
+		return activeUnit == UNKNOWN ? UNKNOWN : textures[activeUnit];
+	}
+	public void textureDeleted(int texture) {
+		// deleting a texture unbinds it from every unit
+		for(int i = 0; i < MAX_TEXTURE_UNITS; i++) {
+			if(textures[i] == texture) textures[i] = 0;
+		}
+	}
+
+	private static void checkUnit(int unit) {
+		if(unit < 0 || unit >= MAX_TEXTURE_UNITS) {
+			throw new IllegalArgumentException("texture unit must be between 0 and " + (MAX_TEXTURE_UNITS - 1));
+		}
+	}
+	// endregion
+
+	// region framebuffers
+	/**
+	 * @param target {@link GL33#GL_FRAMEBUFFER}, {@link GL33#GL_READ_FRAMEBUFFER} or {@link GL33#GL_DRAW_FRAMEBUFFER}
+	 */
+	public void bindFramebuffer(int target, int framebuffer) {
+		boolean read = target == GL_FRAMEBUFFER || target == GL_READ_FRAMEBUFFER;
+		boolean draw = target == GL_FRAMEBUFFER || target == GL_DRAW_FRAMEBUFFER;
+		if((!read || readFramebuffer == framebuffer) && (!draw || drawFramebuffer == framebuffer)) {
+			elidedCalls++;
+			return;
+		}
+		gl.bindFramebuffer(target, framebuffer);
+		if(read) this.readFramebuffer = framebuffer;
+		if(draw) this.drawFramebuffer = framebuffer;
+		issuedCalls++;
+	}
+	public int getReadFramebuffer() {
+		return readFramebuffer;
+	}
+	public int getDrawFramebuffer() {
+		return drawFramebuffer;
+	}
+	public void framebufferDeleted(int framebuffer) {
+		if(this.readFramebuffer == framebuffer) this.readFramebuffer = 0;
+		if(this.drawFramebuffer == framebuffer) this.drawFramebuffer = 0;
+	}
+	// endregion
+
+	/** @return the amount of bind calls sent to OpenGL since the last {@link #resetCounters()} */
+	public long getIssuedCalls() {
+		return issuedCalls;
+	}
+	/** @return the amount of bind calls skipped since the last {@link #resetCounters()} */
+	public long getElidedCalls() {
+		return elidedCalls;
+	}
+	public void resetCounters() {
+		this.issuedCalls = 0;
+		this.elidedCalls = 0;
+	}
+}
@@ -2,6 +2,7 @@ package me.thosea.celestialgdx.graphics;
 
 import me.thosea.celestialgdx.files.FileHandle;
 import me.thosea.celestialgdx.utils.Disposable;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Matrix2fc;
 import org.joml.Matrix3fc;
 import org.joml.Matrix3x2fc;
@@ -18,6 +19,8 @@ import java.util.Objects;
 
 import static org.lwjgl.opengl.GL20.glGetUniformLocation;
 import static org.lwjgl.opengl.GL33.*;
+import static org.lwjgl.opengl.GL41.GL_PROGRAM_BINARY_RETRIEVABLE_HINT;
+import static org.lwjgl.opengl.GL41.glProgramParameteri;
 import static org.lwjgl.system.MemoryStack.stackPush;
 
 /**
@@ -32,11 +35,15 @@ import static org.lwjgl.system.MemoryStack.stackPush;
  * <p>
  * A shader must be disposed via a call to {@link Shader#dispose()} when it is no longer needed.
  * </p>
+ * <p>
+ * If a {@link ShaderBinaryCache} is set with {@link #setBinaryCache(ShaderBinaryCache)},
+ * compiling first tries to restore a previously linked binary of the same sources.
+ * </p>
  * @author thosea
  */
 @SuppressWarnings("unused")
 public abstract class Shader implements Disposable {
-	private static int lastId = 0;
+	@Nullable private static ShaderBinaryCache binaryCache;
 
 	private final List<Uniform> uniforms = new ArrayList<>();
 	private final List<Uniform> uniformsView = Collections.unmodifiableList(uniforms);
@@ -62,19 +69,16 @@ public abstract class Shader implements Disposable {
 		Objects.requireNonNull(vertexShader);
 		Objects.requireNonNull(fragmentShader);
 
-		int vertexId = compile("vertex", GL_VERTEX_SHADER, vertexShader, /*deleteOnFail*/ -1);
-		int fragmentId = compile("fragment", GL_FRAGMENT_SHADER, fragmentShader, /*deleteOnFail*/ vertexId);
-
-		int newId = glCreateProgram();
-		glAttachShader(newId, vertexId);
-		glAttachShader(newId, fragmentId);
-		glLinkProgram(newId);
-		glDeleteShader(vertexId);
-		glDeleteShader(fragmentId);
-
-		if(glGetProgrami(newId, GL_LINK_STATUS) == 0) {
-			String error = glGetProgramInfoLog(newId);
-			throw new IllegalStateException("Failed to link shaders\n" + error);
+		ShaderBinaryCache cache = binaryCache;
+		int newId = -1;
+		String cacheKey = null;
+		if(cache != null) {
+			cacheKey = cache.key(vertexShader, fragmentShader);
+			newId = cache.loadProgram(cacheKey);
+		}
+		if(newId == -1) {
+			newId = link(vertexShader, fragmentShader, /*retrievable*/ cache != null);
+			if(cache != null) cache.storeProgram(cacheKey, newId);
 		}
 
 		int oldId = this.id;
@@ -90,6 +94,7 @@ public abstract class Shader implements Disposable {
 					uniform.setLocation();
 				} catch(IllegalStateException e) {
 					glDeleteProgram(newId);
+					GlState.current().programDeleted(newId);
 					this.id = oldId;
 					for(int r = 0; r <= i; r++) {
 						uniforms.get(r).location = oldLocations[r];
@@ -101,7 +106,28 @@ public abstract class Shader implements Disposable {
 
 		if(oldId != -1) {
 			glDeleteProgram(oldId);
+			GlState.current().programDeleted(oldId);
+		}
+	}
+
+	private int link(String vertexShader, String fragmentShader, boolean retrievable) {
+		int vertexId = compile("vertex", GL_VERTEX_SHADER, vertexShader, /*deleteOnFail*/ -1);
+		int fragmentId = compile("fragment", GL_FRAGMENT_SHADER, fragmentShader, /*deleteOnFail*/ vertexId);
+
+		int newId = glCreateProgram();
+		if(retrievable) glProgramParameteri(newId, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+		glAttachShader(newId, vertexId);
+		glAttachShader(newId, fragmentId);
+		glLinkProgram(newId);
+		glDeleteShader(vertexId);
+		glDeleteShader(fragmentId);
+
+		if(glGetProgrami(newId, GL_LINK_STATUS) == 0) {
+			String error = glGetProgramInfoLog(newId);
+			glDeleteProgram(newId);
+			throw new IllegalStateException("Failed to link shaders\n" + error);
 		}
+		return newId;
 	}
 
 	private int compile(String name, int type, String source, int deleteOnFail) {
@@ -117,10 +143,22 @@ public abstract class Shader implements Disposable {
 		return shader;
 	}
 
+	/**
+	 * Sets the cache used by every subsequent {@link #compile}, or null to always compile from source.
+	 * @see ShaderBinaryCache#create
+	 */
+	public static void setBinaryCache(@Nullable ShaderBinaryCache cache) {
+		binaryCache = cache;
+	}
+
+	@Nullable
+	public static ShaderBinaryCache getBinaryCache() {
+		return binaryCache;
+	}
+
 	public void bind() {
 		requireNotDisposed();
-		glUseProgram(id);
-		lastId = id;
+		GlState.current().useProgram(id);
 	}
 
 	public List<Uniform> getUniforms() {
@@ -137,7 +175,7 @@ public abstract class Shader implements Disposable {
 	public void dispose() {
 		requireNotDisposed();
 		glDeleteProgram(this.id);
-		if(lastId == this.id) lastId = 0;
+		GlState.current().programDeleted(this.id);
 		this.disposed = true;
 	}
 	@Override
@@ -166,7 +204,7 @@ public abstract class Shader implements Disposable {
 			return name;
 		}
 		public int getLocation() {
-			if(lastId != id) throw new IllegalStateException("the shader is not bound");
+			if(GlState.current().getProgram() != id) throw new IllegalStateException("the shader is not bound");
 			return location;
 		}
 	}
@@ -0,0 +1,245 @@
+package me.thosea.celestialgdx.graphics;
+
+import me.thosea.celestialgdx.core.CelestialGdx;
+import me.thosea.celestialgdx.log.GdxLogger;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL41;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import static org.lwjgl.opengl.GL41.*;
+
+/**
+ * CelestialGDX -
+ * On-disk cache of linked shader programs, stored with {@code glGetProgramBinary} and
+ * restored with {@code glProgramBinary}.
+ * Set it with {@link Shader#setBinaryCache(ShaderBinaryCache)} to make every {@link Shader#compile}
+ * try the cache first. If there's no entry, or the driver rejects it, the shader is compiled from source
+ * and the result is stored for next time.
+ * <p>
+ * Entries are keyed by a hash of the vertex source, fragment source and the driver's
+ * vendor, renderer and version strings, so a driver update invalidates the cache.
+ * Files that fail to load are deleted.
+ * </p>
+ * <p>
+ * Requires OpenGL 4.1 or {@code ARB_get_program_binary}; check with {@link #isSupported()}.
+ * </p>
+ * @author thosea
+ */
+public final class ShaderBinaryCache {
+	private static final int MAGIC = 0x43475342; // CGSB
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 * 4;
+	private static final String EXTENSION = ".bin";
+
+	private final Path directory;
+	private final String driverId;
+	@Nullable private final GdxLogger logger;
+
+	/**
+	 * Creates a cache without touching OpenGL.
+	 * @param directory the directory to store binaries in, created when the first binary is stored
+	 * @param driverId a string identifying the driver. binaries are only reused with the same one
+	 * @param logger logger for I/O failures, or null to ignore them
+	 */
+	public ShaderBinaryCache(Path directory, String driverId, @Nullable GdxLogger logger) {
+		this.directory = directory;
+		this.driverId = driverId;
+		this.logger = logger;
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public String getDriverId() {
+		return driverId;
+	}
+
+	/**
+	 * @return the cache key for the sources, a hex string safe to use as a file name
+	 */
+	public String key(String vertexShader, String fragmentShader) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			throw new AssertionError("SHA-256 is always available", e);
+		}
+		update(digest, driverId);
+		update(digest, vertexShader);
+		update(digest, fragmentShader);
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		// length prefix so that moving text between the parts changes the key
+		digest.update((byte) (bytes.length >>> 24));
+		digest.update((byte) (bytes.length >>> 16));
+		digest.update((byte) (bytes.length >>> 8));
+		digest.update((byte) bytes.length);
+		digest.update(bytes);
+	}
+
+	/**
+	 * Reads a stored binary.
+	 * @return the binary, or null if there is none or the file is unreadable
+	 */
+	@Nullable
+	public Binary read(String key) {
+		Path file = file(key);
+		if(!Files.isRegularFile(file)) return null;
+
+		byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(file);
+		} catch(IOException e) {
+			if(logger != null) logger.error("Failed to read shader binary " + file, e);
+			return null;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.BIG_ENDIAN);
+		if(bytes.length < HEADER_SIZE
+				|| buffer.getInt() != MAGIC
+				|| buffer.getInt() != VERSION) {
+			delete(key);
+			return null;
+		}
+		int format = buffer.getInt();
+		int length = buffer.getInt();
+		if(length != buffer.remaining()) {
+			delete(key);
+			return null;
+		}
+
+		ByteBuffer data = ByteBuffer.allocateDirect(length);
+		data.put(bytes, HEADER_SIZE, length).flip();
+		return new Binary(format, data);
+	}
+
+	/**
+	 * Stores a binary, replacing any existing one.
+	 * The file is written to a temporary location first so readers never see a partial file.
+	 * @param data the binary data between its position and limit. the position is not changed
+	 */
+	public void write(String key, int format, ByteBuffer data) {
+		int length = data.remaining();
+		byte[] bytes = new byte[HEADER_SIZE + length];
+		ByteBuffer.wrap(bytes)
+				.order(ByteOrder.BIG_ENDIAN)
+				.putInt(MAGIC)
+				.putInt(VERSION)
+				.putInt(format)
+				.putInt(length)
+				.put(data.duplicate());
+
+		Path file = file(key);
+		try {
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, key, ".tmp");
+			try {
+				Files.write(temp, bytes);
+				try {
+					Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch(AtomicMoveNotSupportedException e) {
+					Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		} catch(IOException e) {
+			if(logger != null) logger.error("Failed to write shader binary " + file, e);
+		}
+	}
+
+	/** Deletes a stored binary, if present. */
+	public void delete(String key) {
+		Path file = file(key);
+		try {
+			Files.deleteIfExists(file);
+		} catch(IOException e) {
+			if(logger != null) logger.error("Failed to delete shader binary " + file, e);
+		}
+	}
+
+	private Path file(String key) {
+		return directory.resolve(key + EXTENSION);
+	}
+
+	/**
+	 * Tries to create a program from a stored binary. Must be called on the main thread.
+	 * @return the linked program handle, or -1 if there's no usable binary
+	 */
+	int loadProgram(String key) {
+		Binary binary = read(key);
+		if(binary == null) return -1;
+
+		int program = glCreateProgram();
+		glProgramBinary(program, binary.format(), binary.data());
+		if(glGetProgrami(program, GL_LINK_STATUS) == 0) {
+			// the driver changed in a way the version string doesn't show, or the file is corrupt
+			glDeleteProgram(program);
+			delete(key);
+			return -1;
+		}
+		return program;
+	}
+
+	/**
+	 * Stores the binary of a linked program. Must be called on the main thread.
+	 * The program should have been linked with {@link GL41#GL_PROGRAM_BINARY_RETRIEVABLE_HINT}.
+	 */
+	void storeProgram(String key, int program) {
+		int length = glGetProgrami(program, GL_PROGRAM_BINARY_LENGTH);
+		if(length <= 0) return;
+
+		ByteBuffer data = ByteBuffer.allocateDirect(length);
+		int[] outLength = new int[1];
+		int[] outFormat = new int[1];
+		glGetProgramBinary(program, outLength, outFormat, data);
+		data.limit(outLength[0]);
+		write(key, outFormat[0], data);
+	}
+
+	/**
+	 * A program binary as returned by the driver.
+	 * @param format the driver-specific binary format
+	 * @param data a direct buffer of the binary
+	 */
+	public record Binary(int format, ByteBuffer data) {}
+
+	/**
+	 * @return whether the current context supports program binaries
+	 */
+	public static boolean isSupported() {
+		GLCapabilities caps = GL.getCapabilities();
+		if(!caps.OpenGL41 && !caps.GL_ARB_get_program_binary) return false;
+		return glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+	}
+
+	/**
+	 * Creates a cache for the current context's driver. Must be called on the main thread.
+	 * The current context must support it, see {@link #isSupported()}.
+	 * @param directory the directory to store binaries in
+	 */
+	public static ShaderBinaryCache create(CelestialGdx gdx, Path directory) {
+		if(!isSupported()) {
+			throw new IllegalStateException("Program binaries require OpenGL 4.1 or ARB_get_program_binary");
+		}
+		String driverId = glGetString(GL_VENDOR) + '\n' + glGetString(GL_RENDERER) + '\n' + glGetString(GL_VERSION);
+		return new ShaderBinaryCache(directory, driverId, gdx.createLogger("ShaderBinaryCache"));
+	}
+}
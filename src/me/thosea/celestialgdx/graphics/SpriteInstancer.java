@@ -1,5 +1,6 @@
 package me.thosea.celestialgdx.graphics;
 
+import me.thosea.celestialgdx.graphics.Shader.IntArrayUniform;
 import me.thosea.celestialgdx.graphics.Shader.IntUniform;
 import me.thosea.celestialgdx.graphics.Shader.Mat3x2fUniform;
 import me.thosea.celestialgdx.graphics.mesh.BufferUsage;
@@ -17,6 +18,18 @@ import java.nio.FloatBuffer;
 import static org.lwjgl.opengl.GL33.GL_FLOAT;
 import static org.lwjgl.opengl.GL33.GL_TRIANGLES;
 
+/**
+ * Draws sprites with instanced rendering, one instance per sprite.
+ * <p>
+ * By default, all sprites in a draw call share one texture, so switching textures flushes.
+ * When constructed with more than one texture unit, up to that many textures are bound at once
+ * and each instance stores the unit of its texture, so the batch only flushes once
+ * all units are in use and another texture is drawn. Use {@link TextureSlots#maxUnits()}
+ * for the most the current GPU supports.
+ * Custom shaders for multiple units must implement {@link SpriteInstancerShader#textures()}
+ * and read the unit from attribute location 2, see {@link #multiTextureFragmentShader(int)}.
+ * </p>
+ */
 public class SpriteInstancer implements Disposable {
 	private final Mesh mesh;
 	private final Vbo vbo;
@@ -29,29 +42,64 @@ public class SpriteInstancer implements Disposable {
 	private final SpriteInstancerShader shader;
 	private final boolean ownsShader;
 
-	private Texture texture = null;
+	private final TextureSlots textures;
+	private final int[] textureUnits;
+	private final boolean multiTexture;
+
 	private boolean drawing = false;
 	private int spritesDrawn = 0;
 
 	private boolean disposed = false;
 
 	public SpriteInstancer() {
-		this(1000, new DefaultShader(), /*ownsShader*/ true);
+		this(1000, /*textureUnits*/ 1, new DefaultShader(1), /*ownsShader*/ true);
 	}
 	public SpriteInstancer(int sprites) {
-		this(sprites, new DefaultShader(), /*ownsShader*/ true);
+		this(sprites, /*textureUnits*/ 1, new DefaultShader(1), /*ownsShader*/ true);
 	}
 	public SpriteInstancer(SpriteInstancerShader shader) {
-		this(1000, shader, false);
+		this(1000, /*textureUnits*/ 1, shader, false);
 	}
 	public SpriteInstancer(int sprites, SpriteInstancerShader shader) {
-		this(sprites, shader, false);
+		this(sprites, /*textureUnits*/ 1, shader, false);
+	}
+	/**
+	 * @param textureUnits the amount of textures that can be drawn with before flushing
+	 */
+	public SpriteInstancer(int sprites, int textureUnits) {
+		this(sprites, textureUnits, new DefaultShader(textureUnits), /*ownsShader*/ true);
+	}
+	/**
+	 * @param textureUnits the amount of textures that can be drawn with before flushing
+	 * @throws IllegalArgumentException if there's more than one unit and the shader doesn't implement
+	 * {@link SpriteInstancerShader#textures()}
+	 */
+	public SpriteInstancer(int sprites, int textureUnits, SpriteInstancerShader shader) {
+		this(sprites, textureUnits, requireTextures(shader, textureUnits), false);
+	}
+
+	private static SpriteInstancerShader requireTextures(SpriteInstancerShader shader, int textureUnits) {
+		if(textureUnits <= 1) return shader;
+		try {
+			if(shader.textures() == null) {
+				throw new IllegalArgumentException("the shader's textures() uniform is null");
+			}
+		} catch(UnsupportedOperationException e) {
+			throw new IllegalArgumentException("a shader for " + textureUnits + " texture units must implement textures()", e);
+		}
+		return shader;
 	}
 
-	private SpriteInstancer(int sprites, SpriteInstancerShader shader, boolean ownsShader) {
+	private SpriteInstancer(int sprites, int textureUnits, SpriteInstancerShader shader, boolean ownsShader) {
 		if(sprites < 1) {
 			throw new IllegalArgumentException("cannot have maximum sprite count below 1");
 		}
+		this.textures = new TextureSlots(textureUnits);
+		this.multiTexture = textureUnits > 1;
+		this.textureUnits = new int[textureUnits];
+		for(int i = 0; i < textureUnits; i++) {
+			this.textureUnits[i] = i;
+		}
 
 		this.vbo = Vbo.create(BufferUsage.DYNAMIC);
 		this.ebo = Ebo.create(BufferUsage.STATIC);
@@ -60,13 +108,22 @@ public class SpriteInstancer implements Disposable {
 		this.mesh = Mesh.create();
 		this.mesh.setEbo(this.ebo);
 
-		this.mesh.setAttributes(
-				/*autoPosition*/ true,
-				VxAttrib.of(vbo, 4, GL_FLOAT).divisor(1), // aScalePos
-				VxAttrib.of(vbo, 4, GL_FLOAT).divisor(1) // aTexCoords
-		);
+		if(multiTexture) {
+			this.mesh.setAttributes(
+					/*autoPosition*/ true,
+					VxAttrib.of(vbo, 4, GL_FLOAT).divisor(1), // aScalePos
+					VxAttrib.of(vbo, 4, GL_FLOAT).divisor(1), // aTexCoords
+					VxAttrib.of(vbo, 1, GL_FLOAT).divisor(1) // aTexUnit
+			);
+		} else {
+			this.mesh.setAttributes(
+					/*autoPosition*/ true,
+					VxAttrib.of(vbo, 4, GL_FLOAT).divisor(1), // aScalePos
+					VxAttrib.of(vbo, 4, GL_FLOAT).divisor(1) // aTexCoords
+			);
+		}
 
-		this.instances = MemoryUtil.memAllocFloat(sprites * 32);
+		this.instances = MemoryUtil.memAllocFloat(sprites * (multiTexture ? 9 : 8));
 		this.spriteLimit = sprites;
 
 		this.shader = shader;
@@ -84,7 +141,7 @@ public class SpriteInstancer implements Disposable {
 		this.requireNotDisposed();
 		if(!this.drawing) throw new IllegalStateException("not in drawing mode");
 		if(this.spritesDrawn > 0) flush();
-		this.texture = null;
+		this.textures.clear();
 		this.drawing = false;
 	}
 
@@ -96,9 +153,12 @@ public class SpriteInstancer implements Disposable {
 		this.requireNotDisposed();
 		if(this.spritesDrawn >= this.spriteLimit) {
 			this.flush();
-		} else if(this.texture == null || this.texture.getHandle() != region.texture.getHandle()) {
+		}
+		int unit = this.textures.slotOf(region.texture);
+		if(unit == -1) {
+			// every unit is taken by another texture
 			this.flush();
-			this.texture = region.texture;
+			unit = this.textures.slotOf(region.texture);
 		}
 		// aScalePos
 		instances.put(width);
@@ -110,6 +170,10 @@ public class SpriteInstancer implements Disposable {
 		instances.put(region.v2);
 		instances.put(region.u2);
 		instances.put(region.v);
+		if(multiTexture) {
+			// aTexUnit
+			instances.put(unit);
+		}
 		this.spritesDrawn++;
 	}
 
@@ -120,7 +184,11 @@ public class SpriteInstancer implements Disposable {
 	public void updateTransform() {
 		this.requireNotDisposed();
 		shader.bind();
-		shader.texture().set(0);
+		if(multiTexture) {
+			shader.textures().set(this.textureUnits);
+		} else {
+			shader.texture().set(0);
+		}
 		shader.transform().set(this.transform, /*transpose*/ false);
 	}
 
@@ -129,7 +197,7 @@ public class SpriteInstancer implements Disposable {
 		if(this.spritesDrawn == 0) return;
 
 		shader.bind();
-		texture.bindTexture(0);
+		textures.bind();
 
 		mesh.bind();
 		vbo.bind();
@@ -141,6 +209,7 @@ public class SpriteInstancer implements Disposable {
 		mesh.renderInstanced(GL_TRIANGLES, 6, this.spritesDrawn);
 
 		this.spritesDrawn = 0;
+		this.textures.clear();
 	}
 
 	@Override
@@ -162,6 +231,14 @@ public class SpriteInstancer implements Disposable {
 		Mat3x2fUniform transform();
 		IntUniform texture();
 
+		/**
+		 * The sampler array used when the instancer has more than one texture unit.
+		 * It's set to the unit indices, so element {@code i} samples unit {@code i}.
+		 */
+		default IntArrayUniform textures() {
+			throw new UnsupportedOperationException("this shader doesn't support multiple texture units");
+		}
+
 		void bind();
 	}
 
@@ -199,17 +276,81 @@ public class SpriteInstancer implements Disposable {
 				FragColor = texture(uTexture, fTexCoord);
 			}""";
 
+	public static final String MULTI_TEXTURE_VERTEX_SHADER = """
+			#version 330
+			precision mediump float;
+			
+			layout (location = 0) in vec4 aScalePos;
+			layout (location = 1) in vec4 aTexCoords;
+			layout (location = 2) in float aTexUnit;
+			uniform mat3x2 uTransform;
+			out vec2 fTexCoord;
+			flat out int fTexUnit;
+			
+			const vec2 positions[4] = vec2[4](
+				vec2(1.0, 1.0),
+				vec2(1.0, 0.0),
+				vec2(0.0, 0.0),
+				vec2(0.0, 1.0)
+			);
+			
+			void main() {
+				vec2 basePos = positions[gl_VertexID];
+				vec2 pos = basePos * aScalePos.xy + aScalePos.zw;
+				gl_Position = vec4(uTransform * vec3(pos, 1.0), 1.0, 1.0);
+				fTexCoord = mix(aTexCoords.xy, aTexCoords.zw, basePos);
+				fTexUnit = int(aTexUnit);
+			}""";
+
+	/**
+	 * GLSL 3.30 only allows indexing sampler arrays with constants,
+	 * so the fragment shader is generated with a case for each unit.
+	 * @return the default fragment shader for the amount of texture units
+	 */
+	public static String multiTextureFragmentShader(int textureUnits) {
+		StringBuilder builder = new StringBuilder("""
+				#version 330
+				precision mediump float;
+				
+				in vec2 fTexCoord;
+				flat in int fTexUnit;
+				""");
+		builder.append("uniform sampler2D uTextures[").append(textureUnits).append("];\n");
+		builder.append("""
+				out vec4 FragColor;
+				
+				void main() {
+					switch(fTexUnit) {
+				""");
+		for(int i = 0; i < textureUnits; i++) {
+			builder.append("\t\tcase ").append(i).append(": FragColor = texture(uTextures[").append(i).append("], fTexCoord); break;\n");
+		}
+		builder.append("""
+						default: FragColor = vec4(1.0, 0.0, 1.0, 1.0); break;
+					}
+				}""");
+		return builder.toString();
+	}
+
 	private static final class DefaultShader extends Shader implements SpriteInstancerShader {
 		public final Mat3x2fUniform transform = uMat3x2f("uTransform");
-		public final IntUniform texture = uInt("uTexture");
+		public final IntUniform texture;
+		public final IntArrayUniform textures;
 
 		@Override
 		public Mat3x2fUniform transform() {return transform;}
 		@Override
 		public IntUniform texture() {return texture;}
+		@Override
+		public IntArrayUniform textures() {return textures;}
 
-		public DefaultShader() {
-			super(VERTEX_SHADER, FRAGMENT_SHADER);
+		public DefaultShader(int textureUnits) {
+			super(
+					textureUnits > 1 ? MULTI_TEXTURE_VERTEX_SHADER : VERTEX_SHADER,
+					textureUnits > 1 ? multiTextureFragmentShader(textureUnits) : FRAGMENT_SHADER
+			);
+			this.texture = textureUnits > 1 ? null : uInt("uTexture");
+			this.textures = textureUnits > 1 ? uIntArray("uTextures") : null;
 		}
 	}
 }
\ No newline at end of file
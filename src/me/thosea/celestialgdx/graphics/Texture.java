@@ -36,8 +36,6 @@ import static org.lwjgl.opengl.GL33.*;
  * @author thosea
  */
 public final class Texture implements Disposable {
-	private static int lastHandle = 0;
-
 	private final int handle;
 	/** The OpenGL type, like {@link GL33#GL_TEXTURE_2D} or {@link GL33#GL_TEXTURE_3D} */
 	public final int glType;
@@ -69,8 +67,7 @@ public final class Texture implements Disposable {
 	 */
 	public void bindBuffer() {
 		this.requireNotDisposed();
-		glBindTexture(this.glType, this.handle);
-		lastHandle = this.handle;
+		GlState.current().bindTexture(this.glType, this.handle);
 	}
 	/**
 	 * Bind the texture for use in a shader
@@ -82,13 +79,11 @@ public final class Texture implements Disposable {
 			throw new IllegalArgumentException("texture slot cannot be above 31");
 		}
 		this.requireNotDisposed();
-		glActiveTexture(GL_TEXTURE0 + slot);
-		glBindTexture(this.glType, this.handle);
-		lastHandle = this.handle;
+		GlState.current().bindTexture(slot, this.glType, this.handle);
 	}
 	public void requireBound() {
 		requireNotDisposed();
-		if(lastHandle != this.handle) throw new IllegalStateException("the buffer is not bound");
+		if(GlState.current().getBoundTexture() != this.handle) throw new IllegalStateException("the buffer is not bound");
 	}
 
 	public int getWidth() {
@@ -255,7 +250,7 @@ public final class Texture implements Disposable {
 		requireNotDisposed();
 		glDeleteTextures(this.handle);
 		this.disposed = true;
-		if(lastHandle == this.handle) lastHandle = 0;
+		GlState.current().textureDeleted(this.handle);
 	}
 
 	/**
@@ -0,0 +1,104 @@
+package me.thosea.celestialgdx.graphics;
+
+import org.lwjgl.opengl.GL33;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL33.GL_MAX_TEXTURE_IMAGE_UNITS;
+import static org.lwjgl.opengl.GL33.glGetInteger;
+
+/**
+ * CelestialGDX -
+ * Assigns textures to a fixed number of texture units for a batch.
+ * A batch asks for the slot of each texture it draws with {@link #slotOf(Texture)};
+ * once {@link #isFull()} and a new texture shows up, the batch must flush and {@link #clear()}.
+ * Textures are compared by handle, so wrappers of the same texture share a slot.
+ * <p>
+ * Slot assignment doesn't touch OpenGL, only {@link #bind()} and {@link #maxUnits()} do.
+ * </p>
+ * @author thosea
+ */
+public final class TextureSlots {
+	private final Texture[] textures;
+	private final int[] handles;
+	private int count = 0;
+
+	// the slot found by the last lookup, since consecutive draws usually share a texture
+	private int lastSlot = -1;
+
+	/**
+	 * @param units the amount of texture units to assign, between 1 and {@link GlState#MAX_TEXTURE_UNITS}
+	 */
+	public TextureSlots(int units) {
+		if(units < 1 || units > GlState.MAX_TEXTURE_UNITS) {
+			throw new IllegalArgumentException("units must be between 1 and " + GlState.MAX_TEXTURE_UNITS);
+		}
+		this.textures = new Texture[units];
+		this.handles = new int[units];
+	}
+
+	/**
+	 * Finds the slot of the texture, assigning a new one if it isn't in use yet.
+	 * @return the slot, or -1 if the texture has no slot and all slots are in use
+	 */
+	public int slotOf(Texture texture) {
+		int handle = texture.getHandle();
+		int last = this.lastSlot;
+		if(last != -1 && handles[last] == handle) return last;
+
+		for(int i = 0; i < count; i++) {
+			if(handles[i] == handle) {
+				return this.lastSlot = i;
+			}
+		}
+		if(count == textures.length) return -1;
+
+		int slot = count++;
+		textures[slot] = texture;
+		handles[slot] = handle;
+		return this.lastSlot = slot;
+	}
+
+	/** @return the texture in the slot */
+	public Texture get(int slot) {
+		if(slot < 0 || slot >= count) throw new IndexOutOfBoundsException(slot);
+		return textures[slot];
+	}
+
+	/** @return the amount of slots in use */
+	public int size() {
+		return count;
+	}
+
+	/** @return the amount of slots */
+	public int capacity() {
+		return textures.length;
+	}
+
+	public boolean isFull() {
+		return count == textures.length;
+	}
+
+	/** Binds the texture in each slot to the texture unit of the same index */
+	public void bind() {
+		for(int i = 0; i < count; i++) {
+			textures[i].bindTexture(i);
+		}
+	}
+
+	/** Frees all slots */
+	public void clear() {
+		Arrays.fill(textures, 0, count, null);
+		this.count = 0;
+		this.lastSlot = -1;
+	}
+
+	/**
+	 * @return the amount of texture units a fragment shader can sample from in the current context,
+	 * limited to {@link GlState#MAX_TEXTURE_UNITS}
+	 * @see GL33#GL_MAX_TEXTURE_IMAGE_UNITS
+	 */
+	public static int maxUnits() {
+		return Math.min(glGetInteger(GL_MAX_TEXTURE_IMAGE_UNITS), GlState.MAX_TEXTURE_UNITS);
+	}
+}
@@ -1,5 +1,6 @@
 package me.thosea.celestialgdx.graphics.mesh;
 
+import me.thosea.celestialgdx.graphics.GlState;
 import me.thosea.celestialgdx.utils.Disposable;
 import org.lwjgl.opengl.GL33;
 
@@ -25,8 +26,6 @@ import static org.lwjgl.opengl.GL33.*;
  * @see <a href="https://wikis.khronos.org/opengl/Vertex_Specification">Vertex Specification - OpenGL wiki</a>
  */
 public final class Mesh implements Disposable {
-	private static int lastHandle = 0;
-
 	private final int handle;
 	private Ebo ebo = null;
 	private int lastAttribCount = 0;
@@ -44,13 +43,12 @@ public final class Mesh implements Disposable {
 
 	public void bind() {
 		requireNotDisposed();
-		glBindVertexArray(this.handle);
-		lastHandle = handle;
+		GlState.current().bindVertexArray(this.handle);
 		if(ebo != null) ebo.markBound();
 	}
 	public void requireBound() {
 		requireNotDisposed();
-		if(lastHandle != this.handle) throw new IllegalStateException("the buffer is not bound");
+		if(GlState.current().getVertexArray() != this.handle) throw new IllegalStateException("the buffer is not bound");
 	}
 
 	public void setAttributes(boolean autoPosition, VxAttrib... attribs) {
@@ -173,7 +171,7 @@ public final class Mesh implements Disposable {
 	public void dispose() {
 		this.requireNotDisposed();
 		glDeleteVertexArrays(this.handle);
-		if(lastHandle == this.handle) lastHandle = 0;
+		GlState.current().vertexArrayDeleted(this.handle);
 		this.disposed = true;
 	}
 	@Override
@@ -1,5 +1,6 @@
 package me.thosea.celestialgdx.graphics.mesh;
 
+import me.thosea.celestialgdx.graphics.GlState;
 import me.thosea.celestialgdx.utils.Disposable;
 
 import java.nio.Buffer;
@@ -26,8 +27,6 @@ import static org.lwjgl.opengl.GL15.*;
  * Vertex Specification/Vertex Buffer Object - OpenGL wiki</a>
  */
 public final class Vbo implements Disposable {
-	private static long lastHandle = 0;
-
 	private final int handle;
 	private BufferUsage usage;
 	private boolean disposed = false;
@@ -45,12 +44,11 @@ public final class Vbo implements Disposable {
 
 	public void bind() {
 		requireNotDisposed();
-		glBindBuffer(GL_ARRAY_BUFFER, handle);
-		lastHandle = this.handle;
+		GlState.current().bindArrayBuffer(handle);
 	}
 	public void requireBound() {
 		requireNotDisposed();
-		if(lastHandle != this.handle) throw new IllegalStateException("the buffer is not bound");
+		if(GlState.current().getArrayBuffer() != this.handle) throw new IllegalStateException("the buffer is not bound");
 	}
 
 	public void setExpectedUsage(BufferUsage usage) {
@@ -111,6 +109,7 @@ public final class Vbo implements Disposable {
 	public void dispose() {
 		requireNotDisposed();
 		glDeleteBuffers(this.handle);
+		GlState.current().arrayBufferDeleted(this.handle);
 		this.disposed = true;
 	}
 	@Override
@@ -16,22 +16,48 @@
 
 package me.thosea.celestialgdx.maps;
 
-import com.badlogic.gdx.utils.ObjectMap;
-
 import java.util.Iterator;
-import java.util.Objects;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @brief Set of string indexed values representing map elements' properties, allowing to retrieve, modify and add properties to
  * the set.
+ * <p>
+ * CelestialGDX - map loaders {@link #intern(String) intern} the keys they read, so every element with a property
+ * refers to the same key string. Ints, floats and booleans are stored unboxed, read them with
+ * {@link #getInt(String, int)}, {@link #getFloat(String, float)} and {@link #getBoolean(String, boolean)}.
+ * Copying a set with {@link #copy()} or {@link #putAll(MapProperties)} into an empty set shares its storage
+ * until one of them changes, so elements with the same properties don't each keep their own.
+ * Nested class properties are copied instead, since changing them can't be noticed by the set holding them.
+ * </p>
+ * <p>
+ * Properties are kept in the order they were added and looked up by a linear search,
+ * which is faster than hashing for the handful of properties elements usually have.
+ * </p>
  */
 public class MapProperties {
+	static private final ConcurrentHashMap<String, String> SYMBOLS = new ConcurrentHashMap<>();
+	static private final Entries EMPTY = new Entries(0);
+
+	// stand in for the type of primitive values in the objects array
+	static private final Object INT = new Object(), FLOAT = new Object(), BOOLEAN = new Object();
 
-	private final ObjectMap<String, Object> properties;
+	private Entries entries = EMPTY;
 
 	/** Creates an empty properties set */
-	public MapProperties() {
-		properties = new ObjectMap<>();
+	public MapProperties() {}
+
+	/**
+	 * CelestialGDX - used by map loaders for the property names they read. The table is never cleared,
+	 * so don't intern keys made at runtime.
+	 * @return the shared instance of the key, which is equal to it
+	 */
+	public static String intern(String key) {
+		String symbol = SYMBOLS.get(key);
+		if(symbol != null) return symbol;
+		symbol = SYMBOLS.putIfAbsent(key, key);
+		return symbol != null ? symbol : key;
 	}
 
 	/**
@@ -39,7 +65,7 @@ public class MapProperties {
 	 * @return true if and only if the property exists
 	 */
 	public boolean containsKey(String key) {
-		return properties.containsKey(key);
+		return entries.indexOf(key) != -1;
 	}
 
 	/**
@@ -47,7 +73,9 @@ public class MapProperties {
 	 * @return the value for that property if it exists, otherwise, null
 	 */
 	public Object get(String key) {
-		return properties.get(key);
+		Entries entries = this.entries;
+		int index = entries.indexOf(key);
+		return index == -1 ? null : entries.value(index);
 	}
 
 	/**
@@ -74,52 +102,301 @@ public class MapProperties {
 		return object == null ? defaultValue : (T) object;
 	}
 
+	/**
+	 * CelestialGDX
+	 * @return the int property, or the default value if there is none
+	 * @throws ClassCastException if the property isn't an int
+	 */
+	public int getInt(String key, int defaultValue) {
+		Entries entries = this.entries;
+		int index = entries.indexOf(key);
+		if(index == -1) return defaultValue;
+		if(entries.objects[index] != INT) throw wrongType(key, "int");
+		return (int) entries.values[index];
+	}
+
+	/**
+	 * CelestialGDX
+	 * @return the float property, or the default value if there is none
+	 * @throws ClassCastException if the property isn't a float
+	 */
+	public float getFloat(String key, float defaultValue) {
+		Entries entries = this.entries;
+		int index = entries.indexOf(key);
+		if(index == -1) return defaultValue;
+		if(entries.objects[index] != FLOAT) throw wrongType(key, "float");
+		return Float.intBitsToFloat((int) entries.values[index]);
+	}
+
+	/**
+	 * CelestialGDX
+	 * @return the boolean property, or the default value if there is none
+	 * @throws ClassCastException if the property isn't a boolean
+	 */
+	public boolean getBoolean(String key, boolean defaultValue) {
+		Entries entries = this.entries;
+		int index = entries.indexOf(key);
+		if(index == -1) return defaultValue;
+		if(entries.objects[index] != BOOLEAN) throw wrongType(key, "boolean");
+		return entries.values[index] != 0;
+	}
+
 	/**
 	 * @param key property name
 	 * @param value value to be inserted or modified (if it already existed)
 	 */
 	public void put(String key, Object value) {
-		properties.put(key, value);
+		switch(value) {
+			case Integer number -> putInt(key, number);
+			case Float number -> putFloat(key, number);
+			case Boolean bool -> putBoolean(key, bool);
+			case null, default -> set(key, value, 0);
+		}
 	}
 
-	/** @param properties set of properties to be added */
+	/** CelestialGDX - sets an int property without boxing it */
+	public void putInt(String key, int value) {
+		set(key, INT, value);
+	}
+
+	/** CelestialGDX - sets a float property without boxing it */
+	public void putFloat(String key, float value) {
+		set(key, FLOAT, Float.floatToRawIntBits(value));
+	}
+
+	/** CelestialGDX - sets a boolean property without boxing it */
+	public void putBoolean(String key, boolean value) {
+		set(key, BOOLEAN, value ? 1 : 0);
+	}
+
+	/**
+	 * @param properties set of properties to be added. If this set is empty,
+	 * it shares the storage of the other set until either of them changes.
+	 * CelestialGDX - nested class properties are {@link #copy() copied}.
+	 */
 	public void putAll(MapProperties properties) {
-		this.properties.putAll(properties.properties);
+		Entries other = properties.entries;
+		if(other.size == 0 || other == entries) return;
+		boolean nested = other.hasNested();
+		if(entries.size == 0 && !nested) {
+			other.shared = true;
+			this.entries = other;
+			return;
+		}
+		for(int i = 0; i < other.size; i++) {
+			Object object = other.objects[i];
+			if(nested && object instanceof MapProperties classProperties) object = classProperties.copy();
+			set(other.keys[i], object, other.values[i]);
+		}
+	}
+
+	/**
+	 * CelestialGDX
+	 * @return a set with the same properties, sharing the storage of this one until either of them changes.
+	 * Nested class properties are copied the same way, other values such as colors aren't copied.
+	 */
+	public MapProperties copy() {
+		MapProperties copy = new MapProperties();
+		copy.putAll(this);
+		return copy;
 	}
 
 	/** @param key property name to be removed */
 	public void remove(String key) {
-		properties.remove(key);
+		int index = entries.indexOf(key);
+		if(index == -1) return;
+		Entries entries = writable(0);
+		int moved = entries.size - index - 1;
+		System.arraycopy(entries.keys, index + 1, entries.keys, index, moved);
+		System.arraycopy(entries.objects, index + 1, entries.objects, index, moved);
+		System.arraycopy(entries.values, index + 1, entries.values, index, moved);
+		entries.size--;
+		entries.keys[entries.size] = null;
+		entries.objects[entries.size] = null;
 	}
 
 	/** Removes all properties */
 	public void clear() {
-		properties.clear();
+		this.entries = EMPTY;
+	}
+
+	/**
+	 * CelestialGDX
+	 * @return the amount of properties
+	 */
+	public int size() {
+		return entries.size;
 	}
 
 	/** @return iterator for the property names */
 	public Iterator<String> getKeys() {
-		return properties.keys();
+		Entries entries = this.entries;
+		return new EntryIterator<>(entries) {
+			@Override
+			String get(int index) {
+				return entries.keys[index];
+			}
+		};
 	}
 
 	/** @return iterator to properties' values */
 	public Iterator<Object> getValues() {
-		return properties.values();
+		Entries entries = this.entries;
+		return new EntryIterator<>(entries) {
+			@Override
+			Object get(int index) {
+				return entries.value(index);
+			}
+		};
+	}
+
+	private void set(String key, Object object, long value) {
+		int index = entries.indexOf(key);
+		Entries entries;
+		if(index == -1) {
+			entries = writable(1);
+			index = entries.size++;
+			entries.keys[index] = key;
+		} else {
+			entries = writable(0);
+		}
+		entries.objects[index] = object;
+		entries.values[index] = value;
+	}
+
+	/** @return the entries, copied first if they're shared, with room for the extra amount */
+	private Entries writable(int extra) {
+		Entries entries = this.entries;
+		int needed = entries.size + extra;
+		if(!entries.shared && needed <= entries.keys.length) return entries;
+		Entries copy = new Entries(entries.shared ? needed : Math.max(4, entries.keys.length * 2));
+		System.arraycopy(entries.keys, 0, copy.keys, 0, entries.size);
+		System.arraycopy(entries.objects, 0, copy.objects, 0, entries.size);
+		System.arraycopy(entries.values, 0, copy.values, 0, entries.size);
+		copy.size = entries.size;
+		return this.entries = copy;
+	}
+
+	private static ClassCastException wrongType(String key, String type) {
+		return new ClassCastException("Property \"" + key + "\" is not of type " + type);
 	}
 
 	@Override
 	public String toString() {
-		return "MapProperties{" + "properties=" + properties + '}';
+		StringBuilder builder = new StringBuilder("MapProperties{properties={");
+		Entries entries = this.entries;
+		for(int i = 0; i < entries.size; i++) {
+			if(i > 0) builder.append(", ");
+			builder.append(entries.keys[i]).append('=').append(entries.value(i));
+		}
+		return builder.append("}}").toString();
 	}
 
 	@Override
 	public boolean equals(Object o) {
 		if(!(o instanceof MapProperties that)) return false;
-		return Objects.equals(properties, that.properties);
+		Entries entries = this.entries, other = that.entries;
+		if(entries == other) return true;
+		if(entries.size != other.size) return false;
+		for(int i = 0; i < entries.size; i++) {
+			int index = other.indexOf(entries.keys[i]);
+			if(index == -1) return false;
+			Object object = entries.objects[i];
+			if(object != other.objects[index]) {
+				if(object == null || object == INT || object == FLOAT || object == BOOLEAN) return false;
+				if(!object.equals(other.objects[index])) return false;
+			} else if((object == INT || object == FLOAT || object == BOOLEAN) && entries.values[i] != other.values[index]) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
 	public int hashCode() {
-		return properties.hashCode();
+		// independent of the order, like a hash map
+		Entries entries = this.entries;
+		int hash = 0;
+		for(int i = 0; i < entries.size; i++) {
+			Object object = entries.objects[i];
+			int valueHash;
+			if(object == INT) valueHash = Integer.hashCode((int) entries.values[i]);
+			else if(object == FLOAT) valueHash = Float.hashCode(Float.intBitsToFloat((int) entries.values[i]));
+			else if(object == BOOLEAN) valueHash = Boolean.hashCode(entries.values[i] != 0);
+			else valueHash = object == null ? 0 : object.hashCode();
+			hash += entries.keys[i].hashCode() ^ valueHash;
+		}
+		return hash;
+	}
+
+	/** Properties in parallel arrays, primitive values are in values with their type in objects */
+	static private final class Entries {
+		final String[] keys;
+		final Object[] objects;
+		final long[] values;
+		int size;
+		// written when a second set starts using these, after which neither may change them
+		boolean shared;
+
+		Entries(int capacity) {
+			this.keys = new String[capacity];
+			this.objects = new Object[capacity];
+			this.values = new long[capacity];
+			this.shared = capacity == 0;
+		}
+
+		int indexOf(String key) {
+			// like ObjectMap, which stored properties before
+			if(key == null) throw new IllegalArgumentException("key cannot be null.");
+			String[] keys = this.keys;
+			for(int i = 0; i < size; i++) {
+				if(keys[i] == key) return i;
+			}
+			int hash = key.hashCode();
+			for(int i = 0; i < size; i++) {
+				if(keys[i].hashCode() == hash && keys[i].equals(key)) return i;
+			}
+			return -1;
+		}
+
+		/** @return whether a value is a nested class property, which can't be shared */
+		boolean hasNested() {
+			for(int i = 0; i < size; i++) {
+				if(objects[i] instanceof MapProperties) return true;
+			}
+			return false;
+		}
+
+		Object value(int index) {
+			Object object = objects[index];
+			if(object == INT) return (int) values[index];
+			if(object == FLOAT) return Float.intBitsToFloat((int) values[index]);
+			if(object == BOOLEAN) return values[index] != 0;
+			return object;
+		}
+	}
+
+	static private abstract class EntryIterator<T> implements Iterator<T> {
+		private final Entries entries;
+		private int index;
+
+		EntryIterator(Entries entries) {
+			// iterate over a fixed snapshot, later changes copy the entries first
+			entries.shared = true;
+			this.entries = entries;
+		}
+
+		abstract T get(int index);
+
+		@Override
+		public boolean hasNext() {
+			return index < entries.size;
+		}
+
+		@Override
+		public T next() {
+			if(index >= entries.size) throw new NoSuchElementException();
+			return get(index++);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package me.thosea.celestialgdx.maps;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.XmlElement;
+import me.thosea.celestialgdx.maps.loader.TiledObjectLoader.ObjectParser;
+import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CelestialGDX -
+ * An object template from a {@code .tx} file, which objects in maps are placed from.
+ * Templates are assets, so every map using one shares the same instance.
+ * <p>
+ * Objects placed from a template share its properties until they're changed, see {@link MapProperties#copy()},
+ * and polygons and polylines share the template's points, so they must not be modified.
+ * Objects only keep the attributes and properties they override.
+ * </p>
+ * @author thosea
+ */
+public final class ObjectTemplate {
+	private final XmlElement object;
+	@Nullable private final XmlElement shape;
+	@Nullable private final TiledMapTile tile;
+	private final MapProperties properties;
+
+	// scaled points by scale, maps with different tile sizes scale them differently
+	private final ConcurrentHashMap<Long, float[]> points = new ConcurrentHashMap<>();
+
+	/**
+	 * @param object the object element of the template
+	 * @param shape the child of the object describing its shape, or null for rectangles
+	 * @param tile the tile of the object, resolved from the template's tileset
+	 */
+	public ObjectTemplate(
+			XmlElement object, @Nullable XmlElement shape,
+			@Nullable TiledMapTile tile, MapProperties properties
+	) {
+		this.object = object;
+		this.shape = shape;
+		this.tile = tile;
+		this.properties = properties;
+	}
+
+	/** @return the object element, whose attributes apply to objects that don't override them */
+	public XmlElement getObject() {
+		return object;
+	}
+
+	/** @return the element describing the shape, such as {@code polygon}, or null for rectangles */
+	public @Nullable XmlElement getShape() {
+		return shape;
+	}
+
+	public @Nullable TiledMapTile getTile() {
+		return tile;
+	}
+
+	/** @return the properties, which objects placed from the template start with */
+	public MapProperties getProperties() {
+		return properties;
+	}
+
+	/**
+	 * @return the points of the polygon or polyline shape multiplied by the scale,
+	 * computed once per scale and shared by every caller, so they must not be modified
+	 */
+	public float[] getPoints(float scaleX, float scaleY) {
+		long key = (long) Float.floatToRawIntBits(scaleX) << 32 | Integer.toUnsignedLong(Float.floatToRawIntBits(scaleY));
+		return points.computeIfAbsent(key, ignored -> {
+			if(shape == null) throw new GdxRuntimeException("Template has no points");
+			return ObjectParser.parsePoints(shape.expectAttribute("points"), scaleX, scaleY);
+		});
+	}
+}
@@ -28,8 +28,15 @@ import java.util.List;
 // https://doc.mapeditor.org/en/stable/reference/tmx-map-format/
 // open is very useful!!
 public class TiledMap {
+	/**
+	 * CelestialGDX - a tileset used by the map. Tile ids from {@code firstGid} on belong to it.
+	 * @param source the path of the tileset relative to the map
+	 */
+	public record TilesetReference(String source, int firstGid, Tileset tileset) {}
+
 	private final MapProperties properties;
 	private final List<MapLayer> layers;
+	private final List<TilesetReference> tilesets;
 
 	private final int width;
 	private final int height;
@@ -40,9 +47,17 @@ public class TiledMap {
 	public TiledMap(
 			MapProperties properties, List<MapLayer> layers,
 			int width, int height, int tileWidth, int tileHeight
+	) {
+		this(properties, layers, List.of(), width, height, tileWidth, tileHeight);
+	}
+
+	public TiledMap(
+			MapProperties properties, List<MapLayer> layers, List<TilesetReference> tilesets,
+			int width, int height, int tileWidth, int tileHeight
 	) {
 		this.properties = properties;
 		this.layers = layers;
+		this.tilesets = tilesets;
 		this.width = width;
 		this.height = height;
 		this.tileWidth = tileWidth;
@@ -57,6 +72,14 @@ public class TiledMap {
 		return layers;
 	}
 
+	/**
+	 * CelestialGDX
+	 * @return the tilesets of the map in order of their first id, empty if the loader didn't keep them
+	 */
+	public List<TilesetReference> getTilesets() {
+		return tilesets;
+	}
+
 	/**
 	 * Width in tiles of the map
 	 */
@@ -19,18 +19,22 @@ package me.thosea.celestialgdx.maps.layers;
 import com.badlogic.gdx.graphics.Color;
 import me.thosea.celestialgdx.maps.TiledMap;
 
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 /** Map layer containing a set of MapLayers, objects and properties */
 public class GroupLayer extends MapLayer {
-	private final List<MapLayer> layers = new ArrayList<>();
+	private final List<MapLayer> layers = new Layers();
 
 	public GroupLayer(MapLayer parent, TiledMap map) {
 		super(parent, map);
 	}
 
-	/** @return the {@link MapLayer}s owned by this group */
+	/** @return the {@link MapLayer}s owned by this group. Changing the list updates the group's bounds. */
 	public List<MapLayer> getLayers() {
 		return layers;
 	}
@@ -40,4 +44,59 @@ public class GroupLayer extends MapLayer {
 		super.setTint(tintColor);
 		layers.forEach(MapLayer::updateEffectiveTint);
 	}
+
+	@Override
+	protected @Nullable Bounds computeBounds() {
+		Bounds bounds = null;
+		for(MapLayer layer : layers) {
+			if(!layer.isVisible()) continue;
+			Bounds child = layer.getBounds();
+			if(child != null) bounds = bounds == null ? child : bounds.union(child);
+		}
+		return bounds;
+	}
+
+	@Override
+	void invalidateChildBounds() {
+		for(MapLayer layer : layers) {
+			layer.invalidateSubtreeBounds();
+		}
+	}
+
+	/** CelestialGDX - every change to the list goes through these methods */
+	private final class Layers extends AbstractList<MapLayer> implements RandomAccess {
+		private final ArrayList<MapLayer> list = new ArrayList<>();
+
+		@Override
+		public MapLayer get(int index) {
+			return list.get(index);
+		}
+
+		@Override
+		public int size() {
+			return list.size();
+		}
+
+		@Override
+		public MapLayer set(int index, MapLayer layer) {
+			MapLayer previous = list.set(index, layer);
+			invalidateBounds();
+			return previous;
+		}
+
+		@Override
+		public void add(int index, MapLayer layer) {
+			list.add(index, layer);
+			modCount++;
+			invalidateBounds();
+		}
+
+		@Override
+		public MapLayer remove(int index) {
+			MapLayer layer = list.remove(index);
+			modCount++;
+			invalidateBounds();
+			return layer;
+		}
+	}
 }
\ No newline at end of file
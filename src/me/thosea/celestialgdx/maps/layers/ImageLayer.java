@@ -18,9 +18,11 @@ package me.thosea.celestialgdx.maps.layers;
 
 import me.thosea.celestialgdx.image.TextureRegion;
 import me.thosea.celestialgdx.maps.TiledMap;
+import org.jetbrains.annotations.Nullable;
 
 public final class ImageLayer extends MapLayer {
 	private TextureRegion texture;
+	@Nullable private String source;
 	private boolean repeatX;
 	private boolean repeatY;
 	private boolean supportsTransparency;
@@ -51,6 +53,19 @@ public final class ImageLayer extends MapLayer {
 	public void setTexture(TextureRegion texture) {
 		this.texture = texture;
 		this.supportsTransparency = hasTransparencySupport(this.texture);
+		invalidateBounds();
+	}
+
+	/**
+	 * CelestialGDX
+	 * @return the path of the image relative to the map, or null if it isn't known
+	 */
+	public @Nullable String getSource() {
+		return source;
+	}
+
+	public void setSource(@Nullable String source) {
+		this.source = source;
 	}
 
 	public boolean supportsTransparency() {
@@ -67,9 +82,24 @@ public final class ImageLayer extends MapLayer {
 
 	public void setRepeatX(boolean repeatX) {
 		this.repeatX = repeatX;
+		invalidateBounds();
 	}
 
 	public void setRepeatY(boolean repeatY) {
 		this.repeatY = repeatY;
+		invalidateBounds();
+	}
+
+	@Override
+	protected @Nullable Bounds computeBounds() {
+		if(texture == null) return null;
+		// the renderers place the corner of the image at the offset, with y up
+		float x = getOffsetX(), y = getOffsetY();
+		return new Bounds(
+				repeatX ? Float.NEGATIVE_INFINITY : x,
+				repeatY ? Float.NEGATIVE_INFINITY : y,
+				repeatX ? Float.POSITIVE_INFINITY : x + texture.width,
+				repeatY ? Float.POSITIVE_INFINITY : y + texture.height
+		);
 	}
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ package me.thosea.celestialgdx.maps.layers;
 import com.badlogic.gdx.graphics.Color;
 import me.thosea.celestialgdx.maps.MapProperties;
 import me.thosea.celestialgdx.maps.TiledMap;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
 
@@ -41,6 +42,28 @@ public class MapLayer {
 	private float parallaxX = 1;
 	private float parallaxY = 1;
 
+	@Nullable private Bounds bounds;
+	private boolean boundsValid;
+
+	/**
+	 * CelestialGDX -
+	 * An area in pixels, with y up like the renderers. Axes the area isn't limited in are infinite.
+	 */
+	public record Bounds(float minX, float minY, float maxX, float maxY) {
+		public Bounds union(Bounds other) {
+			return new Bounds(
+					Math.min(minX, other.minX), Math.min(minY, other.minY),
+					Math.max(maxX, other.maxX), Math.max(maxY, other.maxY)
+			);
+		}
+
+		/** @return whether the area overlaps the rectangle after being scaled, then moved */
+		public boolean overlaps(float scale, float shiftX, float shiftY, float x, float y, float width, float height) {
+			return minX * scale + shiftX < x + width && maxX * scale + shiftX > x
+					&& minY * scale + shiftY < y + height && maxY * scale + shiftY > y;
+		}
+	}
+
 	public MapLayer(MapLayer parent, TiledMap map) {
 		this.parent = parent;
 		this.map = map;
@@ -60,6 +83,14 @@ public class MapLayer {
 		return parent != null ? opacity * parent.getOpacity() : opacity;
 	}
 
+	/**
+	 * CelestialGDX
+	 * @return opacity before combining with the parent layer
+	 */
+	public float getBaseOpacity() {
+		return opacity;
+	}
+
 	/** @param opacity new opacity for the layer */
 	public void setOpacity(float opacity) {
 		this.opacity = opacity;
@@ -100,9 +131,19 @@ public class MapLayer {
 		return parent != null ? offsetX + parent.getOffsetX() : offsetX;
 	}
 
+	/**
+	 * CelestialGDX
+	 * @return x offset before adding the parent's
+	 */
+	public float getBaseOffsetX() {
+		return offsetX;
+	}
+
 	/** @param offsetX new x offset for the layer */
 	public void setOffsetX(float offsetX) {
 		this.offsetX = offsetX;
+		invalidateChildBounds();
+		invalidateBounds();
 	}
 
 	/** @return layer's y offset */
@@ -110,9 +151,19 @@ public class MapLayer {
 		return parent != null ? offsetY + parent.getOffsetY() : offsetY;
 	}
 
+	/**
+	 * CelestialGDX
+	 * @return y offset before adding the parent's
+	 */
+	public float getBaseOffsetY() {
+		return offsetY;
+	}
+
 	/** @param offsetY new y offset for the layer */
 	public void setOffsetY(float offsetY) {
 		this.offsetY = offsetY;
+		invalidateChildBounds();
+		invalidateBounds();
 	}
 
 	/** @return layer's parallax scrolling factor for x-axis */
@@ -120,8 +171,17 @@ public class MapLayer {
 		return parent != null ? parallaxX * parent.getParallaxX() : parallaxX;
 	}
 
+	/**
+	 * CelestialGDX
+	 * @return x parallax factor before combining with the parent's
+	 */
+	public float getBaseParallaxX() {
+		return parallaxX;
+	}
+
 	public void setParallaxX(float parallaxX) {
 		this.parallaxX = parallaxX;
+		invalidateBounds();
 	}
 
 	/** @return layer's parallax scrolling factor for y-axis */
@@ -129,8 +189,17 @@ public class MapLayer {
 		return parent != null ? parallaxY * parent.getParallaxY() : parallaxY;
 	}
 
+	/**
+	 * CelestialGDX
+	 * @return y parallax factor before combining with the parent's
+	 */
+	public float getBaseParallaxY() {
+		return parallaxY;
+	}
+
 	public void setParallaxY(float parallaxY) {
 		this.parallaxY = parallaxY;
+		invalidateBounds();
 	}
 
 	/** @return the layer's parent {@link MapLayer}, or null if the layer does not have a parent **/
@@ -144,6 +213,56 @@ public class MapLayer {
 
 	public void setVisible(boolean visible) {
 		this.visible = visible;
+		invalidateBounds();
+	}
+
+	/**
+	 * CelestialGDX - the area the layer draws in, in map pixels with the offsets of the layer and its parents
+	 * applied the way the renderers draw it, before the parallax shift.
+	 * Axes where the layer moves relative to its parent due to parallax are infinite.
+	 * Cached until the layer or its children change.
+	 * @return the bounds, or null if the layer draws nothing or the area isn't known
+	 */
+	public @Nullable Bounds getBounds() {
+		if(!boundsValid) {
+			Bounds content = computeBounds();
+			if(content != null && parent != null && (parallaxX != 1 || parallaxY != 1)) {
+				boolean boundedX = parallaxX == 1, boundedY = parallaxY == 1;
+				content = new Bounds(
+						boundedX ? content.minX() : Float.NEGATIVE_INFINITY,
+						boundedY ? content.minY() : Float.NEGATIVE_INFINITY,
+						boundedX ? content.maxX() : Float.POSITIVE_INFINITY,
+						boundedY ? content.maxY() : Float.POSITIVE_INFINITY
+				);
+			}
+			this.bounds = content;
+			this.boundsValid = true;
+		}
+		return bounds;
+	}
+
+	/**
+	 * CelestialGDX
+	 * @return the area the layer draws in as described by {@link #getBounds()} without parallax,
+	 * or null if it draws nothing or the area isn't known
+	 */
+	protected @Nullable Bounds computeBounds() {
+		return null;
+	}
+
+	/** CelestialGDX - recomputes the bounds of the layer and its parents when they're next needed */
+	public void invalidateBounds() {
+		for(MapLayer layer = this; layer != null; layer = layer.parent) {
+			layer.boundsValid = false;
+		}
+	}
+
+	/** the bounds of children include the offsets of their parents */
+	void invalidateChildBounds() {}
+
+	void invalidateSubtreeBounds() {
+		this.boundsValid = false;
+		invalidateChildBounds();
 	}
 
 	public TiledMap getMap() {
@@ -0,0 +1,500 @@
+package me.thosea.celestialgdx.maps.layers;
+
+import com.badlogic.gdx.math.Ellipse;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import me.thosea.celestialgdx.maps.objects.EllipseObject;
+import me.thosea.celestialgdx.maps.objects.MapObject;
+import me.thosea.celestialgdx.maps.objects.PointObject;
+import me.thosea.celestialgdx.maps.objects.PolygonObject;
+import me.thosea.celestialgdx.maps.objects.PolylineObject;
+import me.thosea.celestialgdx.maps.objects.RectangleObject;
+import me.thosea.celestialgdx.maps.objects.TextObject;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CelestialGDX -
+ * A uniform grid over the bounds of map objects, answering rectangle, point and ray queries
+ * without going through every object. See {@link ObjectLayer#buildIndex()}.
+ * <p>
+ * Each object is listed in every cell its axis-aligned bounds touch. Queries only test the bounds,
+ * so test the shape itself when the exact outline matters, such as {@link com.badlogic.gdx.math.Polygon#contains(float, float)}.
+ * Objects that don't fit in the area of the grid are kept in a separate list that every query goes through,
+ * so moving a few objects outside doesn't break anything, but the index should be rebuilt if many are.
+ * </p>
+ * <p>
+ * Moving or resizing an object doesn't update the index by itself, call {@link #update(MapObject)} afterward.
+ * Queries add to the given list and don't allocate once it has grown. Not thread safe, queries included.
+ * </p>
+ * @author thosea
+ */
+public final class ObjectIndex {
+	private static final int MAX_CELLS = 1 << 22;
+
+	private final float x, y, cellSize, inverseCellSize;
+	private final int columns, rows;
+
+	private final int[][] cells;
+	private final int[] cellCounts;
+	private final IntArray outside = new IntArray();
+
+	// by slot
+	private MapObject[] objects;
+	private float[] bounds; // minX, minY, maxX, maxY
+	private int[] marks;
+	private int slotCount;
+	private final IntArray freeSlots = new IntArray();
+	private final ObjectIntMap<MapObject> slots = new ObjectIntMap<>();
+
+	// objects found by the current query are marked with this, so objects in several cells are only reported once
+	private int mark;
+
+	// the nearest hit of castRay
+	private @Nullable MapObject rayObject;
+	private float rayFraction;
+
+	private final Rectangle tmpBounds = new Rectangle();
+
+	/**
+	 * Creates an empty index covering the area. The area is split into square cells of the size,
+	 * which is grown if there would be more than about four million cells.
+	 * @param cellSize the size of a cell, best around the size of a typical object or query
+	 */
+	public ObjectIndex(float x, float y, float width, float height, float cellSize) {
+		if(!(cellSize > 0) || Float.isInfinite(cellSize)) {
+			throw new IllegalArgumentException("cellSize must be > 0: " + cellSize);
+		}
+		if(!(width >= 0) || !(height >= 0)) {
+			throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+		}
+		width = Math.max(width, cellSize);
+		height = Math.max(height, cellSize);
+		double cellCount = Math.ceil(width / cellSize) * Math.ceil(height / cellSize);
+		if(cellCount > MAX_CELLS) {
+			cellSize *= (float) Math.sqrt(cellCount / MAX_CELLS) * 1.01f;
+		}
+		this.x = x;
+		this.y = y;
+		this.cellSize = cellSize;
+		this.inverseCellSize = 1f / cellSize;
+		this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+		this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+		this.cells = new int[columns * rows][];
+		this.cellCounts = new int[columns * rows];
+
+		this.objects = new MapObject[16];
+		this.bounds = new float[16 * 4];
+		this.marks = new int[16];
+	}
+
+	/**
+	 * Creates an index over the objects, with a cell size picked from their spread and average size.
+	 * @return the index, or null if there are no objects
+	 */
+	public static @Nullable ObjectIndex of(List<? extends MapObject> objects) {
+		if(objects.isEmpty()) return null;
+		Rectangle rect = new Rectangle();
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		double totalSize = 0;
+		for(MapObject object : objects) {
+			getBounds(object, rect);
+			minX = Math.min(minX, rect.x);
+			minY = Math.min(minY, rect.y);
+			maxX = Math.max(maxX, rect.x + rect.width);
+			maxY = Math.max(maxY, rect.y + rect.height);
+			totalSize += Math.max(rect.width, rect.height);
+		}
+		float width = maxX - minX, height = maxY - minY;
+		// about one object per cell, but no smaller than an average object so most are in only a few cells
+		float cellSize = (float) Math.max(
+				Math.sqrt((double) width * height / objects.size()),
+				totalSize / objects.size()
+		);
+		if(!(cellSize > 0) || Float.isInfinite(cellSize)) cellSize = Math.max(1, Math.max(width, height));
+
+		ObjectIndex index = new ObjectIndex(minX, minY, width, height, cellSize);
+		index.ensureCapacity(objects.size());
+		for(MapObject object : objects) {
+			index.add(object);
+		}
+		return index;
+	}
+
+	/**
+	 * Writes the axis-aligned bounds of the object to the rectangle.
+	 * @return the rectangle
+	 * @throws IllegalArgumentException if the object isn't one of the types loaded from maps
+	 */
+	public static Rectangle getBounds(MapObject object, Rectangle out) {
+		if(object instanceof RectangleObject rect) {
+			out.set(rect.getRectangle());
+		} else if(object instanceof EllipseObject ellipseObject) {
+			// the map loader puts the corner of the ellipse at x, y like Tiled does
+			Ellipse ellipse = ellipseObject.getEllipse();
+			out.set(ellipse.x, ellipse.y, ellipse.width, ellipse.height);
+		} else if(object instanceof PointObject point) {
+			out.set(point.getPoint().x, point.getPoint().y, 0, 0);
+		} else if(object instanceof PolygonObject polygon) {
+			out.set(polygon.getPolygon().getBoundingRectangle());
+		} else if(object instanceof PolylineObject polyline) {
+			out.set(polyline.getPolyline().getBoundingRectangle());
+		} else if(object instanceof TextObject text) {
+			out.set(text.getRectangle());
+		} else {
+			throw new IllegalArgumentException("Unsupported object type: " + object.getClass().getName());
+		}
+		return out;
+	}
+
+	/** @return the amount of objects in the index */
+	public int size() {
+		return slots.size;
+	}
+
+	public boolean contains(MapObject object) {
+		return slots.containsKey(object);
+	}
+
+	/** @return the size of the cells, which may be larger than requested */
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	/** Makes room for the amount of additional objects */
+	public void ensureCapacity(int additionalCapacity) {
+		int required = slotCount + additionalCapacity - freeSlots.size;
+		if(required > objects.length) growSlots(required);
+		slots.ensureCapacity(additionalCapacity);
+	}
+
+	/**
+	 * Adds the object to the index.
+	 * @throws IllegalArgumentException if the object is already in the index
+	 */
+	public void add(MapObject object) {
+		if(slots.containsKey(object)) throw new IllegalArgumentException("The object is already in the index: " + object);
+		getBounds(object, tmpBounds);
+
+		int slot;
+		if(freeSlots.notEmpty()) {
+			slot = freeSlots.pop();
+		} else {
+			if(slotCount == objects.length) growSlots(slotCount * 2);
+			slot = slotCount++;
+		}
+		objects[slot] = object;
+		marks[slot] = mark;
+		setBounds(slot, tmpBounds);
+		slots.put(object, slot);
+		insert(slot);
+	}
+
+	/** @return whether the object was in the index */
+	public boolean remove(MapObject object) {
+		int slot = slots.remove(object, -1);
+		if(slot == -1) return false;
+		erase(slot);
+		objects[slot] = null;
+		freeSlots.add(slot);
+		return true;
+	}
+
+	/**
+	 * Updates the index after the object moved or changed size.
+	 * Only the cells the object left or entered are touched.
+	 * @throws IllegalArgumentException if the object isn't in the index
+	 */
+	public void update(MapObject object) {
+		int slot = slots.get(object, -1);
+		if(slot == -1) throw new IllegalArgumentException("The object isn't in the index: " + object);
+		getBounds(object, tmpBounds);
+
+		int i = slot * 4;
+		float[] bounds = this.bounds;
+		boolean wasInside = isInside(bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3]);
+		float minX = tmpBounds.x, minY = tmpBounds.y;
+		float maxX = minX + tmpBounds.width, maxY = minY + tmpBounds.height;
+		if(wasInside && isInside(minX, minY, maxX, maxY)
+				&& column(bounds[i]) == column(minX) && row(bounds[i + 1]) == row(minY)
+				&& column(bounds[i + 2]) == column(maxX) && row(bounds[i + 3]) == row(maxY)) {
+			// still in the same cells
+			setBounds(slot, tmpBounds);
+			return;
+		}
+		erase(slot);
+		setBounds(slot, tmpBounds);
+		insert(slot);
+	}
+
+	/** Removes all objects, keeping the grid */
+	public void clear() {
+		Arrays.fill(cellCounts, 0);
+		Arrays.fill(objects, 0, slotCount, null);
+		outside.clear();
+		freeSlots.clear();
+		slots.clear();
+		slotCount = 0;
+	}
+
+	/**
+	 * Adds the objects whose bounds overlap or touch the rectangle to the list.
+	 * @return the amount of objects added
+	 */
+	public int queryRect(float x, float y, float width, float height, List<? super MapObject> out) {
+		float maxX = x + width, maxY = y + height;
+		int mark = nextMark();
+		int found = 0;
+
+		int startColumn = column(x), endColumn = column(maxX);
+		int startRow = row(y), endRow = row(maxY);
+		if(maxX >= this.x && maxY >= this.y && x <= this.x + columns * cellSize && y <= this.y + rows * cellSize) {
+			for(int row = startRow; row <= endRow; row++) {
+				for(int column = startColumn; column <= endColumn; column++) {
+					int cell = row * columns + column;
+					int[] slots = cells[cell];
+					for(int i = 0, n = cellCounts[cell]; i < n; i++) {
+						if(testRect(slots[i], x, y, maxX, maxY, mark)) {
+							out.add(objects[slots[i]]);
+							found++;
+						}
+					}
+				}
+			}
+		}
+		for(int i = 0; i < outside.size; i++) {
+			int slot = outside.items[i];
+			if(testRect(slot, x, y, maxX, maxY, mark)) {
+				out.add(objects[slot]);
+				found++;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Adds the objects whose bounds contain the point, edges included, to the list.
+	 * @return the amount of objects added
+	 */
+	public int queryPoint(float x, float y, List<? super MapObject> out) {
+		return queryRect(x, y, 0, 0, out);
+	}
+
+	/**
+	 * Adds the objects whose bounds the segment from start to end crosses to the list,
+	 * cell by cell from the start, so nearer objects tend to come first.
+	 * @return the amount of objects added
+	 */
+	public int queryRay(float startX, float startY, float endX, float endY, List<? super MapObject> out) {
+		return walkRay(startX, startY, endX, endY, out);
+	}
+
+	/**
+	 * Finds the object whose bounds the segment from start to end enters first.
+	 * Cells past the nearest hit found so far aren't visited.
+	 * @param hit if not null, set to where the segment enters the bounds of the object
+	 * @return the object, or null if the segment doesn't cross any
+	 */
+	public @Nullable MapObject castRay(float startX, float startY, float endX, float endY, @Nullable Vector2 hit) {
+		walkRay(startX, startY, endX, endY, null);
+		MapObject object = rayObject;
+		rayObject = null;
+		if(object != null && hit != null) {
+			hit.set(startX + (endX - startX) * rayFraction, startY + (endY - startY) * rayFraction);
+		}
+		return object;
+	}
+
+	/**
+	 * Visits the cells along the segment in order. With a list, every object crossed is added to it,
+	 * otherwise the nearest is kept in {@link #rayObject}.
+	 */
+	private int walkRay(float startX, float startY, float endX, float endY, @Nullable List<? super MapObject> out) {
+		float dx = endX - startX, dy = endY - startY;
+		int mark = nextMark();
+		int found = 0;
+		rayObject = null;
+		rayFraction = Float.POSITIVE_INFINITY;
+
+		for(int i = 0; i < outside.size; i++) {
+			found += testRay(outside.items[i], startX, startY, dx, dy, mark, out);
+		}
+
+		float maxX = x + columns * cellSize, maxY = y + rows * cellSize;
+		float enter = entryFraction(startX, startY, dx, dy, x, y, maxX, maxY);
+		if(enter < 0) return found;
+		// where the reversed segment enters is where this one leaves
+		float exit = 1 - entryFraction(endX, endY, -dx, -dy, x, y, maxX, maxY);
+
+		int column = column(startX + dx * enter), row = row(startY + dy * enter);
+		int stepX = dx > 0 ? 1 : dx < 0 ? -1 : 0;
+		int stepY = dy > 0 ? 1 : dy < 0 ? -1 : 0;
+		// the fractions of the segment at which it crosses into the next column and row
+		float nextX = stepX == 0 ? Float.POSITIVE_INFINITY : (x + (column + (stepX > 0 ? 1 : 0)) * cellSize - startX) / dx;
+		float nextY = stepY == 0 ? Float.POSITIVE_INFINITY : (y + (row + (stepY > 0 ? 1 : 0)) * cellSize - startY) / dy;
+		float deltaX = stepX == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(dx);
+		float deltaY = stepY == 0 ? Float.POSITIVE_INFINITY : cellSize / Math.abs(dy);
+
+		float cellEnter = enter;
+		for(int steps = columns + rows; steps >= 0; steps--) {
+			// the nearest object so far is hit before this cell starts
+			if(out == null && cellEnter > rayFraction) break;
+
+			int cell = row * columns + column;
+			int[] slots = cells[cell];
+			for(int i = 0, n = cellCounts[cell]; i < n; i++) {
+				found += testRay(slots[i], startX, startY, dx, dy, mark, out);
+			}
+
+			if(nextX < nextY) {
+				cellEnter = nextX;
+				nextX += deltaX;
+				column += stepX;
+			} else {
+				cellEnter = nextY;
+				nextY += deltaY;
+				row += stepY;
+			}
+			if(cellEnter > exit || column < 0 || column >= columns || row < 0 || row >= rows) break;
+		}
+		return found;
+	}
+
+	private int testRay(
+			int slot,
+			float startX, float startY, float dx, float dy,
+			int mark, @Nullable List<? super MapObject> out
+	) {
+		if(marks[slot] == mark) return 0;
+		marks[slot] = mark;
+		int i = slot * 4;
+		float[] bounds = this.bounds;
+		float fraction = entryFraction(startX, startY, dx, dy, bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3]);
+		if(fraction < 0) return 0;
+		if(out != null) {
+			out.add(objects[slot]);
+		} else if(fraction < rayFraction) {
+			rayObject = objects[slot];
+			rayFraction = fraction;
+		}
+		return 1;
+	}
+
+	/** @return the fraction of the segment at which it enters the box, 0 if it starts inside, or -1 if it misses */
+	private static float entryFraction(
+			float startX, float startY, float dx, float dy,
+			float minX, float minY, float maxX, float maxY
+	) {
+		float enter = 0, exit = 1;
+		if(dx == 0) {
+			if(startX < minX || startX > maxX) return -1;
+		} else {
+			float a = (minX - startX) / dx, b = (maxX - startX) / dx;
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+		if(dy == 0) {
+			if(startY < minY || startY > maxY) return -1;
+		} else {
+			float a = (minY - startY) / dy, b = (maxY - startY) / dy;
+			enter = Math.max(enter, Math.min(a, b));
+			exit = Math.min(exit, Math.max(a, b));
+		}
+		return enter <= exit ? enter : -1;
+	}
+
+	private boolean testRect(int slot, float minX, float minY, float maxX, float maxY, int mark) {
+		if(marks[slot] == mark) return false;
+		marks[slot] = mark;
+		int i = slot * 4;
+		float[] bounds = this.bounds;
+		return bounds[i] <= maxX && bounds[i + 2] >= minX && bounds[i + 1] <= maxY && bounds[i + 3] >= minY;
+	}
+
+	private int nextMark() {
+		if(++mark == 0) {
+			// wrapped around, forget the old marks so they can't match again
+			Arrays.fill(marks, 0);
+			mark = 1;
+		}
+		return mark;
+	}
+
+	private void insert(int slot) {
+		int i = slot * 4;
+		float minX = bounds[i], minY = bounds[i + 1], maxX = bounds[i + 2], maxY = bounds[i + 3];
+		if(!isInside(minX, minY, maxX, maxY)) {
+			outside.add(slot);
+			return;
+		}
+		for(int row = row(minY), endRow = row(maxY); row <= endRow; row++) {
+			for(int column = column(minX), endColumn = column(maxX); column <= endColumn; column++) {
+				int cell = row * columns + column;
+				int[] slots = cells[cell];
+				int count = cellCounts[cell];
+				if(slots == null) {
+					cells[cell] = slots = new int[4];
+				} else if(count == slots.length) {
+					cells[cell] = slots = Arrays.copyOf(slots, count * 2);
+				}
+				slots[count] = slot;
+				cellCounts[cell] = count + 1;
+			}
+		}
+	}
+
+	private void erase(int slot) {
+		int i = slot * 4;
+		float minX = bounds[i], minY = bounds[i + 1], maxX = bounds[i + 2], maxY = bounds[i + 3];
+		if(!isInside(minX, minY, maxX, maxY)) {
+			outside.removeValue(slot);
+			return;
+		}
+		for(int row = row(minY), endRow = row(maxY); row <= endRow; row++) {
+			for(int column = column(minX), endColumn = column(maxX); column <= endColumn; column++) {
+				int cell = row * columns + column;
+				int[] slots = cells[cell];
+				int count = cellCounts[cell];
+				for(int j = 0; j < count; j++) {
+					if(slots[j] == slot) {
+						// order within a cell doesn't matter
+						slots[j] = slots[--count];
+						cellCounts[cell] = count;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	private void setBounds(int slot, Rectangle rect) {
+		int i = slot * 4;
+		bounds[i] = rect.x;
+		bounds[i + 1] = rect.y;
+		bounds[i + 2] = rect.x + rect.width;
+		bounds[i + 3] = rect.y + rect.height;
+	}
+
+	private boolean isInside(float minX, float minY, float maxX, float maxY) {
+		return minX >= x && minY >= y && maxX <= x + columns * cellSize && maxY <= y + rows * cellSize;
+	}
+
+	private int column(float x) {
+		return Math.max(0, Math.min(columns - 1, (int) ((x - this.x) * inverseCellSize)));
+	}
+
+	private int row(float y) {
+		return Math.max(0, Math.min(rows - 1, (int) ((y - this.y) * inverseCellSize)));
+	}
+
+	private void growSlots(int capacity) {
+		objects = Arrays.copyOf(objects, capacity);
+		bounds = Arrays.copyOf(bounds, capacity * 4);
+		marks = Arrays.copyOf(marks, capacity);
+	}
+}
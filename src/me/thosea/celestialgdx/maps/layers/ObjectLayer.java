@@ -1,7 +1,9 @@
 package me.thosea.celestialgdx.maps.layers;
 
+import com.badlogic.gdx.math.Rectangle;
 import me.thosea.celestialgdx.maps.TiledMap;
 import me.thosea.celestialgdx.maps.objects.MapObject;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,12 +14,57 @@ import java.util.List;
 // https://doc.mapeditor.org/en/stable/reference/tmx-map-format/#objectgroup
 public class ObjectLayer extends MapLayer {
 	private final List<MapObject> objects = new ArrayList<>();
+	@Nullable private ObjectIndex index;
 
 	public ObjectLayer(MapLayer parent, TiledMap map) {
 		super(parent, map);
 	}
 
+	/**
+	 * Objects added, removed or moved afterward don't update the layer's bounds by themselves,
+	 * call {@link #invalidateBounds()} after changing them.
+	 */
 	public List<MapObject> getObjects() {
 		return objects;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Builds a spatial index over the objects for region, point and ray queries, replacing the previous one.
+	 * Objects added to or removed from {@link #getObjects()} afterward must also be added to or removed from the index.
+	 * @return the index, or null if the layer has no objects
+	 */
+	public @Nullable ObjectIndex buildIndex() {
+		invalidateBounds();
+		return this.index = ObjectIndex.of(objects);
+	}
+
+	/** @return the index built by {@link #buildIndex()}, or null if there is none */
+	public @Nullable ObjectIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * CelestialGDX - the union of the bounds of the objects, moved by the layer's offset, which is y down like in tiled.
+	 * Null if the layer has no objects or an object isn't one of the types loaded from maps.
+	 */
+	@Override
+	protected @Nullable Bounds computeBounds() {
+		if(objects.isEmpty()) return null;
+		Rectangle rect = new Rectangle();
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		for(MapObject object : objects) {
+			try {
+				ObjectIndex.getBounds(object, rect);
+			} catch(IllegalArgumentException ex) {
+				return null;
+			}
+			minX = Math.min(minX, rect.x);
+			minY = Math.min(minY, rect.y);
+			maxX = Math.max(maxX, rect.x + rect.width);
+			maxY = Math.max(maxY, rect.y + rect.height);
+		}
+		float x = getOffsetX(), y = -getOffsetY();
+		return new Bounds(minX + x, minY + y, maxX + x, maxY + y);
+	}
+}
@@ -17,7 +17,12 @@
 package me.thosea.celestialgdx.maps.layers;
 
 import me.thosea.celestialgdx.maps.TiledMap;
+import me.thosea.celestialgdx.image.TextureRegion;
+import me.thosea.celestialgdx.maps.navigation.CollisionGrid;
 import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Predicate;
 
 /** @brief Layer for a TiledMap */
 public class TileLayer extends MapLayer {
@@ -29,6 +34,13 @@ public class TileLayer extends MapLayer {
 
 	private final Cell[][] cells;
 
+	// celestialgdx - for the bounds, tiles can be larger than the grid
+	private int cellCount;
+	private int maxTileWidth, maxTileHeight;
+
+	@Nullable private CollisionGrid collisionGrid;
+	@Nullable private Predicate<? super TiledMapTile> solidTest;
+
 	/** @return layer's width in tiles */
 	public int getWidth() {
 		return width;
@@ -88,10 +100,56 @@ public class TileLayer extends MapLayer {
 	public void setCell(int x, int y, Cell cell) {
 		if(x < 0 || x >= width) return;
 		if(y < 0 || y >= height) return;
+		Cell previous = cells[x][y];
 		cells[x][y] = cell;
+		if(cell != null) {
+			TextureRegion region = cell.tile().texture(0);
+			if(region.width > maxTileWidth || region.height > maxTileHeight) {
+				maxTileWidth = Math.max(maxTileWidth, region.width);
+				maxTileHeight = Math.max(maxTileHeight, region.height);
+				invalidateBounds();
+			}
+			if(previous == null && cellCount++ == 0) invalidateBounds();
+		} else if(previous != null && --cellCount == 0) {
+			invalidateBounds();
+		}
+		if(collisionGrid != null) collisionGrid.setSolid(x, y, cell != null && solidTest.test(cell.tile()));
 		// this.renderCache = null;
 	}
 
+	@Override
+	protected @Nullable Bounds computeBounds() {
+		if(cellCount == 0) return null;
+		// the renderers add the x offset to every cell twice, and cancel the y offset out
+		float x = getOffsetX() * 2;
+		return new Bounds(
+				x, 0,
+				x + (width - 1) * tileWidth + maxTileWidth,
+				(height - 1) * tileHeight + maxTileHeight
+		);
+	}
+
+	/**
+	 * CelestialGDX - builds a grid of the cells whose tile passes the test, such as {@link CollisionGrid#property(String)},
+	 * replacing the previous one. {@link #setCell(int, int, Cell)} keeps it up to date afterward.
+	 * @return the grid
+	 */
+	public CollisionGrid buildCollisionGrid(Predicate<? super TiledMapTile> solid) {
+		this.collisionGrid = null;
+		CollisionGrid grid = CollisionGrid.of(this, solid);
+		this.solidTest = solid;
+		this.collisionGrid = grid;
+		return grid;
+	}
+
+	/**
+	 * CelestialGDX
+	 * @return the grid built by {@link #buildCollisionGrid(Predicate)}, or null if there is none
+	 */
+	public @Nullable CollisionGrid getCollisionGrid() {
+		return collisionGrid;
+	}
+
 	public record Cell(TiledMapTile tile, byte rotationFlags) {
 		public static final byte FLIPPED_HORIZONTALLY = 1;
 		public static final byte FLIPPED_VERTICALLY = 1 << 1;
@@ -0,0 +1,387 @@
+package me.thosea.celestialgdx.maps.loader;
+
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Polyline;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import me.thosea.celestialgdx.assets.AssetLoader;
+import me.thosea.celestialgdx.assets.AssetLoadingContext;
+import me.thosea.celestialgdx.files.FileHandle;
+import me.thosea.celestialgdx.files.MappableFile;
+import me.thosea.celestialgdx.maps.MapProperties;
+import me.thosea.celestialgdx.maps.TiledMap;
+import me.thosea.celestialgdx.maps.TiledMap.TilesetReference;
+import me.thosea.celestialgdx.maps.Tileset;
+import me.thosea.celestialgdx.maps.layers.GroupLayer;
+import me.thosea.celestialgdx.maps.layers.ImageLayer;
+import me.thosea.celestialgdx.maps.layers.MapLayer;
+import me.thosea.celestialgdx.maps.layers.ObjectLayer;
+import me.thosea.celestialgdx.maps.layers.TileLayer;
+import me.thosea.celestialgdx.maps.layers.TileLayer.Cell;
+import me.thosea.celestialgdx.maps.navigation.CollisionGrid;
+import me.thosea.celestialgdx.maps.objects.EllipseObject;
+import me.thosea.celestialgdx.maps.objects.MapObject;
+import me.thosea.celestialgdx.maps.objects.MapObject.ObjectProfile;
+import me.thosea.celestialgdx.maps.objects.PointObject;
+import me.thosea.celestialgdx.maps.objects.PolygonObject;
+import me.thosea.celestialgdx.maps.objects.PolylineObject;
+import me.thosea.celestialgdx.maps.objects.RectangleObject;
+import me.thosea.celestialgdx.maps.objects.TextObject;
+import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CelestialGDX -
+ * Loads maps compiled by {@link MapCompiler}, usually saved with the {@code .cmap} extension.
+ * Other files are passed on to a {@link TmxMapLoader}, so this can replace it as the loader for {@link TiledMap}.
+ * <p>
+ * Files that support it are memory mapped, see {@link MappableFile}, and tile layers are copied out in bulk
+ * instead of being decoded tile by tile. Tilesets and images are resolved with the
+ * {@link TmxMapLoader.Parameters#tilesetResolver tileset} and {@link TmxMapLoader.Parameters#imageResolver image resolvers}
+ * like with TMX maps, and {@link TmxMapLoader.Parameters#buildObjectIndex} and {@link TmxMapLoader.Parameters#collisionProperty}
+ * apply as well. The other parameters were applied when the map was compiled.
+ * </p>
+ * @author thosea
+ */
+public final class CompiledMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Parameters> {
+	public static final String EXTENSION = "cmap";
+
+	static final int MAGIC = 'C' | 'M' << 8 | 'A' << 16 | 'P' << 24;
+	static final int VERSION = 2;
+
+	static final byte LAYER_TILE = 0, LAYER_OBJECT = 1, LAYER_IMAGE = 2, LAYER_GROUP = 3;
+	static final byte OBJECT_RECTANGLE = 0, OBJECT_ELLIPSE = 1, OBJECT_POINT = 2,
+			OBJECT_POLYGON = 3, OBJECT_POLYLINE = 4, OBJECT_TEXT = 5;
+	static final byte PROPERTY_STRING = 0, PROPERTY_INT = 1, PROPERTY_FLOAT = 2,
+			PROPERTY_BOOLEAN = 3, PROPERTY_COLOR = 4, PROPERTY_CLASS = 5;
+	static final int TEXT_WRAP = 1, TEXT_BOLD = 1 << 1, TEXT_ITALIC = 1 << 2, TEXT_UNDERLINE = 1 << 3,
+			TEXT_STRIKEOUT = 1 << 4, TEXT_KERNING = 1 << 5, TEXT_COLOR = 1 << 6;
+
+	/** Tile ids are stored with the {@link Cell} rotation flags in the top bits */
+	static final int ID_MASK = 0x0FFFFFFF;
+	static final int FLAGS_SHIFT = 28;
+
+	private final TmxMapLoader tmxLoader;
+
+	public CompiledMapLoader(FileHandleResolver resolver) {
+		super(resolver);
+		this.tmxLoader = new TmxMapLoader(resolver);
+	}
+
+	@Override
+	public TiledMap load(String path, TmxMapLoader.Parameters parameter, AssetLoadingContext<TiledMap> ctx) throws Exception {
+		FileHandle file = resolve(path);
+		if(!file.extension().equals(EXTENSION)) {
+			return tmxLoader.load(path, parameter, ctx);
+		}
+		if(parameter == null) parameter = new TmxMapLoader.Parameters();
+
+		ByteBuffer buffer = file instanceof MappableFile mappable
+				? mappable.map()
+				: ByteBuffer.wrap(file.readBytes());
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			return new Reader(buffer, parameter, ctx).read();
+		} catch(BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new GdxRuntimeException("Compiled map is truncated or corrupt: " + path, e);
+		}
+	}
+
+	static private final class Reader {
+		final ByteBuffer buffer;
+		final TmxMapLoader.Parameters parameter;
+		final AssetLoadingContext<?> ctx;
+
+		String[] strings;
+		int[] firstGids;
+		Tileset[] tilesets;
+		// every cell with the same tile and flags is the same
+		final IntMap<Cell> cells = new IntMap<>();
+		final Map<ByteBuffer, MapProperties> sharedProperties = new HashMap<>();
+		// points that were the same array in the source map, like objects placed from the same template
+		final List<float[]> sharedPoints = new ArrayList<>();
+		TiledMap map;
+
+		Reader(ByteBuffer buffer, TmxMapLoader.Parameters parameter, AssetLoadingContext<?> ctx) {
+			this.buffer = buffer;
+			this.parameter = parameter;
+			this.ctx = ctx;
+		}
+
+		TiledMap read() {
+			ByteBuffer buffer = this.buffer;
+			if(buffer.getInt() != MAGIC) throw new GdxRuntimeException("Not a compiled map");
+			int version = buffer.getInt();
+			if(version != VERSION) {
+				throw new GdxRuntimeException("Unsupported compiled map version " + version + ", expected " + VERSION);
+			}
+
+			strings = new String[buffer.getInt()];
+			byte[] bytes = new byte[64];
+			for(int i = 0; i < strings.length; i++) {
+				int length = buffer.getInt();
+				if(length > bytes.length) bytes = new byte[Math.max(length, bytes.length * 2)];
+				buffer.get(bytes, 0, length);
+				strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+			}
+
+			int width = buffer.getInt();
+			int height = buffer.getInt();
+			int tileWidth = buffer.getInt();
+			int tileHeight = buffer.getInt();
+			MapProperties properties = new MapProperties();
+			readProperties(properties);
+
+			int tilesetCount = buffer.getInt();
+			List<TilesetReference> references = new ArrayList<>(tilesetCount);
+			firstGids = new int[tilesetCount];
+			tilesets = new Tileset[tilesetCount];
+			for(int i = 0; i < tilesetCount; i++) {
+				String source = string();
+				int firstGid = buffer.getInt();
+				Tileset tileset = parameter.tilesetResolver.apply(source, ctx);
+				firstGids[i] = firstGid;
+				tilesets[i] = tileset;
+				references.add(new TilesetReference(source, firstGid, tileset));
+			}
+
+			List<MapLayer> layers = new ArrayList<>();
+			map = new TiledMap(properties, layers, references, width, height, tileWidth, tileHeight);
+			readLayers(null, layers);
+			return map;
+		}
+
+		void readLayers(@Nullable MapLayer parent, List<MapLayer> layers) {
+			int count = buffer.getInt();
+			for(int i = 0; i < count; i++) {
+				layers.add(readLayer(parent));
+			}
+		}
+
+		MapLayer readLayer(@Nullable MapLayer parent) {
+			ByteBuffer buffer = this.buffer;
+			byte type = buffer.get();
+			MapLayer layer = switch(type) {
+				case LAYER_TILE -> new TileLayer(
+						parent, map,
+						buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt()
+				);
+				case LAYER_OBJECT -> new ObjectLayer(parent, map);
+				case LAYER_IMAGE -> new ImageLayer(parent, map, buffer.get() != 0, buffer.get() != 0);
+				case LAYER_GROUP -> new GroupLayer(parent, map);
+				default -> throw new GdxRuntimeException("Unknown layer type " + type);
+			};
+			layer.setName(string());
+			layer.setVisible(buffer.get() != 0);
+			layer.setOpacity(buffer.getFloat());
+			layer.setOffsetX(buffer.getFloat());
+			layer.setOffsetY(buffer.getFloat());
+			layer.setParallaxX(buffer.getFloat());
+			layer.setParallaxY(buffer.getFloat());
+			layer.setTint(new Color(buffer.getInt()));
+			readProperties(layer.getProperties());
+
+			switch(layer) {
+				case TileLayer tiles -> readTiles(tiles);
+				case ObjectLayer objects -> readObjects(objects);
+				case ImageLayer image -> {
+					String source = string();
+					image.setSource(source);
+					if(source != null) image.setTexture(parameter.imageResolver.apply(source, ctx));
+				}
+				case GroupLayer group -> readLayers(group, group.getLayers());
+				default -> throw new IllegalStateException();
+			}
+			return layer;
+		}
+
+		void readTiles(TileLayer layer) {
+			ByteBuffer buffer = this.buffer;
+			int width = layer.getWidth(), height = layer.getHeight();
+			int[] ids = new int[width * height];
+			buffer.asIntBuffer().get(ids);
+			buffer.position(buffer.position() + ids.length * 4);
+
+			for(int y = 0; y < height; y++) {
+				int row = y * width;
+				for(int x = 0; x < width; x++) {
+					int id = ids[row + x];
+					if(id == 0) continue;
+					Cell cell = cells.get(id);
+					if(cell == null) {
+						cell = new Cell(tile(id & ID_MASK), (byte) (id >>> FLAGS_SHIFT));
+						cells.put(id, cell);
+					}
+					layer.setCell(x, y, cell);
+				}
+			}
+			if(parameter.collisionProperty != null) {
+				layer.buildCollisionGrid(CollisionGrid.property(parameter.collisionProperty));
+			}
+		}
+
+		void readObjects(ObjectLayer layer) {
+			ByteBuffer buffer = this.buffer;
+			int count = buffer.getInt();
+			List<MapObject> objects = layer.getObjects();
+			if(objects instanceof ArrayList<MapObject> list) list.ensureCapacity(count);
+			for(int i = 0; i < count; i++) {
+				byte type = buffer.get();
+				int id = buffer.getInt();
+				String name = string();
+				String theClass = string();
+				int gid = buffer.getInt();
+				boolean visible = buffer.get() != 0;
+				MapProperties properties = readSharedProperties();
+
+				ObjectProfile profile = new ObjectProfile(name, theClass, id, gid == 0 ? null : tile(gid));
+				MapObject object = switch(type) {
+					case OBJECT_RECTANGLE -> new RectangleObject(
+							profile,
+							buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()
+					);
+					case OBJECT_ELLIPSE -> new EllipseObject(
+							profile,
+							buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()
+					);
+					case OBJECT_POINT -> new PointObject(profile, buffer.getFloat(), buffer.getFloat());
+					case OBJECT_POLYGON -> {
+						float[] transform = readTransform();
+						Polygon polygon = new Polygon(readPoints());
+						polygon.setPosition(transform[0], transform[1]);
+						polygon.setOrigin(transform[2], transform[3]);
+						polygon.setRotation(transform[4]);
+						polygon.setScale(transform[5], transform[6]);
+						yield new PolygonObject(profile, polygon);
+					}
+					case OBJECT_POLYLINE -> {
+						float[] transform = readTransform();
+						Polyline polyline = new Polyline(readPoints());
+						polyline.setPosition(transform[0], transform[1]);
+						polyline.setOrigin(transform[2], transform[3]);
+						polyline.setRotation(transform[4]);
+						polyline.setScale(transform[5], transform[6]);
+						yield new PolylineObject(profile, polyline);
+					}
+					case OBJECT_TEXT -> readText(profile);
+					default -> throw new GdxRuntimeException("Unknown object type " + type);
+				};
+				object.setVisible(visible);
+				object.getProperties().putAll(properties);
+				objects.add(object);
+			}
+			if(parameter.buildObjectIndex) layer.buildIndex();
+		}
+
+		TextObject readText(ObjectProfile profile) {
+			ByteBuffer buffer = this.buffer;
+			TextObject text = new TextObject(
+					profile,
+					buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat()
+			);
+			text.text = string();
+			text.fontFamily = string();
+			text.pixelSize = buffer.getInt();
+			int flags = buffer.get();
+			text.wrap = (flags & TEXT_WRAP) != 0;
+			text.bold = (flags & TEXT_BOLD) != 0;
+			text.italic = (flags & TEXT_ITALIC) != 0;
+			text.underline = (flags & TEXT_UNDERLINE) != 0;
+			text.strikeout = (flags & TEXT_STRIKEOUT) != 0;
+			text.kerning = (flags & TEXT_KERNING) != 0;
+			int color = buffer.getInt();
+			if((flags & TEXT_COLOR) != 0) text.color = new Color(color);
+			text.horizontalAlign = TextObject.TextHAlign.values()[buffer.get()];
+			text.verticalAlign = TextObject.TextVAlign.values()[buffer.get()];
+			return text;
+		}
+
+		float[] readTransform() {
+			float[] transform = new float[7];
+			buffer.asFloatBuffer().get(transform);
+			buffer.position(buffer.position() + transform.length * 4);
+			return transform;
+		}
+
+		/** @return the points, shared with the objects that shared them in the source map */
+		float[] readPoints() {
+			int length = buffer.getInt();
+			// negative lengths refer to points read earlier
+			if(length < 0) return sharedPoints.get(~length);
+			float[] points = new float[length];
+			buffer.asFloatBuffer().get(points);
+			buffer.position(buffer.position() + length * 4);
+			sharedPoints.add(points);
+			return points;
+		}
+
+		void readProperties(MapProperties properties) {
+			ByteBuffer buffer = this.buffer;
+			int count = buffer.getInt();
+			for(int i = 0; i < count; i++) {
+				String key = MapProperties.intern(string());
+				byte type = buffer.get();
+				switch(type) {
+					case PROPERTY_STRING -> properties.put(key, string());
+					case PROPERTY_INT -> properties.putInt(key, buffer.getInt());
+					case PROPERTY_FLOAT -> properties.putFloat(key, buffer.getFloat());
+					case PROPERTY_BOOLEAN -> properties.putBoolean(key, buffer.get() != 0);
+					case PROPERTY_COLOR -> properties.put(key, new Color(buffer.getInt()));
+					case PROPERTY_CLASS -> {
+						MapProperties nested = new MapProperties();
+						readProperties(nested);
+						properties.put(key, nested);
+					}
+					default -> throw new GdxRuntimeException("Unknown property type " + type);
+				}
+			}
+		}
+
+		/**
+		 * Reads properties, returning the same instance for sets with the same encoding,
+		 * so objects with the same properties share their storage. {@link MapProperties#putAll}
+		 * copies nested class properties, so those aren't shared.
+		 */
+		MapProperties readSharedProperties() {
+			int start = buffer.position();
+			MapProperties properties = new MapProperties();
+			readProperties(properties);
+			if(properties.size() == 0) return properties;
+			MapProperties existing = sharedProperties.putIfAbsent(buffer.slice(start, buffer.position() - start), properties);
+			return existing != null ? existing : properties;
+		}
+
+		/** @return the tile from the tileset with the highest first id up to the id */
+		TiledMapTile tile(int gid) {
+			int best = -1;
+			for(int i = 0; i < firstGids.length; i++) {
+				if(firstGids[i] <= gid && (best == -1 || firstGids[i] > firstGids[best])) best = i;
+			}
+			if(best != -1) {
+				int index = gid - firstGids[best];
+				if(index < tilesets[best].size()) {
+					TiledMapTile tile = tilesets[best].getTile(index);
+					if(tile != null) return tile;
+				}
+			}
+			throw new GdxRuntimeException("No tile with id " + gid);
+		}
+
+		@Nullable
+		String string() {
+			int index = buffer.getInt();
+			return index == -1 ? null : strings[index];
+		}
+	}
+}
@@ -0,0 +1,397 @@
+package me.thosea.celestialgdx.maps.loader;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.math.Ellipse;
+import com.badlogic.gdx.math.Polygon;
+import com.badlogic.gdx.math.Polyline;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.ObjectIntMap;
+import me.thosea.celestialgdx.maps.MapProperties;
+import me.thosea.celestialgdx.maps.TiledMap;
+import me.thosea.celestialgdx.maps.TiledMap.TilesetReference;
+import me.thosea.celestialgdx.maps.layers.GroupLayer;
+import me.thosea.celestialgdx.maps.layers.ImageLayer;
+import me.thosea.celestialgdx.maps.layers.MapLayer;
+import me.thosea.celestialgdx.maps.layers.ObjectLayer;
+import me.thosea.celestialgdx.maps.layers.TileLayer;
+import me.thosea.celestialgdx.maps.layers.TileLayer.Cell;
+import me.thosea.celestialgdx.maps.objects.EllipseObject;
+import me.thosea.celestialgdx.maps.objects.MapObject;
+import me.thosea.celestialgdx.maps.objects.PointObject;
+import me.thosea.celestialgdx.maps.objects.PolygonObject;
+import me.thosea.celestialgdx.maps.objects.PolylineObject;
+import me.thosea.celestialgdx.maps.objects.RectangleObject;
+import me.thosea.celestialgdx.maps.objects.TextObject;
+import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static me.thosea.celestialgdx.maps.loader.CompiledMapLoader.*;
+
+/**
+ * CelestialGDX -
+ * Writes a loaded {@link TiledMap} in the binary format read by {@link CompiledMapLoader}, so shipped builds
+ * don't parse XML. Compile maps loaded by {@link TmxMapLoader}, which keeps the tileset and image paths the format refers to.
+ * <p>
+ * Tile layers become packed arrays of tile ids, objects become fixed records by shape,
+ * and every string, such as property names and values, is stored once in a table and referred to by index.
+ * Tilesets and images stay separate assets and are loaded as dependencies like with TMX maps.
+ * </p>
+ * <p>
+ * Loader options that change the data, such as {@link TmxMapLoader.Parameters#flipY} and
+ * {@link TmxMapLoader.Parameters#convertObjectToTileSpace}, are baked in when the map is compiled.
+ * Properties may be strings, numbers, booleans, colors and class properties.
+ * </p>
+ * @author thosea
+ */
+public final class MapCompiler {
+	private final ObjectIntMap<String> stringIndices = new ObjectIntMap<>();
+	private final List<String> strings = new ArrayList<>();
+	private final Map<TiledMapTile, Integer> tileIds = new IdentityHashMap<>();
+	// points shared by objects in the map, such as objects placed from the same template
+	private final Map<float[], Integer> pointIds = new IdentityHashMap<>();
+	private final Output body = new Output(1 << 16);
+
+	private MapCompiler() {}
+
+	/** @return the compiled map */
+	public static byte[] compile(TiledMap map) {
+		Output output = new Output(1 << 16);
+		new MapCompiler().write(map, output);
+		return Arrays.copyOf(output.bytes, output.size);
+	}
+
+	/** Writes the compiled map to the stream, which is left open */
+	public static void compile(TiledMap map, OutputStream stream) throws IOException {
+		Output output = new Output(1 << 16);
+		new MapCompiler().write(map, output);
+		stream.write(output.bytes, 0, output.size);
+	}
+
+	private void write(TiledMap map, Output output) {
+		for(TilesetReference reference : map.getTilesets()) {
+			for(int i = 0; i < reference.tileset().size(); i++) {
+				TiledMapTile tile = reference.tileset().getTile(i);
+				if(tile != null) tileIds.putIfAbsent(tile, reference.firstGid() + i);
+			}
+		}
+
+		Output body = this.body;
+		body.putInt(map.getWidth());
+		body.putInt(map.getHeight());
+		body.putInt(map.getTileWidth());
+		body.putInt(map.getTileHeight());
+		writeProperties(map.getProperties());
+
+		body.putInt(map.getTilesets().size());
+		for(TilesetReference reference : map.getTilesets()) {
+			body.putInt(string(reference.source()));
+			body.putInt(reference.firstGid());
+		}
+		writeLayers(map.getLayers());
+
+		// the strings go first so the loader can resolve indices as it reads
+		output.putInt(MAGIC);
+		output.putInt(VERSION);
+		output.putInt(strings.size());
+		for(String string : strings) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			output.putInt(bytes.length);
+			output.putBytes(bytes, 0, bytes.length);
+		}
+		output.putBytes(body.bytes, 0, body.size);
+	}
+
+	private void writeLayers(List<MapLayer> layers) {
+		body.putInt(layers.size());
+		for(MapLayer layer : layers) {
+			writeLayer(layer);
+		}
+	}
+
+	private void writeLayer(MapLayer layer) {
+		Output body = this.body;
+		byte type = switch(layer) {
+			case TileLayer ignored -> LAYER_TILE;
+			case ObjectLayer ignored -> LAYER_OBJECT;
+			case ImageLayer ignored -> LAYER_IMAGE;
+			case GroupLayer ignored -> LAYER_GROUP;
+			default -> throw new IllegalArgumentException("Can't compile layer type " + layer.getClass().getName());
+		};
+		body.putByte(type);
+		// what the layer's constructor needs comes first
+		if(layer instanceof TileLayer tiles) {
+			body.putInt(tiles.getWidth());
+			body.putInt(tiles.getHeight());
+			body.putInt(tiles.getTileWidth());
+			body.putInt(tiles.getTileHeight());
+		} else if(layer instanceof ImageLayer image) {
+			body.putByte(image.isRepeatX() ? 1 : 0);
+			body.putByte(image.isRepeatY() ? 1 : 0);
+		}
+		body.putInt(string(layer.getName()));
+		body.putByte(layer.isVisible() ? 1 : 0);
+		body.putFloat(layer.getBaseOpacity());
+		body.putFloat(layer.getBaseOffsetX());
+		body.putFloat(layer.getBaseOffsetY());
+		body.putFloat(layer.getBaseParallaxX());
+		body.putFloat(layer.getBaseParallaxY());
+		body.putInt(Color.rgba8888(layer.getBaseTint()));
+		writeProperties(layer.getProperties());
+
+		switch(layer) {
+			case TileLayer tiles -> writeTiles(tiles);
+			case ObjectLayer objects -> {
+				body.putInt(objects.getObjects().size());
+				for(MapObject object : objects.getObjects()) {
+					writeObject(object);
+				}
+			}
+			case ImageLayer image -> body.putInt(string(image.getSource()));
+			case GroupLayer group -> writeLayers(group.getLayers());
+			default -> throw new IllegalStateException();
+		}
+	}
+
+	private void writeTiles(TileLayer layer) {
+		int width = layer.getWidth(), height = layer.getHeight();
+		int[] ids = new int[width * height];
+		for(int y = 0; y < height; y++) {
+			for(int x = 0; x < width; x++) {
+				Cell cell = layer.getCell(x, y);
+				if(cell == null) continue;
+				ids[y * width + x] = tileId(cell.tile()) | (cell.rotationFlags() & 0xF) << FLAGS_SHIFT;
+			}
+		}
+		body.putInts(ids);
+	}
+
+	private void writeObject(MapObject object) {
+		Output body = this.body;
+		byte type = switch(object) {
+			case RectangleObject ignored -> OBJECT_RECTANGLE;
+			case EllipseObject ignored -> OBJECT_ELLIPSE;
+			case PointObject ignored -> OBJECT_POINT;
+			case PolygonObject ignored -> OBJECT_POLYGON;
+			case PolylineObject ignored -> OBJECT_POLYLINE;
+			case TextObject ignored -> OBJECT_TEXT;
+			default -> throw new IllegalArgumentException("Can't compile object type " + object.getClass().getName());
+		};
+		MapObject.ObjectProfile profile = object.getProfile();
+		body.putByte(type);
+		body.putInt(profile.id());
+		body.putInt(string(profile.name()));
+		body.putInt(string(profile.theClass()));
+		body.putInt(profile.tile() != null ? tileId(profile.tile()) : 0);
+		body.putByte(object.isVisible() ? 1 : 0);
+		writeProperties(object.getProperties());
+
+		switch(object) {
+			case RectangleObject rect -> writeRectangle(rect.getRectangle());
+			case EllipseObject ellipseObject -> {
+				Ellipse ellipse = ellipseObject.getEllipse();
+				body.putFloat(ellipse.x);
+				body.putFloat(ellipse.y);
+				body.putFloat(ellipse.width);
+				body.putFloat(ellipse.height);
+			}
+			case PointObject point -> {
+				body.putFloat(point.getPoint().x);
+				body.putFloat(point.getPoint().y);
+			}
+			case PolygonObject polygonObject -> {
+				Polygon polygon = polygonObject.getPolygon();
+				writeTransform(polygon.getX(), polygon.getY(), polygon.getOriginX(), polygon.getOriginY(),
+						polygon.getRotation(), polygon.getScaleX(), polygon.getScaleY());
+				writePoints(polygon.getVertices());
+			}
+			case PolylineObject polylineObject -> {
+				Polyline polyline = polylineObject.getPolyline();
+				writeTransform(polyline.getX(), polyline.getY(), polyline.getOriginX(), polyline.getOriginY(),
+						polyline.getRotation(), polyline.getScaleX(), polyline.getScaleY());
+				writePoints(polyline.getVertices());
+			}
+			case TextObject text -> {
+				writeRectangle(text.getRectangle());
+				body.putInt(string(text.text));
+				body.putInt(string(text.fontFamily));
+				body.putInt(text.pixelSize);
+				body.putByte((text.wrap ? TEXT_WRAP : 0)
+						| (text.bold ? TEXT_BOLD : 0)
+						| (text.italic ? TEXT_ITALIC : 0)
+						| (text.underline ? TEXT_UNDERLINE : 0)
+						| (text.strikeout ? TEXT_STRIKEOUT : 0)
+						| (text.kerning ? TEXT_KERNING : 0)
+						| (text.color != null ? TEXT_COLOR : 0));
+				body.putInt(text.color != null ? Color.rgba8888(text.color) : 0);
+				body.putByte(text.horizontalAlign.ordinal());
+				body.putByte(text.verticalAlign.ordinal());
+			}
+			default -> throw new IllegalStateException();
+		}
+	}
+
+	private void writeRectangle(Rectangle rect) {
+		body.putFloat(rect.x);
+		body.putFloat(rect.y);
+		body.putFloat(rect.width);
+		body.putFloat(rect.height);
+	}
+
+	private void writeTransform(
+			float x, float y, float originX, float originY,
+			float rotation, float scaleX, float scaleY
+	) {
+		body.putFloat(x);
+		body.putFloat(y);
+		body.putFloat(originX);
+		body.putFloat(originY);
+		body.putFloat(rotation);
+		body.putFloat(scaleX);
+		body.putFloat(scaleY);
+	}
+
+	// the same array is written once, later objects refer to it so the loader shares it too
+	private void writePoints(float[] points) {
+		Integer id = pointIds.putIfAbsent(points, pointIds.size());
+		if(id != null) {
+			body.putInt(~id);
+		} else {
+			body.putInt(points.length);
+			body.putFloats(points);
+		}
+	}
+
+	private void writeProperties(MapProperties properties) {
+		Output body = this.body;
+		int countPosition = body.size;
+		body.putInt(0);
+		int count = 0;
+		for(Iterator<String> keys = properties.getKeys(); keys.hasNext(); ) {
+			String key = keys.next();
+			Object value = properties.get(key);
+			body.putInt(string(key));
+			switch(value) {
+				case String string -> {
+					body.putByte(PROPERTY_STRING);
+					body.putInt(string(string));
+				}
+				case Integer integer -> {
+					body.putByte(PROPERTY_INT);
+					body.putInt(integer);
+				}
+				case Float number -> {
+					body.putByte(PROPERTY_FLOAT);
+					body.putFloat(number);
+				}
+				case Boolean bool -> {
+					body.putByte(PROPERTY_BOOLEAN);
+					body.putByte(bool ? 1 : 0);
+				}
+				case Color color -> {
+					body.putByte(PROPERTY_COLOR);
+					body.putInt(Color.rgba8888(color));
+				}
+				case MapProperties nested -> {
+					body.putByte(PROPERTY_CLASS);
+					writeProperties(nested);
+				}
+				case null, default -> throw new IllegalArgumentException(
+						"Can't compile property \"" + key + "\" of type " + (value == null ? "null" : value.getClass().getName())
+				);
+			}
+			count++;
+		}
+		body.setInt(countPosition, count);
+	}
+
+	private int tileId(TiledMapTile tile) {
+		Integer id = tileIds.get(tile);
+		if(id == null) throw new IllegalArgumentException("Tile " + tile.id() + " isn't in any of the map's tilesets");
+		if((id & ~ID_MASK) != 0) throw new IllegalArgumentException("Tile id is too large: " + id);
+		return id;
+	}
+
+	/** @return the index of the string in the table, or -1 for null */
+	private int string(@Nullable String string) {
+		if(string == null) return -1;
+		int index = stringIndices.get(string, -1);
+		if(index == -1) {
+			index = strings.size();
+			strings.add(string);
+			stringIndices.put(string, index);
+		}
+		return index;
+	}
+
+	/** Little endian, the byte order the loader reads with */
+	static private final class Output {
+		byte[] bytes;
+		int size;
+
+		Output(int capacity) {
+			this.bytes = new byte[capacity];
+		}
+
+		void putByte(int value) {
+			ensure(1);
+			bytes[size++] = (byte) value;
+		}
+
+		void putInt(int value) {
+			ensure(4);
+			setInt(size, value);
+			size += 4;
+		}
+
+		void setInt(int position, int value) {
+			bytes[position] = (byte) value;
+			bytes[position + 1] = (byte) (value >>> 8);
+			bytes[position + 2] = (byte) (value >>> 16);
+			bytes[position + 3] = (byte) (value >>> 24);
+		}
+
+		void putFloat(float value) {
+			putInt(Float.floatToRawIntBits(value));
+		}
+
+		void putInts(int[] values) {
+			ensure(values.length * 4);
+			for(int value : values) {
+				setInt(size, value);
+				size += 4;
+			}
+		}
+
+		void putFloats(float[] values) {
+			ensure(values.length * 4);
+			for(float value : values) {
+				setInt(size, Float.floatToRawIntBits(value));
+				size += 4;
+			}
+		}
+
+		void putBytes(byte[] values, int offset, int length) {
+			ensure(length);
+			System.arraycopy(values, offset, bytes, size, length);
+			size += length;
+		}
+
+		private void ensure(int amount) {
+			if(size + amount > bytes.length) {
+				long capacity = Math.max((long) bytes.length * 2, (long) size + amount);
+				if(capacity > Integer.MAX_VALUE - 8) throw new IllegalStateException("The compiled map is too large");
+				bytes = Arrays.copyOf(bytes, (int) capacity);
+			}
+		}
+	}
+}
@@ -0,0 +1,214 @@
+package me.thosea.celestialgdx.maps.loader;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * CelestialGDX -
+ * Parses lists of numbers separated by commas and whitespace, such as polygon points and CSV tile data,
+ * straight from the text into primitive arrays without splitting it into strings.
+ * <p>
+ * Floats with up to 7 significant digits and small exponents are computed with one exactly rounded float operation,
+ * longer ones fall back to {@link Float#parseFloat(String)}, so the results are the same either way.
+ * </p>
+ * @author thosea
+ */
+public final class NumberTokenizer {
+	private NumberTokenizer() {}
+
+	static private final float[] POWERS_OF_TEN = {
+			1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+	/** Floats represent every integer up to this exactly */
+	static private final long MAX_EXACT_MANTISSA = 1L << 24;
+
+	/** @return the amount of numbers in the text */
+	public static int count(CharSequence text) {
+		int count = 0;
+		boolean inToken = false;
+		for(int i = 0, n = text.length(); i < n; i++) {
+			boolean separator = isSeparator(text.charAt(i));
+			if(!separator && !inToken) count++;
+			inToken = !separator;
+		}
+		return count;
+	}
+
+	/**
+	 * Parses the integers in the text into the array. Values up to {@code 0xFFFFFFFF} wrap around like a cast from long,
+	 * so unsigned values such as tile ids with flip flags keep their bits.
+	 * @return the amount of numbers parsed
+	 * @throws GdxRuntimeException if a number is invalid or there are more than fit in the array
+	 */
+	public static int parseInts(CharSequence text, int[] out, int offset) {
+		int count = 0;
+		int i = 0, n = text.length();
+		while(true) {
+			while(i < n && isSeparator(text.charAt(i)))
+				i++;
+			if(i == n) return count;
+			int start = i;
+			while(i < n && !isSeparator(text.charAt(i)))
+				i++;
+			if(offset + count >= out.length) throw new GdxRuntimeException("Too many numbers, expected " + (out.length - offset));
+			out[offset + count++] = parseInt(text, start, i);
+		}
+	}
+
+	/**
+	 * Parses comma separated integers into the array like {@link #parseInts(CharSequence, int[], int)},
+	 * but every comma must follow a number, so an empty field is an error instead of being skipped.
+	 * Whitespace around the numbers is ignored.
+	 * @return the amount of numbers parsed
+	 * @throws GdxRuntimeException if a number is invalid or missing, or there are more than fit in the array
+	 */
+	public static int parseCsvInts(CharSequence text, int[] out, int offset) {
+		int count = 0;
+		int i = 0, n = text.length();
+		while(true) {
+			while(i < n && isWhitespace(text.charAt(i)))
+				i++;
+			// the end of the text, either empty or after a trailing comma
+			if(i == n) return count;
+			if(text.charAt(i) == ',') throw new GdxRuntimeException("Empty field after " + count + " numbers");
+			int start = i;
+			while(i < n && !isSeparator(text.charAt(i)))
+				i++;
+			if(offset + count >= out.length) throw new GdxRuntimeException("Too many numbers, expected " + (out.length - offset));
+			out[offset + count++] = parseInt(text, start, i);
+
+			while(i < n && isWhitespace(text.charAt(i)))
+				i++;
+			if(i == n) return count;
+			if(text.charAt(i) != ',') throw new GdxRuntimeException("Expected a comma after " + count + " numbers");
+			i++;
+		}
+	}
+
+	/**
+	 * Parses the floats in the text into the array.
+	 * @return the amount of numbers parsed
+	 * @throws GdxRuntimeException if a number is invalid or there are more than fit in the array
+	 */
+	public static int parseFloats(CharSequence text, float[] out, int offset) {
+		int count = 0;
+		int i = 0, n = text.length();
+		while(true) {
+			while(i < n && isSeparator(text.charAt(i)))
+				i++;
+			if(i == n) return count;
+			int start = i;
+			while(i < n && !isSeparator(text.charAt(i)))
+				i++;
+			if(offset + count >= out.length) throw new GdxRuntimeException("Too many numbers, expected " + (out.length - offset));
+			out[offset + count++] = parseFloat(text, start, i);
+		}
+	}
+
+	/** @return the numbers in the text */
+	public static float[] parseFloats(CharSequence text) {
+		float[] result = new float[count(text)];
+		parseFloats(text, result, 0);
+		return result;
+	}
+
+	private static int parseInt(CharSequence text, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		char first = text.charAt(i);
+		if(first == '-' || first == '+') {
+			negative = first == '-';
+			i++;
+		}
+		if(i == end || end - i > 18) throw invalid(text, start, end);
+		long value = 0;
+		for(; i < end; i++) {
+			int digit = text.charAt(i) - '0';
+			if(digit < 0 || digit > 9) throw invalid(text, start, end);
+			value = value * 10 + digit;
+		}
+		return (int) (negative ? -value : value);
+	}
+
+	private static float parseFloat(CharSequence text, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		char first = text.charAt(i);
+		if(first == '-' || first == '+') {
+			negative = first == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0, exponent = 0;
+		boolean anyDigits = false;
+		for(; i < end; i++) {
+			int digit = text.charAt(i) - '0';
+			if(digit < 0 || digit > 9) break;
+			anyDigits = true;
+			// leading zeros don't count toward the precision
+			if(mantissa != 0 || digit != 0) digits++;
+			if(digits <= 18) mantissa = mantissa * 10 + digit;
+			else exponent++;
+		}
+		if(i < end && text.charAt(i) == '.') {
+			for(i++; i < end; i++) {
+				int digit = text.charAt(i) - '0';
+				if(digit < 0 || digit > 9) break;
+				anyDigits = true;
+				if(mantissa != 0 || digit != 0) digits++;
+				if(digits <= 18) {
+					mantissa = mantissa * 10 + digit;
+					exponent--;
+				}
+			}
+		}
+		if(i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if(i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+				negativeExponent = text.charAt(i) == '-';
+				i++;
+			}
+			if(i == end) return slowParse(text, start, end);
+			int value = 0;
+			for(; i < end; i++) {
+				int digit = text.charAt(i) - '0';
+				if(digit < 0 || digit > 9) return slowParse(text, start, end);
+				if(value < 10000) value = value * 10 + digit;
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+		if(i != end || !anyDigits) return slowParse(text, start, end);
+
+		if(mantissa < MAX_EXACT_MANTISSA && exponent >= -10 && exponent <= 10) {
+			// both operands are exact, so the one rounding of the operation matches parseFloat
+			float value = exponent < 0
+					? mantissa / POWERS_OF_TEN[-exponent]
+					: mantissa * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+		return slowParse(text, start, end);
+	}
+
+	/** Handles long and unusual numbers, such as {@code NaN}, and throws if they're invalid */
+	private static float slowParse(CharSequence text, int start, int end) {
+		String token = text.subSequence(start, end).toString();
+		try {
+			return Float.parseFloat(token);
+		} catch(NumberFormatException e) {
+			throw new GdxRuntimeException("Invalid number: " + token, e);
+		}
+	}
+
+	private static GdxRuntimeException invalid(CharSequence text, int start, int end) {
+		return new GdxRuntimeException("Invalid number: " + text.subSequence(start, end));
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == ',' || isWhitespace(c);
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+}
@@ -82,7 +82,7 @@ public final class TiledLoaderUtils {
 		if(element == null) return;
 
 		for(MapElement property : element.getChildren()) {
-			String name = property.getAttribute("name");
+			String name = MapProperties.intern(property.getAttribute("name"));
 			String type = property.getAttribute("type");
 
 			if("class".equals(type)) {
@@ -122,7 +122,7 @@ public final class TiledLoaderUtils {
 		result.put("type", className);
 
 		for(ProjectClassMember member : members) {
-			String name = member.name();
+			String name = MapProperties.intern(member.name());
 			String type = member.type();
 
 			ClassElement prop = null;
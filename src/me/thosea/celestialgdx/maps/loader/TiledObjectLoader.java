@@ -1,7 +1,10 @@
 package me.thosea.celestialgdx.maps.loader;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.XmlElement;
+import me.thosea.celestialgdx.maps.ObjectTemplate;
+import me.thosea.celestialgdx.maps.loader.TiledLoaderUtils.ClassSupplier;
 import me.thosea.celestialgdx.maps.loader.TiledObjectLoader.ObjectParser.ObjectParseContext;
 import me.thosea.celestialgdx.maps.objects.EllipseObject;
 import me.thosea.celestialgdx.maps.objects.MapObject;
@@ -14,9 +17,9 @@ import me.thosea.celestialgdx.maps.objects.TextObject;
 import me.thosea.celestialgdx.maps.objects.TextObject.TextHAlign;
 import me.thosea.celestialgdx.maps.objects.TextObject.TextVAlign;
 import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -53,25 +56,40 @@ public final class TiledObjectLoader {
 
 	@FunctionalInterface
 	public interface ObjectParser<T extends MapObject> {
+		/**
+		 * @param template the template the element comes from, if the object didn't override its shape
+		 */
 		record ObjectParseContext(
 				XmlElement element, ObjectProfile profile,
 				boolean flipY, float scaleX, float scaleY,
-				float x, float y, float width, float height
+				float x, float y, float width, float height,
+				@Nullable ObjectTemplate template
 		) {}
 
 		T parse(ObjectParseContext ctx);
 
 		/**
-		 * Reads the "points" attribute used in polygons and polylines
+		 * Reads the "points" attribute used in polygons and polylines.
+		 * Points from a template are shared with the other objects placed from it.
 		 * @return vertices
 		 */
 		static float[] parsePoints(ObjectParseContext ctx) {
-			String[] points = ctx.element.expectAttribute("points").split(" ");
-			float[] vertices = new float[points.length * 2];
-			for(int i = 0; i < points.length; i++) {
-				String[] point = points[i].split(",");
-				vertices[i * 2] = Float.parseFloat(point[0]) * ctx.scaleX;
-				vertices[i * 2 + 1] = Float.parseFloat(point[1]) * ctx.scaleY * (ctx.flipY ? -1 : 1);
+			float scaleY = ctx.scaleY * (ctx.flipY ? -1 : 1);
+			if(ctx.template != null) return ctx.template.getPoints(ctx.scaleX, scaleY);
+			return parsePoints(ctx.element.expectAttribute("points"), ctx.scaleX, scaleY);
+		}
+
+		/**
+		 * Parses points such as "0,0 16,0 16,16" and multiplies them by the scale
+		 * @return vertices
+		 */
+		static float[] parsePoints(String points, float scaleX, float scaleY) {
+			float[] vertices = new float[NumberTokenizer.count(points)];
+			if(vertices.length % 2 != 0) throw new GdxRuntimeException("Odd amount of coordinates in points: " + points);
+			NumberTokenizer.parseFloats(points, vertices, 0);
+			for(int i = 0; i < vertices.length; i += 2) {
+				vertices[i] *= scaleX;
+				vertices[i + 1] *= scaleY;
 			}
 			return vertices;
 		}
@@ -85,48 +103,72 @@ public final class TiledObjectLoader {
 		return parsers.get(name);
 	}
 
+	/**
+	 * @param templateSupplier gets the template at the path given by objects, relative to the map
+	 * @param classSupplier resolves the types of class properties
+	 */
 	public static MapObject read(
 			XmlElement xml,
 			float heightInPixels, boolean flipY,
 			float scaleX, float scaleY,
-			Function<Integer, TiledMapTile> tileSupplier
+			Function<Integer, TiledMapTile> tileSupplier,
+			Function<String, ObjectTemplate> templateSupplier,
+			@Nullable ClassSupplier classSupplier
 	) {
+		// celestialgdx - objects placed from a template only specify what they override
+		String templatePath = xml.getAttribute("template");
+		ObjectTemplate template = templatePath != null ? templateSupplier.apply(templatePath) : null;
+		XmlElement base = template != null ? template.getObject() : null;
+
 		int id = xml.getIntAttribute("id");
-		String name = xml.getAttribute("name", "");
-		String clazz = xml.getAttribute("type", "");
+		String name = attribute(xml, base, "name", "");
+		String clazz = attribute(xml, base, "type", "");
 
 		float x = xml.getFloatAttribute("x", 0) * scaleX;
 		float y = xml.getFloatAttribute("y", 0);
 		if(flipY) y = heightInPixels - y;
 		y *= scaleY;
 
-		float width = xml.getFloatAttribute("width", 0) * scaleX;
-		float height = xml.getFloatAttribute("height", 0) * scaleY;
+		float width = Float.parseFloat(attribute(xml, base, "width", "0")) * scaleX;
+		float height = Float.parseFloat(attribute(xml, base, "height", "0")) * scaleY;
 
 		int gid = xml.getIntAttribute("gid", -1);
-		TiledMapTile tile = gid != -1 ? tileSupplier.apply(gid) : null;
-
-		// TODO template support
-
-		List<XmlElement> children = xml.getChildren();
-		ObjectParser<?> parser;
-		XmlElement subElement;
-		if(children.isEmpty()) {
-			// rectangles don't specify any ID
-			subElement = null;
-			parser = getParser("");
-		} else {
-			subElement = children.getFirst();
-			parser = getParser(subElement.getName());
+		TiledMapTile tile = gid != -1 ? tileSupplier.apply(gid) : template != null ? template.getTile() : null;
+
+		XmlElement subElement = shape(xml);
+		ObjectTemplate shapeTemplate = null;
+		if(subElement == null && template != null) {
+			subElement = template.getShape();
+			shapeTemplate = template;
 		}
+		// rectangles don't specify any ID
+		ObjectParser<?> parser = getParser(subElement == null ? "" : subElement.getName());
+		if(parser == null) throw new GdxRuntimeException("Unknown object type " + subElement.getName());
 
 		MapObject result = parser.parse(new ObjectParseContext(
 				subElement,
 				new ObjectProfile(name, clazz, id, tile),
 				flipY, scaleX, scaleY,
-				x, y, width, height
+				x, y, width, height,
+				shapeTemplate
 		));
-		result.setVisible(xml.getAttribute("visible", "1").equals("1"));
+		result.setVisible(attribute(xml, base, "visible", "1").equals("1"));
+		if(template != null) result.getProperties().putAll(template.getProperties());
+		TiledLoaderUtils.loadPropertiesFor(result.getProperties(), xml, classSupplier);
 		return result;
 	}
-}
\ No newline at end of file
+
+	/** @return the first child that isn't the properties, or null if there is none */
+	static @Nullable XmlElement shape(XmlElement xml) {
+		for(XmlElement child : xml.getChildren()) {
+			if(!child.getName().equals("properties")) return child;
+		}
+		return null;
+	}
+
+	private static String attribute(XmlElement xml, @Nullable XmlElement template, String key, String def) {
+		String value = xml.getAttribute(key);
+		if(value == null && template != null) value = template.getAttribute(key);
+		return value != null ? value : def;
+	}
+}
@@ -26,6 +26,7 @@ import me.thosea.celestialgdx.assets.AssetLoadingContext;
 import me.thosea.celestialgdx.graphics.Texture;
 import me.thosea.celestialgdx.image.TextureRegion;
 import me.thosea.celestialgdx.maps.MapProperties;
+import me.thosea.celestialgdx.maps.ObjectTemplate;
 import me.thosea.celestialgdx.maps.TiledMap;
 import me.thosea.celestialgdx.maps.TiledProject;
 import me.thosea.celestialgdx.maps.Tileset;
@@ -36,8 +37,10 @@ import me.thosea.celestialgdx.maps.layers.ObjectLayer;
 import me.thosea.celestialgdx.maps.layers.TileLayer;
 import me.thosea.celestialgdx.maps.layers.TileLayer.Cell;
 import me.thosea.celestialgdx.maps.loader.TmxMapLoader.TmxLoadContext.TilesetEntry;
+import me.thosea.celestialgdx.maps.navigation.CollisionGrid;
 import me.thosea.celestialgdx.maps.objects.MapObject;
 import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
@@ -46,7 +49,9 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -88,6 +93,16 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 			return new TextureRegion(ctx.dependOn(parent + source, Texture.class));
 		};
 
+		/**
+		 * CelestialGDX - The template objects are placed from, the default looks for it relative to the map
+		 */
+		public BiFunction<String, AssetLoadingContext<?>, ObjectTemplate> templateResolver = (source, ctx) -> {
+			String path = ctx.desc.fileName;
+			int index = path.lastIndexOf('/');
+			String parent = index != -1 ? path.substring(0, index + 1) : "";
+			return ctx.dependOn(parent + source, ObjectTemplate.class);
+		};
+
 		/**
 		 * Whether to convert the objects' pixel position and size to the equivalent in tile space.
 		 */
@@ -97,6 +112,15 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 		 * flipY set to true. This parameter is included for non-rendering related purposes of TMX files, or custom renderers.
 		 */
 		public boolean flipY = true;
+		/**
+		 * Whether to build a spatial index over the objects of each object layer, see {@link ObjectLayer#getIndex()}.
+		 */
+		public boolean buildObjectIndex = false;
+		/**
+		 * The name of a boolean tile property marking solid tiles. If set, each tile layer gets a collision grid,
+		 * see {@link TileLayer#getCollisionGrid()}.
+		 */
+		@Nullable public String collisionProperty;
 	}
 
 	private static final int FLAG_FLIP_HORIZONTALLY = 0x80000000;
@@ -106,16 +130,20 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 	private static final int MASK_CLEAR = 0xE0000000;
 
 	static final class TmxLoadContext {
-		record TilesetEntry(int firstgid, Tileset tileset) {}
+		record TilesetEntry(String source, int firstgid, Tileset tileset) {}
 
 		final XmlElement root;
 		final List<TilesetEntry> tilesets;
 		final Parameters parameter;
 		final TiledProject project;
+		// celestialgdx - resolved up front, the objects are read on the work pool
+		final Map<String, ObjectTemplate> templates = new HashMap<>();
 
 		// this is somewhat of a hack - some layers need non-tile dependencies we can't
 		// easily probe before loading (i.e. "image" in imagelayer)
 		final List<Consumer<AssetLoadingContext<?>>> deferredTasks = new ArrayList<>();
+		// celestialgdx - filling tile and object layers, which only touches the layer itself, so they run in parallel
+		final List<Runnable> layerTasks = new ArrayList<>();
 
 		float objectScaleX;
 		float objectScaleY;
@@ -145,8 +173,6 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 		}
 	}
 
-	private record WorkResult(TiledMap map, List<Consumer<AssetLoadingContext<?>>> deferredTasks) {}
-
 	@Override
 	public TiledMap load(String path, TmxMapLoader.Parameters parameter, AssetLoadingContext<TiledMap> ctx) throws Exception {
 		XmlElement root;
@@ -168,17 +194,40 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 			int firstgid = entry.getIntAttribute("firstgid");
 
 			Tileset tileset = parameter.tilesetResolver.apply(source, ctx);
-			tilesets.add(new TmxLoadContext.TilesetEntry(firstgid, tileset));
+			tilesets.add(new TmxLoadContext.TilesetEntry(source, firstgid, tileset));
 		}
 
-		WorkResult result = ctx.awaitWork(() -> {
-			return loadMap(new TmxLoadContext(root, tilesets, parameter));
-		});
-		result.deferredTasks.forEach(task -> task.accept(ctx));
-		return result.map;
+		// the layers are created in document order here, then filled on the work pool at once
+		TmxLoadContext loadCtx = new TmxLoadContext(root, tilesets, parameter);
+		resolveTemplates(root, loadCtx.templates, parameter, ctx);
+		TiledMap map = loadMap(loadCtx);
+		ctx.awaitAllWork(loadCtx.layerTasks);
+		loadCtx.deferredTasks.forEach(task -> task.accept(ctx));
+		return map;
 	}
 
-	private TmxMapLoader.WorkResult loadMap(TmxMapLoader.TmxLoadContext ctx) {
+	/** Resolves the templates of the objects in the element and its groups */
+	private static void resolveTemplates(
+			XmlElement element, Map<String, ObjectTemplate> templates,
+			Parameters parameter, AssetLoadingContext<?> ctx
+	) {
+		for(XmlElement child : element.getChildren()) {
+			switch(child.getName()) {
+				case "group" -> resolveTemplates(child, templates, parameter, ctx);
+				case "objectgroup" -> {
+					for(XmlElement object : child.getChildrenByName("object")) {
+						String source = object.getAttribute("template");
+						if(source != null && !templates.containsKey(source)) {
+							templates.put(source, parameter.templateResolver.apply(source, ctx));
+						}
+					}
+				}
+				default -> {}
+			}
+		}
+	}
+
+	private TiledMap loadMap(TmxMapLoader.TmxLoadContext ctx) {
 		XmlElement root = ctx.root;
 		MapProperties prop = new MapProperties();
 
@@ -229,7 +278,11 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 		TiledLoaderUtils.loadPropertiesFor(prop, root, ctx.project);
 
 		List<MapLayer> layers = new ArrayList<>();
-		TiledMap map = new TiledMap(prop, layers, mapWidth, mapHeight, tileWidth, tileHeight);
+		List<TiledMap.TilesetReference> tilesets = new ArrayList<>(ctx.tilesets.size());
+		for(TilesetEntry entry : ctx.tilesets) {
+			tilesets.add(new TiledMap.TilesetReference(entry.source, entry.firstgid, entry.tileset));
+		}
+		TiledMap map = new TiledMap(prop, layers, tilesets, mapWidth, mapHeight, tileWidth, tileHeight);
 		ctx.map = map;
 
 		for(XmlElement element : root.getChildren()) {
@@ -239,7 +292,7 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 			}
 		}
 
-		return new WorkResult(map, ctx.deferredTasks);
+		return map;
 	}
 
 	private MapLayer loadLayer(TmxMapLoader.TmxLoadContext ctx, MapLayer parent, XmlElement element) {
@@ -278,7 +331,13 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 				width, height, ctx.tileWidth, ctx.tileHeight
 		);
 		loadLayerProperties(layer, xml, ctx);
+		ctx.layerTasks.add(() -> readTiles(layer, xml, ctx));
+		return layer;
+	}
 
+	private void readTiles(TileLayer layer, XmlElement xml, TmxMapLoader.TmxLoadContext ctx) {
+		int width = layer.getWidth();
+		int height = layer.getHeight();
 		int[] ids = readTileIds(xml, width, height);
 		for(int y = 0; y < height; y++) {
 			for(int x = 0; x < width; x++) {
@@ -296,8 +355,9 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 				}
 			}
 		}
-
-		return layer;
+		if(ctx.parameter.collisionProperty != null) {
+			layer.buildCollisionGrid(CollisionGrid.property(ctx.parameter.collisionProperty));
+		}
 	}
 
 	private static int[] readTileIds(XmlElement xml, int width, int height) {
@@ -308,9 +368,10 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 		}
 		int[] ids = new int[width * height];
 		if(encoding.equals("csv")) {
-			String[] array = data.getText().split(",");
-			for(int i = 0; i < array.length; i++)
-				ids[i] = (int) Long.parseLong(array[i].trim());
+			int count = NumberTokenizer.parseCsvInts(data.getText(), ids, 0);
+			if(count != ids.length) {
+				throw new GdxRuntimeException("Expected " + ids.length + " tiles in CSV layer data, got " + count);
+			}
 		} else if(encoding.equals("base64")) {
 			readBase64(width, height, data, ids);
 		} else {
@@ -352,7 +413,11 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 	) {
 		ObjectLayer layer = new ObjectLayer(parent, ctx.map);
 		loadLayerProperties(layer, xml, ctx);
+		ctx.layerTasks.add(() -> readObjects(layer, xml, ctx));
+		return layer;
+	}
 
+	private void readObjects(ObjectLayer layer, XmlElement xml, TmxMapLoader.TmxLoadContext ctx) {
 		Function<Integer, TiledMapTile> tileSupplier = ctx::tile;
 		List<MapObject> objects = layer.getObjects();
 		for(XmlElement objectElement : xml.getChildrenByName("object")) {
@@ -361,12 +426,11 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 					ctx.heightInPixels,
 					ctx.parameter.flipY,
 					ctx.objectScaleX, ctx.objectScaleY,
-					tileSupplier
+					tileSupplier, ctx.templates::get, ctx.project
 			);
 			objects.add(object);
 		}
-
-		return layer;
+		if(ctx.parameter.buildObjectIndex) layer.buildIndex();
 	}
 
 	private MapLayer loadImageLayer(XmlElement xml, MapLayer parent, TmxLoadContext ctx) {
@@ -379,6 +443,7 @@ public final class TmxMapLoader extends AssetLoader<TiledMap, TmxMapLoader.Param
 		XmlElement image = xml.getChildByName("image");
 		if(image != null) {
 			String source = image.expectAttribute("source");
+			layer.setSource(source);
 			ctx.deferredTasks.add(assetCtx -> {
 				layer.setTexture(ctx.parameter.imageResolver.apply(source, assetCtx));
 			});
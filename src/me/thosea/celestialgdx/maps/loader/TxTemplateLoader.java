@@ -0,0 +1,70 @@
+package me.thosea.celestialgdx.maps.loader;
+
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.XmlElement;
+import me.thosea.celestialgdx.assets.AssetLoader;
+import me.thosea.celestialgdx.assets.AssetLoaderParameters;
+import me.thosea.celestialgdx.assets.AssetLoadingContext;
+import me.thosea.celestialgdx.maps.MapProperties;
+import me.thosea.celestialgdx.maps.ObjectTemplate;
+import me.thosea.celestialgdx.maps.TiledProject;
+import me.thosea.celestialgdx.maps.Tileset;
+import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+
+import java.io.InputStream;
+import java.util.function.BiFunction;
+
+/**
+ * CelestialGDX -
+ * Loads object templates from {@code .tx} files. Maps loaded by {@link TmxMapLoader} depend on the templates
+ * their objects are placed from, so each template is loaded once and shared.
+ * @author thosea
+ */
+// https://doc.mapeditor.org/en/stable/reference/tmx-map-format/#tmx-template-files
+public final class TxTemplateLoader extends AssetLoader<ObjectTemplate, TxTemplateLoader.Parameters> {
+	public TxTemplateLoader(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	public static class Parameters extends AssetLoaderParameters<ObjectTemplate> {
+		/**
+		 * owner project, used to get custom class types
+		 */
+		public TiledProject project;
+
+		/**
+		 * The tileset of tile objects, the default looks for it relative to the template
+		 */
+		public BiFunction<String, AssetLoadingContext<?>, Tileset> tilesetResolver = (source, ctx) -> {
+			String path = ctx.desc.fileName;
+			int index = path.lastIndexOf('/');
+			String parent = index != -1 ? path.substring(0, index + 1) : "";
+			return ctx.dependOn(parent + source, Tileset.class);
+		};
+	}
+
+	@Override
+	public ObjectTemplate load(String path, Parameters parameter, AssetLoadingContext<ObjectTemplate> ctx) throws Exception {
+		XmlElement root;
+		try(InputStream stream = resolve(path).read()) {
+			root = XmlElement.parse(stream);
+		}
+		if(parameter == null) parameter = new Parameters();
+
+		XmlElement object = root.expectChildByName("object");
+		TiledMapTile tile = null;
+		int gid = object.getIntAttribute("gid", -1);
+		if(gid != -1) {
+			XmlElement tilesetElement = root.expectChildByName("tileset");
+			Tileset tileset = parameter.tilesetResolver.apply(tilesetElement.expectAttribute("source"), ctx);
+			int id = (gid & 0x0FFFFFFF) - tilesetElement.getIntAttribute("firstgid");
+			if(id < 0 || id >= tileset.size()) throw new GdxRuntimeException("Template tile ID is out of bounds: " + gid);
+			tile = tileset.getTile(id);
+		}
+
+		MapProperties properties = new MapProperties();
+		TiledLoaderUtils.loadPropertiesFor(properties, object, parameter.project);
+		return new ObjectTemplate(object, TiledObjectLoader.shape(object), tile, properties);
+	}
+}
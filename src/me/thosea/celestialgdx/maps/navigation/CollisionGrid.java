@@ -0,0 +1,113 @@
+package me.thosea.celestialgdx.maps.navigation;
+
+import me.thosea.celestialgdx.maps.MapProperties;
+import me.thosea.celestialgdx.maps.layers.TileLayer;
+import me.thosea.celestialgdx.maps.layers.TileLayer.Cell;
+import me.thosea.celestialgdx.maps.tiles.TiledMapTile;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * CelestialGDX -
+ * Which cells of a grid are solid, one bit per cell, so a 1024x1024 map takes 128 KB
+ * and neighbouring cells of a row share a word. See {@link TileLayer#buildCollisionGrid(Predicate)}
+ * for a grid that follows the cells of a layer, and {@link FlowField} to find paths over it.
+ * <p>
+ * Cells outside the grid count as solid. Reading from several threads is safe while nothing writes.
+ * </p>
+ * @author thosea
+ */
+public final class CollisionGrid {
+	private final int width, height;
+	private final long[] bits;
+	private int modCount;
+
+	/** Creates a grid with every cell walkable */
+	public CollisionGrid(int width, int height) {
+		if(width < 0 || height < 0) throw new IllegalArgumentException("Invalid size: " + width + "x" + height);
+		this.width = width;
+		this.height = height;
+		this.bits = new long[(int) (((long) width * height + 63) >>> 6)];
+	}
+
+	/**
+	 * Creates a grid where the cells whose tile passes the test are solid. Empty cells are walkable.
+	 * The grid doesn't follow later changes to the layer, see {@link TileLayer#buildCollisionGrid(Predicate)} for that.
+	 */
+	public static CollisionGrid of(TileLayer layer, Predicate<? super TiledMapTile> solid) {
+		CollisionGrid grid = new CollisionGrid(layer.getWidth(), layer.getHeight());
+		for(int y = 0; y < grid.height; y++) {
+			for(int x = 0; x < grid.width; x++) {
+				Cell cell = layer.getCell(x, y);
+				if(cell != null && solid.test(cell.tile())) grid.setSolid(x, y, true);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * @return a test for tiles whose property of the name is true, such as a {@code bool} property set in Tiled
+	 */
+	public static Predicate<TiledMapTile> property(String name) {
+		return tile -> {
+			// tiles without properties in their tileset have none
+			MapProperties properties = tile.properties();
+			return properties != null && Boolean.TRUE.equals(properties.get(name));
+		};
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/** @return whether the cell is solid, or true if it is outside the grid */
+	public boolean isSolid(int x, int y) {
+		if(x < 0 || x >= width || y < 0 || y >= height) return true;
+		int index = y * width + x;
+		return (bits[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/** @return whether the cell is inside the grid and not solid */
+	public boolean isWalkable(int x, int y) {
+		return !isSolid(x, y);
+	}
+
+	/** Sets whether the cell is solid. Cells outside the grid are ignored. */
+	public void setSolid(int x, int y, boolean solid) {
+		if(x < 0 || x >= width || y < 0 || y >= height) return;
+		int index = y * width + x;
+		long word = bits[index >>> 6];
+		long changed = solid ? word | (1L << index) : word & ~(1L << index);
+		if(changed == word) return;
+		bits[index >>> 6] = changed;
+		modCount++;
+	}
+
+	/** Makes every cell solid or walkable */
+	public void fill(boolean solid) {
+		Arrays.fill(bits, solid ? -1L : 0L);
+		// keep the bits past the last cell clear so countSolid() doesn't see them
+		int used = (width * height) & 63;
+		if(solid && used != 0) bits[bits.length - 1] = (1L << used) - 1;
+		modCount++;
+	}
+
+	/** @return the amount of solid cells */
+	public int countSolid() {
+		int count = 0;
+		for(long word : bits) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/** @return a number that changes whenever a cell changes, to tell when paths computed over the grid are outdated */
+	public int getModCount() {
+		return modCount;
+	}
+}
@@ -0,0 +1,265 @@
+package me.thosea.celestialgdx.maps.navigation;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * CelestialGDX -
+ * The direction to walk from every cell of a {@link CollisionGrid} to reach the nearest of a set of goals.
+ * Computing a field costs about as much as one full Dijkstra search, after which any amount of agents
+ * heading for the same goals look up their next step in constant time instead of searching a path each.
+ * <p>
+ * Agents move to any of the eight neighbours, diagonals cost {@code 14} and straight steps {@code 10},
+ * and diagonal steps can't cut the corner of a solid cell.
+ * After the grid changes, {@link #isOutdated()} returns true until the field is computed again.
+ * </p>
+ * <p>
+ * A field must not be used while it's being computed. Fields over the same grid can be computed on different threads
+ * at once as long as the grid doesn't change, see {@link #computeAll(ForkJoinPool, FlowField...)}.
+ * </p>
+ * @author thosea
+ */
+public final class FlowField {
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+	/** The direction of goals, solid cells and cells that can't reach any goal */
+	public static final int NO_DIRECTION = -1;
+
+	static private final int STRAIGHT_COST = 10, DIAGONAL_COST = 14;
+	// counterclockwise from +x, even directions are straight
+	static private final int[] OFFSET_X = {1, 1, 0, -1, -1, -1, 0, 1};
+	static private final int[] OFFSET_Y = {0, 1, 1, 1, 0, -1, -1, -1};
+	/** Fields with fewer cells pick their directions on the calling thread */
+	static private final int PARALLEL_MIN_CELLS = 1 << 16;
+
+	private final CollisionGrid grid;
+	private final int width, height;
+	private final int[] costs;
+	private final byte[] directions;
+	private final IntArray goals = new IntArray();
+	private int computedModCount;
+	private boolean computed;
+
+	// open cells of the search, the cost in the high half and the cell in the low half
+	private long[] heap = new long[64];
+	private int heapSize;
+
+	public FlowField(CollisionGrid grid) {
+		this.grid = grid;
+		this.width = grid.getWidth();
+		this.height = grid.getHeight();
+		this.costs = new int[width * height];
+		this.directions = new byte[width * height];
+		Arrays.fill(costs, UNREACHABLE);
+		Arrays.fill(directions, (byte) NO_DIRECTION);
+	}
+
+	public CollisionGrid getGrid() {
+		return grid;
+	}
+
+	/** Adds a goal for the next {@link #compute()}. Goals outside the grid or on solid cells are ignored. */
+	public void addGoal(int x, int y) {
+		if(x < 0 || x >= width || y < 0 || y >= height) return;
+		goals.add(y * width + x);
+	}
+
+	public void clearGoals() {
+		goals.clear();
+	}
+
+	/** Computes the field on the calling thread, picking the directions on the common pool if the grid is large. */
+	public void compute() {
+		compute(ForkJoinPool.commonPool());
+	}
+
+	/** Computes the field, picking the directions of large grids in bands of rows on the pool. */
+	public void compute(ForkJoinPool pool) {
+		integrate();
+		if(width * height < PARALLEL_MIN_CELLS || pool.getParallelism() == 1) {
+			pickDirections(0, height);
+			return;
+		}
+		int bands = Math.min(height, pool.getParallelism() * 4);
+		ForkJoinTask<?>[] tasks = new ForkJoinTask[bands];
+		for(int i = 0; i < bands; i++) {
+			int startRow = (int) ((long) height * i / bands);
+			int endRow = (int) ((long) height * (i + 1) / bands);
+			tasks[i] = pool.submit(() -> pickDirections(startRow, endRow));
+		}
+		for(ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+	}
+
+	/**
+	 * Computes the fields in parallel on the pool, such as one per group of agents with the same goal.
+	 * The fields may share a grid, which must not change until this returns.
+	 */
+	public static void computeAll(ForkJoinPool pool, FlowField... fields) {
+		ForkJoinTask<?>[] tasks = new ForkJoinTask[fields.length];
+		for(int i = 0; i < fields.length; i++) {
+			FlowField field = fields[i];
+			tasks[i] = pool.submit(() -> {
+				field.integrate();
+				field.pickDirections(0, field.height);
+			});
+		}
+		for(ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+	}
+
+	/** @return whether the grid changed since the field was computed, or it was never computed */
+	public boolean isOutdated() {
+		return !computed || computedModCount != grid.getModCount();
+	}
+
+	/**
+	 * @return the cost of the shortest path from the cell to a goal, in tenths of a straight step,
+	 * or {@link #UNREACHABLE} if there is none or the cell is outside the grid
+	 */
+	public int getCost(int x, int y) {
+		if(x < 0 || x >= width || y < 0 || y >= height) return UNREACHABLE;
+		return costs[y * width + x];
+	}
+
+	/**
+	 * @return the direction of the next step from the cell, from 0 to 7 counterclockwise starting at +x,
+	 * or {@link #NO_DIRECTION}. Turn it into an offset with {@link #directionX(int)} and {@link #directionY(int)}.
+	 */
+	public int getDirection(int x, int y) {
+		if(x < 0 || x >= width || y < 0 || y >= height) return NO_DIRECTION;
+		return directions[y * width + x];
+	}
+
+	/** @return the x offset of the direction, or 0 for {@link #NO_DIRECTION} */
+	public static int directionX(int direction) {
+		return direction == NO_DIRECTION ? 0 : OFFSET_X[direction];
+	}
+
+	/** @return the y offset of the direction, or 0 for {@link #NO_DIRECTION} */
+	public static int directionY(int direction) {
+		return direction == NO_DIRECTION ? 0 : OFFSET_Y[direction];
+	}
+
+	/**
+	 * Follows the field from the cell, adding the x and y of each cell after it to the path.
+	 * @return whether a goal was reached
+	 */
+	public boolean tracePath(int x, int y, IntArray path) {
+		int cost = getCost(x, y);
+		if(cost == UNREACHABLE) return false;
+		while(cost != 0) {
+			int direction = directions[y * width + x];
+			if(direction == NO_DIRECTION) return false;
+			x += OFFSET_X[direction];
+			y += OFFSET_Y[direction];
+			path.add(x, y);
+			cost = costs[y * width + x];
+		}
+		return true;
+	}
+
+	/** Dijkstra from all goals at once, filling in the costs */
+	private void integrate() {
+		CollisionGrid grid = this.grid;
+		int[] costs = this.costs;
+		int width = this.width;
+		computedModCount = grid.getModCount();
+		computed = true;
+		Arrays.fill(costs, UNREACHABLE);
+		heapSize = 0;
+
+		for(int i = 0; i < goals.size; i++) {
+			int cell = goals.items[i];
+			if(grid.isSolid(cell % width, cell / width) || costs[cell] == 0) continue;
+			costs[cell] = 0;
+			push(cell);
+		}
+
+		while(heapSize > 0) {
+			long entry = pop();
+			int cell = (int) entry;
+			int cost = (int) (entry >>> 32);
+			if(cost != costs[cell]) continue; // already reached at a lower cost
+			int x = cell % width, y = cell / width;
+			for(int direction = 0; direction < 8; direction++) {
+				int nx = x + OFFSET_X[direction], ny = y + OFFSET_Y[direction];
+				if(!canStep(grid, x, y, direction)) continue;
+				int next = ny * width + nx;
+				int nextCost = cost + ((direction & 1) == 0 ? STRAIGHT_COST : DIAGONAL_COST);
+				if(nextCost < costs[next]) {
+					costs[next] = nextCost;
+					push(((long) nextCost << 32) | next);
+				}
+			}
+		}
+	}
+
+	/** Points every reachable cell in the rows at its cheapest neighbour */
+	private void pickDirections(int startRow, int endRow) {
+		CollisionGrid grid = this.grid;
+		int[] costs = this.costs;
+		int width = this.width;
+		for(int y = startRow; y < endRow; y++) {
+			for(int x = 0; x < width; x++) {
+				int cell = y * width + x;
+				int cost = costs[cell];
+				int best = NO_DIRECTION;
+				if(cost != 0 && cost != UNREACHABLE) {
+					long bestCost = Long.MAX_VALUE;
+					for(int direction = 0; direction < 8; direction++) {
+						if(!canStep(grid, x, y, direction)) continue;
+						int next = (y + OFFSET_Y[direction]) * width + x + OFFSET_X[direction];
+						long total = (long) costs[next] + ((direction & 1) == 0 ? STRAIGHT_COST : DIAGONAL_COST);
+						if(total < bestCost) {
+							bestCost = total;
+							best = direction;
+						}
+					}
+				}
+				directions[cell] = (byte) best;
+			}
+		}
+	}
+
+	/** @return whether an agent can step from the cell in the direction, which works the same both ways */
+	private static boolean canStep(CollisionGrid grid, int x, int y, int direction) {
+		int dx = OFFSET_X[direction], dy = OFFSET_Y[direction];
+		if(grid.isSolid(x + dx, y + dy)) return false;
+		return (direction & 1) == 0 || (!grid.isSolid(x + dx, y) && !grid.isSolid(x, y + dy));
+	}
+
+	private void push(long entry) {
+		if(heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+		long[] heap = this.heap;
+		int index = heapSize++;
+		while(index > 0) {
+			int parent = (index - 1) >>> 1;
+			if(heap[parent] <= entry) break;
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = entry;
+	}
+
+	private long pop() {
+		long[] heap = this.heap;
+		long top = heap[0];
+		long last = heap[--heapSize];
+		int index = 0;
+		int half = heapSize >>> 1;
+		while(index < half) {
+			int child = 2 * index + 1;
+			if(child + 1 < heapSize && heap[child + 1] < heap[child]) child++;
+			if(last <= heap[child]) break;
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = last;
+		return top;
+	}
+}
@@ -20,17 +20,40 @@ import me.thosea.celestialgdx.image.TextureRegion;
 import me.thosea.celestialgdx.maps.MapProperties;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Objects;
+
 /**
  * @brief Represents a changing {@link TiledMapTile}.
+ * <p>
+ * CelestialGDX - a class rather than a record so the time at which each frame ends stays private,
+ * it has the accessors, equality and string form the record had.
+ * </p>
  */
-public record AnimatedMapTile(
-		int id,
-		boolean isBlended,
-		@Nullable MapProperties properties,
-		int animationLength, AnimationFrame[] frames
-) implements TiledMapTile {
+public final class AnimatedMapTile implements TiledMapTile {
 	public record AnimationFrame(int duration, TextureRegion texture) {}
 
+	private final int id;
+	private final boolean isBlended;
+	@Nullable private final MapProperties properties;
+	private final int animationLength;
+	private final AnimationFrame[] frames;
+	// the time at which each frame ends, the sum of its duration and all before it, so texture(long) can binary search it
+	private final int[] frameEnds;
+
+	public AnimatedMapTile(
+			int id, boolean isBlended, @Nullable MapProperties properties,
+			int animationLength, AnimationFrame[] frames
+	) {
+		if(frames.length == 0) throw new IllegalArgumentException("An animated tile needs at least one frame");
+		if(animationLength <= 0) throw new IllegalArgumentException("animationLength must be > 0: " + animationLength);
+		this.id = id;
+		this.isBlended = isBlended;
+		this.properties = properties;
+		this.animationLength = animationLength;
+		this.frames = frames;
+		this.frameEnds = frameEnds(frames);
+	}
+
 	public AnimatedMapTile(TiledMapTile base, MapProperties prop, AnimationFrame[] frames) {
 		this(
 				base.id(), base.isBlended(),
@@ -45,6 +68,41 @@ public record AnimatedMapTile(
 		return result;
 	}
 
+	private static int[] frameEnds(AnimationFrame[] frames) {
+		int[] ends = new int[frames.length];
+		int end = 0;
+		for(int i = 0; i < frames.length; i++) {
+			int duration = frames[i].duration;
+			if(duration < 0) throw new IllegalArgumentException("Frame " + i + " has a negative duration: " + duration);
+			end += duration;
+			ends[i] = end;
+		}
+		return ends;
+	}
+
+	@Override
+	public int id() {
+		return id;
+	}
+
+	@Override
+	public boolean isBlended() {
+		return isBlended;
+	}
+
+	@Override
+	public @Nullable MapProperties properties() {
+		return properties;
+	}
+
+	public int animationLength() {
+		return animationLength;
+	}
+
+	public AnimationFrame[] frames() {
+		return frames;
+	}
+
 	@Override
 	public boolean isStaticTexture() {
 		return false;
@@ -52,11 +110,38 @@ public record AnimatedMapTile(
 
 	@Override
 	public TextureRegion texture(long timeMs) {
-		int time = (int) (timeMs % animationLength);
-		for(AnimationFrame frame : frames) {
-			if(time <= frame.duration) return frame.texture;
-			time -= animationLength;
+		return frames[frameIndex(timeMs)].texture;
+	}
+
+	/** CelestialGDX - finds the index of the frame shown at the time */
+	public int frameIndex(long timeMs) {
+		int time = Math.floorMod(timeMs, animationLength);
+		// the first frame ending after the time, which skips frames with no duration
+		int low = 0, high = frameEnds.length - 1;
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(frameEnds[middle] <= time) low = middle + 1;
+			else high = middle;
 		}
-		throw new IllegalStateException("Animation time went outside frame length? This shouldn't happen");
+		return low;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof AnimatedMapTile other
+				&& id == other.id && isBlended == other.isBlended
+				&& Objects.equals(properties, other.properties)
+				&& animationLength == other.animationLength && frames == other.frames;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, isBlended, properties, animationLength, System.identityHashCode(frames));
+	}
+
+	@Override
+	public String toString() {
+		return "AnimatedMapTile[id=" + id + ", isBlended=" + isBlended + ", properties=" + properties
+				+ ", animationLength=" + animationLength + ", frames=" + frames + "]";
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,90 @@
+package me.thosea.celestialgdx.maps.tiles;
+
+import me.thosea.celestialgdx.image.TextureRegion;
+
+import java.util.Arrays;
+
+/**
+ * CelestialGDX -
+ * Remembers the current region of each animated tile for the time being drawn, so a tile covering
+ * thousands of visible cells looks up its frame once per frame instead of once per cell.
+ * Renderers pass every cell's tile to {@link #get(TiledMapTile, long)}, static tiles go straight through.
+ * <p>
+ * Tile ids are only unique within a tileset, so tiles are told apart by identity.
+ * New tiles are added the first time they're looked up, after that lookups don't allocate. Not thread safe.
+ * </p>
+ * @author thosea
+ */
+public final class AnimatedTileCache {
+	private AnimatedMapTile[] tiles = new AnimatedMapTile[16];
+	private TextureRegion[] regions = new TextureRegion[16];
+	private long[] times = new long[16];
+	private int size;
+	private int mask = 15;
+
+	/** @return the region of the tile at the time */
+	public TextureRegion get(TiledMapTile tile, long time) {
+		if(tile.isStaticTexture() || !(tile instanceof AnimatedMapTile animated)) return tile.texture(time);
+		return get(animated, time);
+	}
+
+	/** @return the region of the tile at the time, computed only if the time changed since it was last looked up */
+	public TextureRegion get(AnimatedMapTile tile, long time) {
+		AnimatedMapTile[] tiles = this.tiles;
+		int mask = this.mask;
+		for(int i = place(tile); ; i = (i + 1) & mask) {
+			AnimatedMapTile other = tiles[i];
+			if(other == tile) {
+				if(times[i] != time) {
+					times[i] = time;
+					regions[i] = tile.texture(time);
+				}
+				return regions[i];
+			}
+			if(other == null) {
+				TextureRegion region = tile.texture(time);
+				tiles[i] = tile;
+				regions[i] = region;
+				times[i] = time;
+				if(++size * 2 > tiles.length) resize(tiles.length << 1);
+				return region;
+			}
+		}
+	}
+
+	/** @return the amount of animated tiles seen */
+	public int size() {
+		return size;
+	}
+
+	/** Forgets all tiles, such as after switching maps */
+	public void clear() {
+		Arrays.fill(tiles, null);
+		Arrays.fill(regions, null);
+		size = 0;
+	}
+
+	private int place(AnimatedMapTile tile) {
+		return (int) ((System.identityHashCode(tile) * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+	}
+
+	private void resize(int capacity) {
+		AnimatedMapTile[] oldTiles = this.tiles;
+		TextureRegion[] oldRegions = this.regions;
+		long[] oldTimes = this.times;
+		this.tiles = new AnimatedMapTile[capacity];
+		this.regions = new TextureRegion[capacity];
+		this.times = new long[capacity];
+		this.mask = capacity - 1;
+		for(int i = 0; i < oldTiles.length; i++) {
+			AnimatedMapTile tile = oldTiles[i];
+			if(tile == null) continue;
+			int index = place(tile);
+			while(tiles[index] != null)
+				index = (index + 1) & mask;
+			tiles[index] = tile;
+			regions[index] = oldRegions[i];
+			times[index] = oldTimes[i];
+		}
+	}
+}
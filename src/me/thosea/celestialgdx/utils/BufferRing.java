@@ -1,9 +1,392 @@
 package me.thosea.celestialgdx.utils;
 
+import me.thosea.celestialgdx.graphics.Texture;
+import me.thosea.celestialgdx.image.PixelFormat;
+import org.jetbrains.annotations.Nullable;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL44;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.opengl.GL44.*;
+
 /**
- * A ring of buffers
+ * A ring of persistently-mapped pixel buffer objects used to stage texture uploads.
+ * <p>
+ * One {@link GL44#GL_PIXEL_UNPACK_BUFFER} is allocated with immutable storage and mapped once
+ * for the lifetime of the ring. It is split into equally sized {@link Slot}s.
+ * Any thread can claim a slot with {@link #tryAcquire}/{@link #acquire}
+ * and write pixels into {@link Slot#buffer()}, which is plain mapped memory.
+ * The main thread then calls {@link #upload} to issue {@code glTexSubImage2D} from the slot,
+ * which lets the driver copy asynchronously instead of stalling on client memory.
+ * </p>
+ * <p>
+ * A slot that has been uploaded is guarded by a fence until the GPU is done reading it.
+ * Fences can only be checked on the thread owning the GL context, so slots only return to the ring
+ * when the main thread calls {@link #reclaim(boolean)} (which {@link #upload} also does).
+ * </p>
+ * <p>
+ * Requires OpenGL 4.4 or {@code ARB_buffer_storage}; check with {@link #isSupported()}.
+ * Create, upload, reclaim and dispose on the main thread. The ring can't be disposed while slots are claimed,
+ * since their memory is unmapped. The buffer calls are made through a {@link Backend}.
+ * </p>
+ * @author thosea
  */
-public final class BufferRing {
-	// TODO celestialgdx implement
-	// private final int size;
-}
\ No newline at end of file
+public final class BufferRing implements Disposable {
+	private static final int STORAGE_FLAGS = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+
+	/** The OpenGL calls made by the ring, {@link #OPENGL} sends them to the current context */
+	public interface Backend {
+		Backend OPENGL = new Backend() {
+			@Override
+			public int genBuffer() {
+				return glGenBuffers();
+			}
+			@Override
+			public void bindBuffer(int target, int buffer) {
+				glBindBuffer(target, buffer);
+			}
+			@Override
+			public void bufferStorage(int target, long size, int flags) {
+				glBufferStorage(target, size, flags);
+			}
+			@Override
+			public @Nullable ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+				return glMapBufferRange(target, offset, length, access);
+			}
+			@Override
+			public void unmapBuffer(int target) {
+				glUnmapBuffer(target);
+			}
+			@Override
+			public void deleteBuffer(int buffer) {
+				glDeleteBuffers(buffer);
+			}
+			@Override
+			public void texSubImage2D(int target, int width, int height, int format, long offset) {
+				glTexSubImage2D(target, /*level*/ 0, /*xoffset*/ 0, /*yoffset*/ 0, width, height, format, GL_UNSIGNED_BYTE, offset);
+			}
+			@Override
+			public long fenceSync() {
+				return glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+			}
+			@Override
+			public int clientWaitSync(long sync, int flags, long timeout) {
+				return glClientWaitSync(sync, flags, timeout);
+			}
+			@Override
+			public void deleteSync(long sync) {
+				glDeleteSync(sync);
+			}
+		};
+
+		int genBuffer();
+		void bindBuffer(int target, int buffer);
+		void bufferStorage(int target, long size, int flags);
+		@Nullable ByteBuffer mapBufferRange(int target, long offset, long length, int access);
+		void unmapBuffer(int target);
+		void deleteBuffer(int buffer);
+		/** Uploads unsigned bytes from the bound pixel buffer at the offset to level 0 of the bound texture */
+		void texSubImage2D(int target, int width, int height, int format, long offset);
+		/** @return a fence signaled once the GPU has finished the commands before it */
+		long fenceSync();
+		/** @return {@link GL44#GL_ALREADY_SIGNALED}, {@link GL44#GL_CONDITION_SATISFIED}, {@link GL44#GL_TIMEOUT_EXPIRED} or {@link GL44#GL_WAIT_FAILED} */
+		int clientWaitSync(long sync, int flags, long timeout);
+		void deleteSync(long sync);
+	}
+
+	private final Backend gl;
+	private final int handle;
+	private final int slotSize;
+	private final Slot[] slots;
+
+	// slots ready to be written to, in ring order
+	private final ArrayBlockingQueue<Slot> free;
+	// slots uploaded and waiting on their fence, in upload order. main thread only
+	private final ArrayDeque<Slot> inFlight;
+
+	// guarded by this
+	private int claimed = 0;
+	private volatile boolean disposed = false;
+
+	private BufferRing(int slotCount, int slotSize, Backend gl) {
+		if(slotCount <= 0) throw new IllegalArgumentException("slot count must be positive");
+		if(slotSize <= 0) throw new IllegalArgumentException("slot size must be positive");
+
+		this.gl = gl;
+		this.slotSize = slotSize;
+		this.slots = new Slot[slotCount];
+		this.free = new ArrayBlockingQueue<>(slotCount);
+		this.inFlight = new ArrayDeque<>(slotCount);
+
+		long totalSize = (long) slotCount * slotSize;
+		if(totalSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("ring cannot be larger than 2GB");
+		}
+
+		this.handle = gl.genBuffer();
+		gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, handle);
+		gl.bufferStorage(GL_PIXEL_UNPACK_BUFFER, totalSize, STORAGE_FLAGS);
+		ByteBuffer mapped = gl.mapBufferRange(GL_PIXEL_UNPACK_BUFFER, 0, totalSize, STORAGE_FLAGS);
+		gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+		if(mapped == null) {
+			gl.deleteBuffer(handle);
+			throw new IllegalStateException("Failed to map pixel buffer");
+		}
+
+		for(int i = 0; i < slotCount; i++) {
+			Slot slot = new Slot(this, i, (long) i * slotSize, mapped.slice(i * slotSize, slotSize));
+			slots[i] = slot;
+			free.add(slot);
+		}
+	}
+
+	/** @return the size of each slot in bytes */
+	public int getSlotSize() {
+		return slotSize;
+	}
+
+	/** @return the amount of slots in the ring */
+	public int getSlotCount() {
+		return slots.length;
+	}
+
+	/** @return whether a pixmap of the specified size fits in a single slot */
+	public boolean fits(PixelFormat format, int width, int height) {
+		return (long) format.components * width * height <= slotSize;
+	}
+
+	/**
+	 * Claims a free slot without blocking. Can be called from any thread.
+	 * @return the slot, or null if all slots are being written to or read by the GPU
+	 */
+	@Nullable
+	public Slot tryAcquire() {
+		requireNotDisposed();
+		return claim(free.poll());
+	}
+
+	/**
+	 * Claims a free slot, waiting up to the specified time. Can be called from any thread.
+	 * Slots only become free when the main thread calls {@link #reclaim}.
+	 * @return the slot, or null if none became free in time
+	 */
+	@Nullable
+	public Slot acquire(long timeout, TimeUnit unit) throws InterruptedException {
+		requireNotDisposed();
+		return claim(free.poll(timeout, unit));
+	}
+
+	/**
+	 * Blocks until a slot isn't claimed, so it's free or will be once the main thread {@link #reclaim reclaims} it.
+	 * Can be called from any thread. Returns early if the ring is disposed.
+	 */
+	public synchronized void awaitUnclaimed() throws InterruptedException {
+		while(!disposed && claimed == slots.length) {
+			wait();
+		}
+	}
+
+	@Nullable
+	private Slot claim(@Nullable Slot slot) {
+		if(slot == null) return null;
+		synchronized(this) {
+			// the slot was taken from the free queue before dispose cleared it
+			if(disposed) throw new IllegalStateException("ring is disposed");
+			claimed++;
+		}
+		slot.claim();
+		return slot;
+	}
+
+	private synchronized void unclaim(Slot slot, int state) {
+		slot.state = state;
+		claimed--;
+		notifyAll();
+	}
+
+	/**
+	 * Returns a claimed slot to the ring without uploading it. Can be called from any thread.
+	 */
+	public void release(Slot slot) {
+		slot.requireClaimedBy(this);
+		unclaim(slot, Slot.FREE);
+		free.add(slot);
+	}
+
+	/**
+	 * Uploads the pixels written to the slot into the texture's level 0 using {@code glTexSubImage2D},
+	 * then returns the slot to the ring once the GPU has finished reading it.
+	 * The texture's storage is (re)allocated to the specified size, and its buffer is bound afterward.
+	 * Must be called on the main thread.
+	 */
+	public void upload(Slot slot, Texture texture, PixelFormat format, int width, int height) {
+		requireNotDisposed();
+		slot.requireClaimedBy(this);
+		if(format.glType == -1) {
+			throw new IllegalArgumentException("Pixel format " + format + " cannot be uploaded to OpenGL.");
+		} else if(!fits(format, width, height)) {
+			throw new IllegalArgumentException("A " + width + "x" + height + " " + format + " image doesn't fit in a slot");
+		}
+
+		reclaim(/*wait*/ false);
+
+		texture.bindBuffer();
+		texture.allocate(format, width, height);
+		gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, handle);
+		gl.texSubImage2D(texture.glType, width, height, format.glType, slot.offset);
+		gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+		texture.setKnownSize(width, height);
+
+		slot.fence = gl.fenceSync();
+		unclaim(slot, Slot.IN_FLIGHT);
+		inFlight.addLast(slot);
+	}
+
+	/**
+	 * Returns slots the GPU has finished reading back to the ring.
+	 * Must be called on the main thread.
+	 * @param wait if true and no slot is free, blocks until the oldest upload has finished
+	 * @return the amount of slots reclaimed
+	 */
+	public int reclaim(boolean wait) {
+		requireNotDisposed();
+		int reclaimed = 0;
+		while(!inFlight.isEmpty()) {
+			Slot slot = inFlight.peekFirst();
+			boolean block = wait && reclaimed == 0 && free.isEmpty();
+			int result = gl.clientWaitSync(
+					slot.fence,
+					block ? GL_SYNC_FLUSH_COMMANDS_BIT : 0,
+					block ? GL_TIMEOUT_IGNORED : 0
+			);
+			// fences signal in submission order, so stop at the first one still pending
+			if(result == GL_TIMEOUT_EXPIRED) break;
+			if(result == GL_WAIT_FAILED) {
+				throw new IllegalStateException("glClientWaitSync failed");
+			}
+
+			inFlight.removeFirst();
+			gl.deleteSync(slot.fence);
+			slot.fence = 0;
+			slot.state = Slot.FREE;
+			free.add(slot);
+			reclaimed++;
+		}
+		return reclaimed;
+	}
+
+	/**
+	 * Unmaps and deletes the buffer. Must be called on the main thread.
+	 * @throws IllegalStateException if a slot is still claimed, since other threads may be writing to its memory
+	 */
+	@Override
+	public void dispose() {
+		synchronized(this) {
+			requireNotDisposed();
+			if(claimed > 0) {
+				throw new IllegalStateException(claimed + " slots are still claimed, upload or release them before disposing");
+			}
+			this.disposed = true;
+			notifyAll();
+		}
+		for(Slot slot : inFlight) {
+			gl.deleteSync(slot.fence);
+			slot.fence = 0;
+		}
+		inFlight.clear();
+		free.clear();
+
+		gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, handle);
+		gl.unmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+		gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+		gl.deleteBuffer(handle);
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return disposed;
+	}
+
+	/**
+	 * @return whether the current context supports persistently-mapped buffers
+	 */
+	public static boolean isSupported() {
+		GLCapabilities caps = GL.getCapabilities();
+		return caps.OpenGL44 || caps.GL_ARB_buffer_storage;
+	}
+
+	/**
+	 * Creates a new ring. The current context must support it, see {@link #isSupported()}.
+	 * @param slotCount the amount of uploads that can be staged at once
+	 * @param slotSize the size of each slot in bytes, which limits the largest image that can be staged
+	 */
+	public static BufferRing create(int slotCount, int slotSize) {
+		if(!isSupported()) {
+			throw new IllegalStateException("Persistent buffer mapping requires OpenGL 4.4 or ARB_buffer_storage");
+		}
+		return new BufferRing(slotCount, slotSize, Backend.OPENGL);
+	}
+
+	/**
+	 * Creates a new ring making its calls through the backend, such as a fake recording them in tests.
+	 * Support isn't checked.
+	 */
+	public static BufferRing create(int slotCount, int slotSize, Backend gl) {
+		return new BufferRing(slotCount, slotSize, Objects.requireNonNull(gl));
+	}
+
+	/**
+	 * A section of the ring's mapped memory.
+	 * Write pixels starting at position 0 of {@link #buffer()} in rows of
+	 * {@code width * format.components} bytes, then pass it to {@link BufferRing#upload}.
+	 */
+	public static final class Slot {
+		private static final int FREE = 0;
+		private static final int CLAIMED = 1;
+		private static final int IN_FLIGHT = 2;
+
+		private final BufferRing ring;
+		public final int index;
+		private final long offset;
+		private final ByteBuffer buffer;
+
+		private volatile int state = FREE;
+		private long fence; // main thread only
+
+		private Slot(BufferRing ring, int index, long offset, ByteBuffer buffer) {
+			this.ring = ring;
+			this.index = index;
+			this.offset = offset;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * @return the mapped memory of this slot. Only valid while the slot is claimed.
+		 */
+		public ByteBuffer buffer() {
+			if(state != CLAIMED) throw new IllegalStateException("slot is not claimed");
+			return buffer;
+		}
+
+		/** @return whether the slot is claimed and has not been uploaded or released yet */
+		public boolean isClaimed() {
+			return state == CLAIMED;
+		}
+
+		private void claim() {
+			this.state = CLAIMED;
+			this.buffer.clear();
+		}
+
+		private void requireClaimedBy(BufferRing ring) {
+			if(this.ring != ring) throw new IllegalArgumentException("slot belongs to a different ring");
+			if(state != CLAIMED) throw new IllegalStateException("slot is not claimed");
+		}
+	}
+}
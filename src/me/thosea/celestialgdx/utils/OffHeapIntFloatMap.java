@@ -0,0 +1,78 @@
+package me.thosea.celestialgdx.utils;
+
+import java.util.Objects;
+
+/**
+ * CelestialGDX -
+ * An unordered map of unboxed int keys to float values stored off-heap, see {@link OffHeapMap}.
+ * @author thosea
+ */
+public final class OffHeapIntFloatMap extends OffHeapMap {
+	/** Creates a new map with an initial capacity of 51 and a load factor of 0.8. */
+	public OffHeapIntFloatMap() {
+		this(51, 0.8f);
+	}
+
+	/** Creates a new map with a load factor of 0.8. */
+	public OffHeapIntFloatMap(int initialCapacity) {
+		this(initialCapacity, 0.8f);
+	}
+
+	/**
+	 * @param initialCapacity the amount of entries that can be put before the table grows
+	 * @param loadFactor how full the table gets before it grows, between 0 and 1
+	 */
+	public OffHeapIntFloatMap(int initialCapacity, float loadFactor) {
+		super(4, 4, initialCapacity, loadFactor);
+	}
+
+	public void put(int key, float value) {
+		putBits(key, Float.floatToRawIntBits(value));
+	}
+
+	/** Puts the pairs from both arrays, growing the table at most once. Later duplicate keys replace earlier ones. */
+	public void putAll(int[] keys, float[] values, int offset, int length) {
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+		ensureCapacity(length);
+		for(int i = offset, end = offset + length; i < end; i++) {
+			int key = keys[i];
+			float value = values[i];
+			putBits(key, Float.floatToRawIntBits(value));
+		}
+	}
+
+	/** @return the value of the key, or the default value if the key isn't in the map */
+	public float get(int key, float defaultValue) {
+		return Float.intBitsToFloat((int) getBits(key, Float.floatToRawIntBits(defaultValue)));
+	}
+
+	/** @return the removed value, or the default value if the key wasn't in the map */
+	public float remove(int key, float defaultValue) {
+		return Float.intBitsToFloat((int) removeBits(key, Float.floatToRawIntBits(defaultValue)));
+	}
+
+	public boolean containsKey(int key) {
+		return containsKeyBits(key);
+	}
+
+	/** @return the index of the key for {@link #valueAt(int)} and {@link #setValueAt(int, float)}, or -1 if it isn't in the map */
+	public int indexOf(int key) {
+		return indexOfBits(key);
+	}
+
+	/** @see OffHeapMap#nextIndex(int) */
+	public int keyAt(int index) {
+		return (int) keyBitsAt(index);
+	}
+
+	/** @see OffHeapMap#nextIndex(int) */
+	public float valueAt(int index) {
+		return Float.intBitsToFloat((int) valueBitsAt(index));
+	}
+
+	/** Replaces the value at the index without looking up the key again */
+	public void setValueAt(int index, float value) {
+		setValueBitsAt(index, Float.floatToRawIntBits(value));
+	}
+}
@@ -0,0 +1,78 @@
+package me.thosea.celestialgdx.utils;
+
+import java.util.Objects;
+
+/**
+ * CelestialGDX -
+ * An unordered map of unboxed long keys to int values stored off-heap, see {@link OffHeapMap}.
+ * @author thosea
+ */
+public final class OffHeapLongIntMap extends OffHeapMap {
+	/** Creates a new map with an initial capacity of 51 and a load factor of 0.8. */
+	public OffHeapLongIntMap() {
+		this(51, 0.8f);
+	}
+
+	/** Creates a new map with a load factor of 0.8. */
+	public OffHeapLongIntMap(int initialCapacity) {
+		this(initialCapacity, 0.8f);
+	}
+
+	/**
+	 * @param initialCapacity the amount of entries that can be put before the table grows
+	 * @param loadFactor how full the table gets before it grows, between 0 and 1
+	 */
+	public OffHeapLongIntMap(int initialCapacity, float loadFactor) {
+		super(8, 4, initialCapacity, loadFactor);
+	}
+
+	public void put(long key, int value) {
+		putBits(key, value);
+	}
+
+	/** Puts the pairs from both arrays, growing the table at most once. Later duplicate keys replace earlier ones. */
+	public void putAll(long[] keys, int[] values, int offset, int length) {
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+		ensureCapacity(length);
+		for(int i = offset, end = offset + length; i < end; i++) {
+			long key = keys[i];
+			int value = values[i];
+			putBits(key, value);
+		}
+	}
+
+	/** @return the value of the key, or the default value if the key isn't in the map */
+	public int get(long key, int defaultValue) {
+		return (int) getBits(key, defaultValue);
+	}
+
+	/** @return the removed value, or the default value if the key wasn't in the map */
+	public int remove(long key, int defaultValue) {
+		return (int) removeBits(key, defaultValue);
+	}
+
+	public boolean containsKey(long key) {
+		return containsKeyBits(key);
+	}
+
+	/** @return the index of the key for {@link #valueAt(int)} and {@link #setValueAt(int, int)}, or -1 if it isn't in the map */
+	public int indexOf(long key) {
+		return indexOfBits(key);
+	}
+
+	/** @see OffHeapMap#nextIndex(int) */
+	public long keyAt(int index) {
+		return keyBitsAt(index);
+	}
+
+	/** @see OffHeapMap#nextIndex(int) */
+	public int valueAt(int index) {
+		return (int) valueBitsAt(index);
+	}
+
+	/** Replaces the value at the index without looking up the key again */
+	public void setValueAt(int index, int value) {
+		setValueBitsAt(index, value);
+	}
+}
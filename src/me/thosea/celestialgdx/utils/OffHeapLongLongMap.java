@@ -0,0 +1,78 @@
+package me.thosea.celestialgdx.utils;
+
+import java.util.Objects;
+
+/**
+ * CelestialGDX -
+ * An unordered map of unboxed long keys to long values stored off-heap, see {@link OffHeapMap}.
+ * @author thosea
+ */
+public final class OffHeapLongLongMap extends OffHeapMap {
+	/** Creates a new map with an initial capacity of 51 and a load factor of 0.8. */
+	public OffHeapLongLongMap() {
+		this(51, 0.8f);
+	}
+
+	/** Creates a new map with a load factor of 0.8. */
+	public OffHeapLongLongMap(int initialCapacity) {
+		this(initialCapacity, 0.8f);
+	}
+
+	/**
+	 * @param initialCapacity the amount of entries that can be put before the table grows
+	 * @param loadFactor how full the table gets before it grows, between 0 and 1
+	 */
+	public OffHeapLongLongMap(int initialCapacity, float loadFactor) {
+		super(8, 8, initialCapacity, loadFactor);
+	}
+
+	public void put(long key, long value) {
+		putBits(key, value);
+	}
+
+	/** Puts the pairs from both arrays, growing the table at most once. Later duplicate keys replace earlier ones. */
+	public void putAll(long[] keys, long[] values, int offset, int length) {
+		Objects.checkFromIndexSize(offset, length, keys.length);
+		Objects.checkFromIndexSize(offset, length, values.length);
+		ensureCapacity(length);
+		for(int i = offset, end = offset + length; i < end; i++) {
+			long key = keys[i];
+			long value = values[i];
+			putBits(key, value);
+		}
+	}
+
+	/** @return the value of the key, or the default value if the key isn't in the map */
+	public long get(long key, long defaultValue) {
+		return getBits(key, defaultValue);
+	}
+
+	/** @return the removed value, or the default value if the key wasn't in the map */
+	public long remove(long key, long defaultValue) {
+		return removeBits(key, defaultValue);
+	}
+
+	public boolean containsKey(long key) {
+		return containsKeyBits(key);
+	}
+
+	/** @return the index of the key for {@link #valueAt(int)} and {@link #setValueAt(int, long)}, or -1 if it isn't in the map */
+	public int indexOf(long key) {
+		return indexOfBits(key);
+	}
+
+	/** @see OffHeapMap#nextIndex(int) */
+	public long keyAt(int index) {
+		return keyBitsAt(index);
+	}
+
+	/** @see OffHeapMap#nextIndex(int) */
+	public long valueAt(int index) {
+		return valueBitsAt(index);
+	}
+
+	/** Replaces the value at the index without looking up the key again */
+	public void setValueAt(int index, long value) {
+		setValueBitsAt(index, value);
+	}
+}
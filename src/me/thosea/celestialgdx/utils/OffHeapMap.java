@@ -0,0 +1,275 @@
+package me.thosea.celestialgdx.utils;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * CelestialGDX -
+ * Base of the off-heap primitive maps, such as {@link OffHeapIntIntMap}.
+ * Entries live in one native block allocated with {@link org.lwjgl.system.MemoryUtil}, so a map of tens of millions
+ * of entries is a single allocation the garbage collector never scans or copies. The map must be {@link #dispose() disposed}.
+ * <p>
+ * Like {@link com.badlogic.gdx.utils.IntIntMap}, this uses linear probing with Fibonacci hashing and backward shift removal,
+ * and key 0 marks an empty slot, so the entry for key 0 is kept aside.
+ * Keys and values are stored next to each other so a lookup touches one cache line.
+ * </p>
+ * <p>
+ * Iterate with indices instead of iterators, which nest freely and allocate nothing:
+ * <pre>
+ * for(int i = map.nextIndex(0); i != -1; i = map.nextIndex(i + 1)) {
+ *     map.keyAt(i); map.valueAt(i);
+ * }
+ * </pre>
+ * Indices stay valid while only values change. Putting a new key or removing one moves entries and invalidates them.
+ * </p>
+ * <p>
+ * Not thread safe.
+ * </p>
+ * @author thosea
+ */
+public abstract class OffHeapMap implements Disposable {
+	private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private final int keyBytes, valueBytes, entryBytes;
+	private final float loadFactor;
+
+	private long address;
+	private int capacity, mask, shift, threshold;
+	private int size;
+
+	private boolean hasZeroKey;
+	private long zeroValue;
+
+	OffHeapMap(int keyBytes, int valueBytes, int initialCapacity, float loadFactor) {
+		if(loadFactor <= 0f || loadFactor >= 1f) {
+			throw new IllegalArgumentException("loadFactor must be > 0 and < 1: " + loadFactor);
+		}
+		if(initialCapacity < 0) throw new IllegalArgumentException("initialCapacity must be >= 0: " + initialCapacity);
+		this.keyBytes = keyBytes;
+		this.valueBytes = valueBytes;
+		this.entryBytes = keyBytes + valueBytes;
+		this.loadFactor = loadFactor;
+		allocate(tableSize(initialCapacity, loadFactor));
+	}
+
+	/** @return the amount of entries */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/** @return the amount of bytes of native memory used by the table */
+	public long getMemoryUsage() {
+		return (long) capacity * entryBytes;
+	}
+
+	/** Removes all entries without shrinking the table */
+	public void clear() {
+		requireNotDisposed();
+		memSet(address, 0, (long) capacity * entryBytes);
+		size = 0;
+		hasZeroKey = false;
+	}
+
+	/** Grows the table so the amount of additional entries can be put without resizing */
+	public void ensureCapacity(int additionalCapacity) {
+		requireNotDisposed();
+		int tableSize = tableSize(size + additionalCapacity, loadFactor);
+		if(tableSize > capacity) resize(tableSize);
+	}
+
+	/**
+	 * @return the first index at or after the specified one that holds an entry, or -1 if there are no more.
+	 * The entry for key 0 is at the index after the last slot.
+	 */
+	public int nextIndex(int index) {
+		requireNotDisposed();
+		if(index < 0) index = 0;
+		long keyAddress = address + (long) index * entryBytes;
+		for(int i = index; i < capacity; i++, keyAddress += entryBytes) {
+			if(readKey(keyAddress) != 0) return i;
+		}
+		return index <= capacity && hasZeroKey ? capacity : -1;
+	}
+
+	@Override
+	public void dispose() {
+		requireNotDisposed();
+		nmemFree(address);
+		address = NULL;
+		size = 0;
+		hasZeroKey = false;
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return address == NULL;
+	}
+
+	// the subclasses convert to and from these, floats and ints are stored in the low 32 bits
+
+	final void putBits(long key, long value) {
+		requireNotDisposed();
+		if(key == 0) {
+			if(!hasZeroKey) size++;
+			hasZeroKey = true;
+			zeroValue = value;
+			return;
+		}
+		int index = locate(key);
+		if(index >= 0) {
+			writeValue(entry(index), value);
+			return;
+		}
+		index = -(index + 1);
+		long entry = entry(index);
+		writeKey(entry, key);
+		writeValue(entry, value);
+		if(++size >= threshold) resize(capacity << 1);
+	}
+
+	final long getBits(long key, long defaultValue) {
+		requireNotDisposed();
+		if(key == 0) return hasZeroKey ? zeroValue : defaultValue;
+		int index = locate(key);
+		return index >= 0 ? readValue(entry(index)) : defaultValue;
+	}
+
+	final boolean containsKeyBits(long key) {
+		requireNotDisposed();
+		if(key == 0) return hasZeroKey;
+		return locate(key) >= 0;
+	}
+
+	final int indexOfBits(long key) {
+		requireNotDisposed();
+		if(key == 0) return hasZeroKey ? capacity : -1;
+		int index = locate(key);
+		return index >= 0 ? index : -1;
+	}
+
+	final long removeBits(long key, long defaultValue) {
+		requireNotDisposed();
+		if(key == 0) {
+			if(!hasZeroKey) return defaultValue;
+			hasZeroKey = false;
+			size--;
+			return zeroValue;
+		}
+		int index = locate(key);
+		if(index < 0) return defaultValue;
+
+		long oldValue = readValue(entry(index));
+		// backward shift, so there are no tombstones
+		int next = (index + 1) & mask;
+		long nextKey;
+		while((nextKey = readKey(entry(next))) != 0) {
+			int placement = place(nextKey);
+			if(((next - placement) & mask) > ((index - placement) & mask)) {
+				long entry = entry(index);
+				writeKey(entry, nextKey);
+				writeValue(entry, readValue(entry(next)));
+				index = next;
+			}
+			next = (next + 1) & mask;
+		}
+		writeKey(entry(index), 0);
+		size--;
+		return oldValue;
+	}
+
+	final long keyBitsAt(int index) {
+		checkIndex(index);
+		return index == capacity ? 0 : readKey(entry(index));
+	}
+
+	final long valueBitsAt(int index) {
+		checkIndex(index);
+		return index == capacity ? zeroValue : readValue(entry(index));
+	}
+
+	final void setValueBitsAt(int index, long value) {
+		checkIndex(index);
+		if(index == capacity) zeroValue = value;
+		else writeValue(entry(index), value);
+	}
+
+	private void checkIndex(int index) {
+		requireNotDisposed();
+		if(index < 0 || index > capacity || (index == capacity ? !hasZeroKey : readKey(entry(index)) == 0)) {
+			throw new IndexOutOfBoundsException("No entry at index " + index);
+		}
+	}
+
+	/** @return the index of the key, or -(index + 1) of the empty slot it would go in */
+	private int locate(long key) {
+		for(int i = place(key); ; i = (i + 1) & mask) {
+			long other = readKey(entry(i));
+			if(other == 0) return -(i + 1);
+			if(other == key) return i;
+		}
+	}
+
+	private int place(long key) {
+		return (int) (key * GOLDEN >>> shift);
+	}
+
+	private long entry(int index) {
+		return address + (long) index * entryBytes;
+	}
+
+	private long readKey(long entry) {
+		return keyBytes == 4 ? memGetInt(entry) : memGetLong(entry);
+	}
+
+	private void writeKey(long entry, long key) {
+		if(keyBytes == 4) memPutInt(entry, (int) key);
+		else memPutLong(entry, key);
+	}
+
+	private long readValue(long entry) {
+		return valueBytes == 4 ? memGetInt(entry + keyBytes) : memGetLong(entry + keyBytes);
+	}
+
+	private void writeValue(long entry, long value) {
+		if(valueBytes == 4) memPutInt(entry + keyBytes, (int) value);
+		else memPutLong(entry + keyBytes, value);
+	}
+
+	private void allocate(int newCapacity) {
+		this.address = nmemCallocChecked(newCapacity, entryBytes);
+		this.capacity = newCapacity;
+		this.mask = newCapacity - 1;
+		this.shift = Long.numberOfLeadingZeros(mask);
+		this.threshold = (int) Math.min(MAX_CAPACITY, (long) Math.ceil(newCapacity * loadFactor));
+	}
+
+	private void resize(int newCapacity) {
+		if(newCapacity <= 0 || newCapacity > MAX_CAPACITY) throw new IllegalStateException("The map is too large: " + size);
+		long oldAddress = this.address;
+		int oldCapacity = this.capacity;
+		allocate(newCapacity);
+
+		long entry = oldAddress;
+		for(int i = 0; i < oldCapacity; i++, entry += entryBytes) {
+			long key = readKey(entry);
+			if(key == 0) continue;
+			int index = place(key);
+			while(readKey(entry(index)) != 0)
+				index = (index + 1) & mask;
+			long target = entry(index);
+			writeKey(target, key);
+			writeValue(target, readValue(entry));
+		}
+		nmemFree(oldAddress);
+	}
+
+	private static int tableSize(int capacity, float loadFactor) {
+		long tableSize = Math.max(2, Long.highestOneBit((long) Math.ceil(capacity / loadFactor) - 1) << 1);
+		if(tableSize > MAX_CAPACITY) throw new IllegalArgumentException("The required capacity is too large: " + capacity);
+		return (int) tableSize;
+	}
+}
@@ -5,6 +5,7 @@ import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Graphics;
 import com.badlogic.gdx.utils.GdxRuntimeException;
 import me.thosea.celestialgdx.core.CelestialGdx;
 import me.thosea.celestialgdx.cursor.Cursor;
+import me.thosea.celestialgdx.graphics.GlState;
 import me.thosea.celestialgdx.image.PixelFormat;
 import me.thosea.celestialgdx.image.Pixmap;
 import me.thosea.celestialgdx.input.InputController;
@@ -35,6 +36,8 @@ public class Window implements Disposable {
 	public final InputController input;
 
 	public final CelestialGdx gdx;
+	/** The binding state of this window's context */
+	public final GlState glState = new GlState();
 
 	@Nullable
 	public WindowListener windowListener;
@@ -73,6 +76,7 @@ public class Window implements Disposable {
 		this.gdx = gdx;
 		this.windowListener = config.listener;
 		this.handle = createWindow(config);
+		GlState.makeCurrent(glState);
 
 		this.graphics = new Lwjgl3Graphics(this);
 
@@ -93,6 +97,7 @@ public class Window implements Disposable {
 
 	public void bind() {
 		glfwMakeContextCurrent(this.handle);
+		GlState.makeCurrent(glState);
 	}
 
 	public void setCursor(Cursor cursor) {